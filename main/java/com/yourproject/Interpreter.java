@@ -0,0 +1,105 @@
+package main.java.com.yourproject;
+
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.ParseCache;
+import main.java.com.yourproject.optimizer.Optimizer;
+import main.java.com.yourproject.parser.ParseResult;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Entry point for programs that embed the interpreter and run the same scripts many times.
+ * Sources go through a ParseCache, so a script is lexed, parsed and optimized once and the
+ * frozen Program is reused by every later run. Each run gets its own Environment.
+ */
+public class Interpreter {
+    private final ParseCache cache;
+    private final boolean optimize;
+    private final Evaluator evaluator = new Evaluator();
+
+    public Interpreter() {
+        this(new ParseCache());
+    }
+
+    /**
+     * @param cache The cache to parse through, may be shared with other interpreters
+     *              that use the same optimize setting
+     */
+    public Interpreter(ParseCache cache) {
+        this(cache, true);
+    }
+
+    /**
+     * @param cache The cache to parse through, may be shared with other interpreters
+     *              that use the same optimize setting
+     * @param optimize Whether programs are run through the Optimizer before they are cached
+     */
+    public Interpreter(ParseCache cache, boolean optimize) {
+        this.cache = cache;
+        this.optimize = optimize;
+    }
+
+    /**
+     * @param source The program text
+     * @return The cached or freshly parsed program and its errors
+     */
+    public ParseResult parse(String source) {
+        return cache.get(ParseCache.digest(source), () -> {
+            ParseResult parsed = ParseResult.of(new Parser(new Lexer(source)));
+            return optimize ? optimize(parsed) : parsed;
+        });
+    }
+
+    /**
+     * Runs the Optimizer over a clean parse result
+     * @param parsed The parse result
+     * @return The result with an optimized program, or the input if it has errors
+     */
+    public static ParseResult optimize(ParseResult parsed) {
+        if (parsed.hasErrors()) {
+            return parsed;
+        }
+        return new ParseResult(new Optimizer().optimize(parsed.getProgram()), parsed.getErrors());
+    }
+
+    /**
+     * Runs a script in a fresh global environment
+     * @param source The program text
+     * @return The value of the program, or an ErrorObj listing the parser errors
+     */
+    public EvaluatorObject run(String source) {
+        return run(source, new Environment());
+    }
+
+    /**
+     * Runs a script in the given environment
+     * @param source The program text
+     * @param env The environment to evaluate in
+     * @return The value of the program, or an ErrorObj listing the parser errors
+     */
+    public EvaluatorObject run(String source, Environment env) {
+        return run(parse(source), env);
+    }
+
+    /**
+     * @param parsed A result from parse()
+     * @param env The environment to evaluate in
+     * @return The value of the program, or an ErrorObj listing the parser errors
+     */
+    public EvaluatorObject run(ParseResult parsed, Environment env) {
+        if (parsed.hasErrors()) {
+            return new ErrorObj("parser errors: " + String.join("; ", parsed.getErrors()));
+        }
+        return evaluator.eval(parsed.getProgram(), env);
+    }
+
+    /**
+     * @return The cache this interpreter parses through
+     */
+    public ParseCache getCache() {
+        return cache;
+    }
+}
@@ -1,19 +1,53 @@
 package main.java.com.yourproject;
 
-import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.codec.AstReader;
+import main.java.com.yourproject.ast.codec.AstWriter;
+import main.java.com.yourproject.closures.ClosureCompiler;
+import main.java.com.yourproject.compiler.Compiler;
 import main.java.com.yourproject.evaluator.Evaluator;
 import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.lexer.MappedLexer;
+import main.java.com.yourproject.lexer.StreamingLexer;
+import main.java.com.yourproject.nodes.NodeInterpreter;
+import main.java.com.yourproject.parser.ParseCache;
+import main.java.com.yourproject.parser.ParseResult;
 import main.java.com.yourproject.parser.Parser;
 import main.java.com.yourproject.runtime.Environment;
 import main.java.com.yourproject.utiliity.DoubleSum;
 import main.java.com.yourproject.utiliity.Factorial;
 import main.java.com.yourproject.utiliity.Fibonacci;
+import main.java.com.yourproject.vm.VirtualMachine;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Supplier;
 
 public class Main {
+    // How runFile reads its input: "string" (whole file in memory), "stream" (bounded buffer)
+    // or "mmap" (lexes the memory-mapped UTF-8 bytes directly). Scripts are UTF-8 in every
+    // mode, so a digest of the file bytes always stands for the same program text.
+    private static final String INPUT_MODE = System.getProperty("monkey.input", "string");
+
+    // Parsed scripts keyed by content; "stream" mode bypasses it since it never holds the whole file
+    private static final ParseCache PARSE_CACHE = new ParseCache();
+
+    // Load and write compiled ASTs (<file>.monkeyc) next to the source, checked by source hash.
+    // Off unless -Dmonkey.compiled=true, so a plain run leaves the source tree alone.
+    private static final boolean USE_COMPILED = Boolean.parseBoolean(System.getProperty("monkey.compiled", "false"));
+
+    // Run the Optimizer between parsing and evaluation
+    private static final boolean OPTIMIZE = Boolean.parseBoolean(System.getProperty("monkey.optimize", "true"));
+
+    // What runs the program: "eval" (tree-walking Evaluator), "vm" (bytecode VirtualMachine),
+    // "nodes" (self-specializing NodeInterpreter) or "closures" (AST compiled to lambdas)
+    private static final String ENGINE = System.getProperty("monkey.engine", "eval");
+
     public static void main(String[] args) {
         // 1. First show the demo output
         runDemo();
@@ -28,19 +62,79 @@ public class Main {
     }
 
     private static void runFile(String filename) throws IOException {
-        String source = new String(Files.readAllBytes(Paths.get(filename)));
-        Lexer lexer = new Lexer(source);
-        Parser parser = new Parser(lexer);
-        Program program = parser.parseProgram();
+        Path path = Paths.get(filename);
+        if (INPUT_MODE.equals("mmap")) {
+            MappedByteBuffer bytes = MappedLexer.map(path);
+            String hash = ParseCache.digest(bytes);
+            run(PARSE_CACHE.get(hash, () -> optimize(loadOrParse(path, hash, () -> ParseResult.of(new Parser(new MappedLexer(bytes)))))));
+        } else if (INPUT_MODE.equals("stream")) {
+            try (StreamingLexer lexer = new StreamingLexer(FileChannel.open(path), StandardCharsets.UTF_8)) {
+                run(optimize(ParseResult.of(new Parser(lexer))));
+            }
+        } else {
+            byte[] bytes = Files.readAllBytes(path);
+            String hash = ParseCache.digest(bytes);
+            run(PARSE_CACHE.get(hash, () -> optimize(loadOrParse(path, hash, () -> ParseResult.of(new Parser(new Lexer(new String(bytes, StandardCharsets.UTF_8))))))));
+        }
+    }
+
+    private static ParseResult optimize(ParseResult parsed) {
+        return OPTIMIZE ? Interpreter.optimize(parsed) : parsed;
+    }
 
-        if (!parser.getErrors().isEmpty()) {
+    /**
+     * Loads the compiled AST next to a source file when it was built from the same source,
+     * otherwise parses and (if the parse was clean) writes a fresh compiled AST.
+     * A missing, stale or unreadable compiled file only costs the parse.
+     */
+    private static ParseResult loadOrParse(Path source, String hash, Supplier<ParseResult> parse) {
+        if (!USE_COMPILED) {
+            return parse.get();
+        }
+        Path compiled = source.resolveSibling(source.getFileName() + "c");
+        if (Files.isRegularFile(compiled)) {
+            try {
+                AstReader reader = AstReader.open(compiled);
+                if (reader.getSourceHash().equals(hash)) {
+                    return new ParseResult(reader.readProgram(), List.of());
+                }
+            } catch (IOException e) {
+                // Fall through and rebuild it
+            }
+        }
+
+        ParseResult parsed = parse.get();
+        if (!parsed.hasErrors()) {
+            try {
+                AstWriter.write(parsed.getProgram(), hash, compiled);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Could not write " + compiled + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    private static void run(ParseResult parsed) {
+        if (parsed.hasErrors()) {
             System.out.println("Parser errors:");
-            parser.getErrors().forEach(error -> System.out.println("  " + error));
+            parsed.getErrors().forEach(error -> System.out.println("  " + error));
             return;
         }
 
+        if (ENGINE.equals("vm")) {
+            new VirtualMachine().run(Compiler.compile(parsed.getProgram()));
+            return;
+        }
+        if (ENGINE.equals("closures")) {
+            new ClosureCompiler().eval(parsed.getProgram(), new Environment());
+            return;
+        }
+        if (ENGINE.equals("nodes")) {
+            new NodeInterpreter().run(parsed.getProgram(), new Environment());
+            return;
+        }
         Evaluator evaluator = new Evaluator();
-        evaluator.eval(program, new Environment());
+        evaluator.eval(parsed.getProgram(), new Environment());
     }
 
     private static void runDemo() {
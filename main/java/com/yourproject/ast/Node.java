@@ -3,6 +3,10 @@ package main.java.com.yourproject.ast;
 /**
  * The root interface for all AST nodes in the Monkey language.
  * Every node in the abstract syntax tree must implement this interface.
+ *
+ * The node kinds are closed: Expression and Statement are sealed to the classes in their own
+ * packages. Node itself cannot be sealed, since its implementations live in other packages and
+ * the project is not a named module.
  */
 public interface Node {
     /**
@@ -11,6 +15,14 @@ public interface Node {
      */
     String tokenLiteral();
 
+    /**
+     * Calls the visitor's method for this kind of node
+     * @param visitor The visitor
+     * @param context Passed on to the visit method
+     * @return What the visit method returns
+     */
+    <R, C> R accept(NodeVisitor<R, C> visitor, C context);
+
     /**
      * Returns a string representation of the node for debugging and printing
      * @return The string representation of the node
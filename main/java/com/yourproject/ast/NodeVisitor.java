@@ -0,0 +1,28 @@
+package main.java.com.yourproject.ast;
+
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+
+/**
+ * One method per kind of node. Node.accept calls the method for the node's own class, so a
+ * pass over the tree costs one virtual call per node instead of a chain of instanceof tests.
+ * @param <R> What each visit returns
+ * @param <C> A context handed to every visit, e.g. the current Environment
+ */
+public interface NodeVisitor<R, C> {
+    R visitProgram(Program node, C context);
+
+    R visitLetStatement(LetStatement node, C context);
+    R visitReturnStatement(ReturnStatement node, C context);
+    R visitExpressionStatement(ExpressionStatement node, C context);
+    R visitBlockStatement(BlockStatement node, C context);
+
+    R visitIdentifier(Identifier node, C context);
+    R visitIntegerLiteral(IntegerLiteral node, C context);
+    R visitBooleanLiteral(BooleanLiteral node, C context);
+    R visitPrefixExpression(PrefixExpression node, C context);
+    R visitInfixExpression(InfixExpression node, C context);
+    R visitIfExpression(IfExpression node, C context);
+    R visitFunctionLiteral(FunctionLiteral node, C context);
+    R visitCallExpression(CallExpression node, C context);
+}
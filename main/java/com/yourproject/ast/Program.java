@@ -3,20 +3,29 @@ package main.java.com.yourproject.ast;
 import main.java.com.yourproject.ast.statements.Statement;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents the root node of the Monkey language AST.
  * Contains a series of statements that make up the program.
  */
-public class Program implements Node {
+public final class Program implements Node {
     private final List<Statement> statements = new ArrayList<>();
+    private final List<Statement> view = Collections.unmodifiableList(statements);
+    private volatile boolean frozen;
+    private volatile boolean resolved;
 
     /**
-     * @return The list of statements in the program
+     * @return A read-only view of the statements in the program
      */
     public List<Statement> getStatements() {
-        return statements;
+        return view;
+    }
+
+    @Override
+    public <R, C> R accept(NodeVisitor<R, C> visitor, C context) {
+        return visitor.visitProgram(this, context);
     }
 
     /**
@@ -44,6 +53,42 @@ public class Program implements Node {
      * @param statement The statement to add
      */
     public void addStatement(Statement statement) {
+        if (frozen) {
+            throw new IllegalStateException("program is frozen and may be shared");
+        }
         statements.add(statement);
+        resolved = false;
+    }
+
+    /**
+     * Marks the program as finished. A frozen program can be evaluated by several
+     * callers at once, so it must not gain statements afterwards.
+     * @return This program
+     */
+    public Program freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * @return true once freeze() was called
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return true once the Resolver has annotated this program
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * Called by the Resolver after it has annotated every node. The volatile write publishes
+     * the annotations to any thread that later sees isResolved() return true.
+     */
+    public void markResolved() {
+        resolved = true;
     }
 }
@@ -0,0 +1,52 @@
+package main.java.com.yourproject.ast.codec;
+
+
+/**
+ * Layout of the compiled AST format (.monkeyc files).
+ *
+ * <pre>
+ * magic      4 bytes  "MKAC"
+ * version    varint   VERSION
+ * sourceHash string   ParseCache digest of the source the AST was parsed from
+ * checksum   4 bytes  CRC32 of everything after it, big-endian
+ * pool       varint count, then count strings (varint byte length + UTF-8 bytes)
+ * program    varint statement count, then the statements
+ * </pre>
+ *
+ * Nodes are written in pre-order: a tag byte, then the node's fields and children.
+ * Most tokens follow from the node itself (a LetStatement's token is `let`, an Identifier's
+ * is the IDENT with its name, an ExpressionStatement's is the first token of its expression)
+ * and are not written. When a token does not match, the tag has EXPLICIT set and the token
+ * is written out: its TokenType ordinal, then a pool index unless the type has a fixed
+ * literal. Lists are written as varint (size + 1), with 0 meaning null.
+ * Nodes nest at most MAX_DEPTH deep, so reading a file cannot overflow the stack.
+ * Any change to the node set, the node layouts or the TokenType enum must bump VERSION.
+ */
+final class AstFormat {
+    static final byte[] MAGIC = {'M', 'K', 'A', 'C'};
+    static final int VERSION = 2;
+
+    // Deepest node nesting the writer encodes and the reader accepts
+    static final int MAX_DEPTH = 1000;
+
+    // Set on a tag when the node's token (and for prefix/infix nodes, its operator) is written out
+    static final int EXPLICIT = 0x80;
+
+    // Node tags
+    static final byte NULL = 0;
+    static final byte LET = 1;
+    static final byte RETURN = 2;
+    static final byte EXPRESSION_STATEMENT = 3;
+    static final byte BLOCK = 4;
+    static final byte IDENTIFIER = 5;
+    static final byte INTEGER = 6;
+    static final byte BOOLEAN = 7;
+    static final byte PREFIX = 8;
+    static final byte INFIX = 9;
+    static final byte IF = 10;
+    static final byte FUNCTION = 11;
+    static final byte CALL = 12;
+
+    private AstFormat() {
+    }
+}
@@ -0,0 +1,335 @@
+package main.java.com.yourproject.ast.codec;
+
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Decodes the compiled AST format written by AstWriter.
+ *
+ * The header is read by the constructor, so getSourceHash() can be checked against the
+ * current source before paying for readProgram(). The constructor also checks the CRC32 of
+ * the pool and program, so a damaged file is rejected rather than decoded into another
+ * program. Any malformed input surfaces as an IOException. Pool strings are decoded once, and the
+ * IDENT and INT tokens for a pool entry are shared by every node that uses them.
+ * Tokens left out by the writer are rebuilt from the node, see AstFormat.
+ */
+public class AstReader {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final byte[] data;
+    private int position;
+    private final String sourceHash;
+    private final String[] pool;
+    private final Token[] identTokens;
+    private final Token[] intTokens;
+    private final int[] intValues;
+    private int depth;
+    private boolean consumed;
+
+    /**
+     * Reads the header and string pool
+     * @param data The encoded program
+     * @throws IOException if the data is not an intact compiled AST of the current version
+     */
+    public AstReader(byte[] data) throws IOException {
+        this.data = data;
+        try {
+            for (byte expected : AstFormat.MAGIC) {
+                if (data[position++] != expected) {
+                    throw new IOException("not a compiled Monkey AST");
+                }
+            }
+            int version = readVarInt();
+            if (version != AstFormat.VERSION) {
+                throw new IOException("unsupported AST version " + version + ", expected " + AstFormat.VERSION);
+            }
+            sourceHash = readString();
+            int expected = 0;
+            for (int i = 0; i < 4; i++) {
+                expected = (expected << 8) | (data[position++] & 0xFF);
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(data, position, data.length - position);
+            if ((int) checksum.getValue() != expected) {
+                throw new IOException("AST checksum mismatch");
+            }
+            pool = new String[readCount()];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = readString();
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("truncated AST header", e);
+        }
+        identTokens = new Token[pool.length];
+        intTokens = new Token[pool.length];
+        intValues = new int[pool.length];
+    }
+
+    /**
+     * @param path A .monkeyc file
+     * @return A reader over the file contents
+     * @throws IOException if the file cannot be read or has a bad header
+     */
+    public static AstReader open(Path path) throws IOException {
+        return new AstReader(Files.readAllBytes(path));
+    }
+
+    /**
+     * @return The digest of the source the AST was compiled from
+     */
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * Decodes the program. Can only be called once per reader.
+     * @return The program, not yet frozen
+     * @throws IOException if the body is malformed
+     */
+    public Program readProgram() throws IOException {
+        if (consumed) {
+            throw new IllegalStateException("program already read");
+        }
+        consumed = true;
+        try {
+            Program program = new Program();
+            int count = readCount();
+            for (int i = 0; i < count; i++) {
+                program.addStatement(readStatement());
+            }
+            if (position != data.length) {
+                throw new IOException("trailing bytes after program");
+            }
+            return program;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt AST body at byte " + position, e);
+        }
+    }
+
+    private Statement readStatement() throws IOException {
+        return (Statement) readNode();
+    }
+
+    private Expression readExpression() throws IOException {
+        return (Expression) readNode();
+    }
+
+    private BlockStatement readBlock() throws IOException {
+        return (BlockStatement) readNode();
+    }
+
+    private Object readNode() throws IOException {
+        if (depth == AstFormat.MAX_DEPTH) {
+            throw new IOException("nodes nested deeper than " + AstFormat.MAX_DEPTH + " at byte " + position);
+        }
+        depth++;
+        Object node = decodeNode();
+        depth--;
+        return node;
+    }
+
+    private Object decodeNode() throws IOException {
+        int tag = data[position++] & 0xFF;
+        boolean explicit = (tag & AstFormat.EXPLICIT) != 0;
+        switch (tag & ~AstFormat.EXPLICIT) {
+            case AstFormat.NULL:
+                return null;
+            case AstFormat.LET: {
+                Token token = tagToken(explicit, TokenType.LET);
+                return new LetStatement(token, (Identifier) readExpression(), readExpression());
+            }
+            case AstFormat.RETURN:
+                return new ReturnStatement(tagToken(explicit, TokenType.RETURN), readExpression());
+            case AstFormat.EXPRESSION_STATEMENT: {
+                Token token = explicit ? readToken() : null;
+                Expression expression = readExpression();
+                if (token == null) {
+                    token = AstWriter.leadingToken(expression);
+                    if (token == null) {
+                        throw new IOException("expression statement without a leading token");
+                    }
+                }
+                return new ExpressionStatement(token, expression);
+            }
+            case AstFormat.BLOCK: {
+                BlockStatement block = new BlockStatement(tagToken(explicit, TokenType.LBRACE));
+                int size = readCount() - 1;
+                for (int i = 0; i < size; i++) {
+                    block.addStatement(readStatement());
+                }
+                return block;
+            }
+            case AstFormat.IDENTIFIER: {
+                int index = readVarInt();
+                Token token = explicit ? readToken() : sharedToken(identTokens, index, TokenType.IDENT);
+                return new Identifier(token, pool[index]);
+            }
+            case AstFormat.INTEGER: {
+                if (explicit) {
+                    Token token = readToken();
+                    int zigzag = readVarInt();
+                    return new IntegerLiteral(token, (zigzag >>> 1) ^ -(zigzag & 1));
+                }
+                int index = readVarInt();
+                Token token = sharedToken(intTokens, index, TokenType.INT);
+                return new IntegerLiteral(token, intValues[index]);
+            }
+            case AstFormat.BOOLEAN: {
+                Token token = explicit ? readToken() : null;
+                boolean value = data[position++] != 0;
+                if (token == null) {
+                    token = Token.of(value ? TokenType.TRUE : TokenType.FALSE);
+                }
+                return new BooleanLiteral(token, value);
+            }
+            case AstFormat.PREFIX: {
+                Token token = operatorToken(explicit);
+                Operator operator = operator(Operator.prefix(explicit ? pool[readVarInt()] : token.getLiteral()), "prefix");
+                return new PrefixExpression(token, operator, readExpression());
+            }
+            case AstFormat.INFIX: {
+                Token token = operatorToken(explicit);
+                Operator operator = operator(Operator.infix(explicit ? pool[readVarInt()] : token.getLiteral()), "infix");
+                Expression left = readExpression();
+                return new InfixExpression(token, left, operator, readExpression());
+            }
+            case AstFormat.IF: {
+                Token token = tagToken(explicit, TokenType.IF);
+                Expression condition = readExpression();
+                BlockStatement consequence = readBlock();
+                return new IfExpression(token, condition, consequence, readBlock());
+            }
+            case AstFormat.FUNCTION: {
+                Token token = tagToken(explicit, TokenType.FUNCTION);
+                List<Identifier> parameters = readList();
+                return new FunctionLiteral(token, parameters, readBlock());
+            }
+            case AstFormat.CALL: {
+                Token token = tagToken(explicit, TokenType.LPAREN);
+                Expression function = readExpression();
+                return new CallExpression(token, function, readList());
+            }
+            default:
+                throw new IOException("unknown node tag " + tag + " at byte " + (position - 1));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readList() throws IOException {
+        int size = readCount() - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<T> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add((T) readNode());
+        }
+        return nodes;
+    }
+
+    private Token tagToken(boolean explicit, TokenType implied) throws IOException {
+        return explicit ? readToken() : Token.of(implied);
+    }
+
+    private Operator operator(Operator operator, String kind) throws IOException {
+        if (operator == null) {
+            throw new IOException("unknown " + kind + " operator at byte " + position);
+        }
+        return operator;
+    }
+
+    private Token operatorToken(boolean explicit) throws IOException {
+        if (explicit) {
+            return readToken();
+        }
+        TokenType type = tokenType(data[position++] & 0xFF);
+        if (!type.hasFixedLiteral()) {
+            throw new IOException("operator token " + type + " has no fixed literal");
+        }
+        return Token.of(type);
+    }
+
+    private Token readToken() throws IOException {
+        TokenType type = tokenType(data[position++] & 0xFF);
+        if (type.hasFixedLiteral()) {
+            return Token.of(type);
+        }
+        int index = readVarInt();
+        if (type == TokenType.IDENT) {
+            return sharedToken(identTokens, index, type);
+        }
+        if (type == TokenType.INT) {
+            return sharedToken(intTokens, index, type);
+        }
+        return new Token(type, pool[index]);
+    }
+
+    private static TokenType tokenType(int ordinal) throws IOException {
+        if (ordinal >= TOKEN_TYPES.length) {
+            throw new IOException("unknown token type " + ordinal);
+        }
+        return TOKEN_TYPES[ordinal];
+    }
+
+    /**
+     * One token per pool entry and type. For INT tokens this also parses the value once.
+     */
+    private Token sharedToken(Token[] tokens, int index, TokenType type) throws IOException {
+        Token token = tokens[index];
+        if (token == null) {
+            token = new Token(type, pool[index]);
+            if (type == TokenType.INT) {
+                try {
+                    intValues[index] = Integer.parseInt(pool[index]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("bad integer literal " + pool[index], e);
+                }
+            }
+            tokens[index] = token;
+        }
+        return token;
+    }
+
+    /**
+     * Reads a length or element count. Every element takes at least one byte, so a count
+     * larger than the data is corrupt, and rejecting it keeps a bad file from allocating
+     * a huge array.
+     */
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0 || count > data.length) {
+            throw new IOException("bad count " + count);
+        }
+        return count;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        int length = readCount();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+}
@@ -0,0 +1,317 @@
+package main.java.com.yourproject.ast.codec;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Serializes a Program into the compiled AST format described in AstFormat.
+ * Every identifier, operator and literal string is stored once in the pool.
+ */
+public class AstWriter {
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private final List<String> pool = new ArrayList<>();
+    private final ByteSink body = new ByteSink(1024);
+    private int depth;
+
+    private AstWriter() {
+    }
+
+    /**
+     * @param program The program to serialize
+     * @param sourceHash The digest of the source the program was parsed from
+     * @return The encoded program
+     * @throws IllegalArgumentException if the program nests deeper than the format allows
+     */
+    public static byte[] write(Program program, String sourceHash) {
+        AstWriter writer = new AstWriter();
+        writer.body.writeVarInt(program.getStatements().size());
+        for (Statement statement : program.getStatements()) {
+            writer.writeNode(statement);
+        }
+
+        ByteSink out = new ByteSink(writer.body.size + 64);
+        out.writeBytes(AstFormat.MAGIC);
+        out.writeVarInt(AstFormat.VERSION);
+        out.writeString(sourceHash);
+        int checksumAt = out.size;
+        out.writeBytes(new byte[4]);
+        out.writeVarInt(writer.pool.size());
+        for (String value : writer.pool) {
+            out.writeString(value);
+        }
+        out.writeBytes(writer.body.bytes, writer.body.size);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(out.bytes, checksumAt + 4, out.size - checksumAt - 4);
+        int crc = (int) checksum.getValue();
+        for (int i = 0; i < 4; i++) {
+            out.bytes[checksumAt + i] = (byte) (crc >>> (24 - 8 * i));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the encoded program to a file. The file is replaced atomically where the file
+     * system allows it, so a concurrent reader never sees a half-written file.
+     * @param program The program to serialize
+     * @param sourceHash The digest of the source the program was parsed from
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the program nests deeper than the format allows
+     */
+    public static void write(Program program, String sourceHash, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, write(program, sourceHash));
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeNode(Node node) {
+        if (depth == AstFormat.MAX_DEPTH) {
+            throw new IllegalArgumentException("nodes nested deeper than " + AstFormat.MAX_DEPTH);
+        }
+        depth++;
+        encodeNode(node);
+        depth--;
+    }
+
+    private void encodeNode(Node node) {
+        if (node == null) {
+            body.writeByte(AstFormat.NULL);
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            writeTag(AstFormat.LET, let.getToken(), TokenType.LET);
+            writeNode(let.getName());
+            writeNode(let.getValue());
+        } else if (node instanceof ReturnStatement) {
+            ReturnStatement ret = (ReturnStatement) node;
+            writeTag(AstFormat.RETURN, ret.getToken(), TokenType.RETURN);
+            writeNode(ret.getReturnValue());
+        } else if (node instanceof ExpressionStatement) {
+            ExpressionStatement statement = (ExpressionStatement) node;
+            Token leading = leadingToken(statement.getExpression());
+            if (leading != null && sameToken(statement.getToken(), leading)) {
+                body.writeByte(AstFormat.EXPRESSION_STATEMENT);
+            } else {
+                body.writeByte(AstFormat.EXPRESSION_STATEMENT | AstFormat.EXPLICIT);
+                writeToken(statement.getToken());
+            }
+            writeNode(statement.getExpression());
+        } else if (node instanceof BlockStatement) {
+            BlockStatement block = (BlockStatement) node;
+            writeTag(AstFormat.BLOCK, block.getToken(), TokenType.LBRACE);
+            writeList(block.getStatements());
+        } else if (node instanceof Identifier) {
+            Identifier identifier = (Identifier) node;
+            Token token = identifier.getToken();
+            boolean implicit = token.getType() == TokenType.IDENT && token.getLiteral().equals(identifier.getValue());
+            body.writeByte(implicit ? AstFormat.IDENTIFIER : AstFormat.IDENTIFIER | AstFormat.EXPLICIT);
+            body.writeVarInt(intern(identifier.getValue()));
+            if (!implicit) {
+                writeToken(token);
+            }
+        } else if (node instanceof IntegerLiteral) {
+            IntegerLiteral literal = (IntegerLiteral) node;
+            Token token = literal.getToken();
+            boolean implicit = token.getType() == TokenType.INT && token.getLiteral().equals(Integer.toString(literal.getValue()));
+            body.writeByte(implicit ? AstFormat.INTEGER : AstFormat.INTEGER | AstFormat.EXPLICIT);
+            if (implicit) {
+                body.writeVarInt(intern(token.getLiteral()));
+            } else {
+                writeToken(token);
+                body.writeVarInt((literal.getValue() << 1) ^ (literal.getValue() >> 31));
+            }
+        } else if (node instanceof BooleanLiteral) {
+            BooleanLiteral literal = (BooleanLiteral) node;
+            writeTag(AstFormat.BOOLEAN, literal.getToken(), literal.getValue() ? TokenType.TRUE : TokenType.FALSE);
+            body.writeByte(literal.getValue() ? 1 : 0);
+        } else if (node instanceof PrefixExpression) {
+            PrefixExpression prefix = (PrefixExpression) node;
+            writeOperator(AstFormat.PREFIX, prefix.getToken(), prefix.getOperator().getSymbol());
+            writeNode(prefix.getRight());
+        } else if (node instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression) node;
+            writeOperator(AstFormat.INFIX, infix.getToken(), infix.getOperator().getSymbol());
+            writeNode(infix.getLeft());
+            writeNode(infix.getRight());
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            writeTag(AstFormat.IF, ifExpression.getToken(), TokenType.IF);
+            writeNode(ifExpression.getCondition());
+            writeNode(ifExpression.getConsequence());
+            writeNode(ifExpression.getAlternative());
+        } else if (node instanceof FunctionLiteral) {
+            FunctionLiteral function = (FunctionLiteral) node;
+            writeTag(AstFormat.FUNCTION, function.getToken(), TokenType.FUNCTION);
+            writeList(function.getParameters());
+            writeNode(function.getBody());
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            writeTag(AstFormat.CALL, call.getToken(), TokenType.LPAREN);
+            writeNode(call.getFunction());
+            writeList(call.getArguments());
+        } else {
+            throw new IllegalArgumentException("cannot encode node " + node.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes the tag, and the token too if it is not the fixed token the tag implies
+     */
+    private void writeTag(byte tag, Token token, TokenType implied) {
+        if (token.getType() == implied) {
+            body.writeByte(tag);
+        } else {
+            body.writeByte(tag | AstFormat.EXPLICIT);
+            writeToken(token);
+        }
+    }
+
+    /**
+     * Prefix and infix nodes: the operator token's type, from which the reader recovers both
+     * the token and the operator string, or the explicit token and operator
+     */
+    private void writeOperator(byte tag, Token token, String operator) {
+        if (token.getType().hasFixedLiteral() && token.getLiteral().equals(operator)) {
+            body.writeByte(tag);
+            body.writeByte(token.getType().ordinal());
+        } else {
+            body.writeByte(tag | AstFormat.EXPLICIT);
+            writeToken(token);
+            body.writeVarInt(intern(operator));
+        }
+    }
+
+    private void writeList(List<? extends Node> nodes) {
+        if (nodes == null) {
+            body.writeVarInt(0);
+            return;
+        }
+        body.writeVarInt(nodes.size() + 1);
+        for (Node node : nodes) {
+            writeNode(node);
+        }
+    }
+
+    private void writeToken(Token token) {
+        body.writeByte(token.getType().ordinal());
+        if (!token.getType().hasFixedLiteral()) {
+            body.writeVarInt(intern(token.getLiteral()));
+        }
+    }
+
+    /**
+     * The token an expression starts with, which the parser uses as the ExpressionStatement token
+     * @return The token, or null if it cannot be derived
+     */
+    static Token leadingToken(Expression expression) {
+        while (true) {
+            if (expression instanceof InfixExpression) {
+                expression = ((InfixExpression) expression).getLeft();
+            } else if (expression instanceof CallExpression) {
+                expression = ((CallExpression) expression).getFunction();
+            } else if (expression instanceof Identifier) {
+                return ((Identifier) expression).getToken();
+            } else if (expression instanceof IntegerLiteral) {
+                return ((IntegerLiteral) expression).getToken();
+            } else if (expression instanceof BooleanLiteral) {
+                return ((BooleanLiteral) expression).getToken();
+            } else if (expression instanceof PrefixExpression) {
+                return ((PrefixExpression) expression).getToken();
+            } else if (expression instanceof IfExpression) {
+                return ((IfExpression) expression).getToken();
+            } else if (expression instanceof FunctionLiteral) {
+                return ((FunctionLiteral) expression).getToken();
+            } else {
+                return null;
+            }
+        }
+    }
+
+    private static boolean sameToken(Token a, Token b) {
+        return a == b || (a.getType() == b.getType() && a.getLiteral().equals(b.getLiteral()));
+    }
+
+    private int intern(String value) {
+        Integer index = poolIndex.get(value);
+        if (index == null) {
+            index = pool.size();
+            poolIndex.put(value, index);
+            pool.add(value);
+        }
+        return index;
+    }
+
+    /**
+     * Growable byte array with the varint and string encodings of the format
+     */
+    private static final class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] values) {
+            writeBytes(values, values.length);
+        }
+
+        void writeBytes(byte[] values, int length) {
+            ensure(length);
+            System.arraycopy(values, 0, bytes, size, length);
+            size += length;
+        }
+
+        // Unsigned LEB128: seven bits per byte, high bit set on all but the last
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            writeBytes(utf8);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
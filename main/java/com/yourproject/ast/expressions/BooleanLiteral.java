@@ -1,9 +1,10 @@
 package main.java.com.yourproject.ast.expressions;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
 
-public class BooleanLiteral implements Expression {
+public final class BooleanLiteral implements Expression {
     private final Token token;
     private final boolean value;
 
@@ -14,6 +15,10 @@ public class BooleanLiteral implements Expression {
 
     public boolean getValue() { return value; }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitBooleanLiteral(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() { return String.valueOf(value); }
 }
@@ -1,24 +1,77 @@
 package main.java.com.yourproject.ast.expressions;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
+import java.util.Collections;
 import java.util.List;
 
-public class CallExpression implements Expression {
+public final class CallExpression implements Expression {
     private final Token token; // The '(' token
     private final Expression function; // Identifier or FunctionLiteral
     private final List<Expression> arguments;
+    private byte tailPosition = UNKNOWN; // Set by the Resolver
+    private int site = UNNUMBERED; // Set by the Resolver
+
+    private static final byte UNKNOWN = 0;
+    private static final byte TAIL = 1;
+    private static final byte NOT_TAIL = 2;
+
+    // Site numbers that are not an index into the enclosing function's call sites
+    public static final int UNNUMBERED = -1;
+    public static final int NO_SITE = -2;
 
     public CallExpression(Token token, Expression function,
                           List<Expression> arguments) {
         this.token = token;
         this.function = function;
-        this.arguments = arguments;
+        // Read-only so a cached AST can be shared
+        this.arguments = arguments == null ? null : Collections.unmodifiableList(arguments);
     }
 
     public Expression getFunction() { return function; }
     public List<Expression> getArguments() { return arguments; }
 
+    /**
+     * @return true if the Resolver found this call in tail position of a function body
+     */
+    public boolean isTailCall() { return tailPosition == TAIL; }
+
+    /**
+     * Records whether this call is in tail position. A call shared by two programs that
+     * disagree is treated as a normal call from then on.
+     */
+    public void markTailPosition(boolean tail) {
+        byte position = tail ? TAIL : NOT_TAIL;
+        if (tailPosition == UNKNOWN) {
+            tailPosition = position;
+        } else if (tailPosition != position) {
+            tailPosition = NOT_TAIL;
+        }
+    }
+
+    /**
+     * @return The index of this call among the call sites of the enclosing function literal,
+     *         UNNUMBERED or NO_SITE
+     */
+    public int getSite() { return site; }
+
+    /**
+     * Records the index the Resolver gave this call in its enclosing function literal. A call
+     * shared by two literals that disagree gets NO_SITE for good, so it is never cached.
+     */
+    public void numberSite(int site) {
+        if (this.site == UNNUMBERED) {
+            this.site = site;
+        } else if (this.site != site) {
+            this.site = NO_SITE;
+        }
+    }
+
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitCallExpression(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() {
         return function + "(" + String.join(", ",
@@ -5,9 +5,11 @@ import main.java.com.yourproject.ast.Node;
 
 /**
  * Marker interface for all expression nodes in the AST.
- * Expressions produce values when evaluated.
+ * Expressions produce values when evaluated. The kinds are fixed: see NodeVisitor.
  */
-public interface Expression extends Node {
+public sealed interface Expression extends Node
+        permits Identifier, IntegerLiteral, BooleanLiteral, PrefixExpression, InfixExpression,
+                IfExpression, FunctionLiteral, CallExpression {
     // All expression-specific methods will be defined in concrete implementations
     // This serves as a type marker for the parser and evaluator
 }
@@ -1,26 +1,91 @@
 package main.java.com.yourproject.ast.expressions;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.ast.expressions.Identifier;
 import main.java.com.yourproject.ast.statements.BlockStatement;
+import main.java.com.yourproject.jit.JitFunction;
+import main.java.com.yourproject.memo.Purity;
 import main.java.com.yourproject.tokens.Token;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-public class FunctionLiteral implements Expression {
+public final class FunctionLiteral implements Expression {
     private final Token token; // The 'fn' token
     private final List<Identifier> parameters;
     private final BlockStatement body;
+    private String[] slotNames; // Set by the Resolver: parameters, then the body's lets
+    private int callSites = -1; // Set by the Resolver: the numbered calls in the body
+    // Set by the Jit: the body compiled for each set of parameter types seen so far. Evaluators
+    // on other threads may share the AST, so the array is replaced, never changed.
+    private volatile JitFunction[] jitFunctions = new JitFunction[0];
+    private volatile Purity purity; // Set by the Memoizer on the first call it sees
 
     public FunctionLiteral(Token token, List<Identifier> parameters,
                            BlockStatement body) {
         this.token = token;
-        this.parameters = parameters;
+        // Read-only so a cached AST can be shared
+        this.parameters = parameters == null ? null : Collections.unmodifiableList(parameters);
         this.body = body;
     }
 
     public List<Identifier> getParameters() { return parameters; }
     public BlockStatement getBody() { return body; }
 
+    /**
+     * @return The names of the call environment's slots, or null if not resolved
+     */
+    public String[] getSlotNames() { return slotNames; }
+
+    /**
+     * @param slotNames The slot layout computed by the Resolver
+     */
+    public void setSlotNames(String[] slotNames) { this.slotNames = slotNames; }
+
+    /**
+     * @return How many calls through a name the body has (see CallExpression.getSite()),
+     *         0 if not resolved
+     */
+    public int getCallSites() { return Math.max(callSites, 0); }
+
+    /**
+     * @param callSites The count from the first resolution; later ones keep it
+     */
+    public void setCallSites(int callSites) {
+        if (this.callSites < 0) {
+            this.callSites = callSites;
+        }
+    }
+
+    /**
+     * @return The compiled forms of the body, for the Jit to reuse in the next FunctionObj
+     */
+    public JitFunction[] getJitFunctions() { return jitFunctions; }
+
+    /**
+     * @param jitFunction The body compiled for parameter types not compiled before
+     */
+    public synchronized void addJitFunction(JitFunction jitFunction) {
+        JitFunction[] known = Arrays.copyOf(jitFunctions, jitFunctions.length + 1);
+        known[known.length - 1] = jitFunction;
+        jitFunctions = known;
+    }
+
+    /**
+     * @return What the Memoizer found about the body, or null if it has not looked yet
+     */
+    public Purity getPurity() { return purity; }
+
+    /**
+     * @param purity The analysis of the body; every analysis gives the same answer
+     */
+    public void setPurity(Purity purity) { this.purity = purity; }
+
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitFunctionLiteral(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() {
         return "fn(" + String.join(", ",
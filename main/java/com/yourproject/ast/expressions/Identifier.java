@@ -1,14 +1,22 @@
 package main.java.com.yourproject.ast.expressions;
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
 
 /**
  * Represents an identifier (variable name) in the Monkey language.
  * Example: In `let x = 5;`, "x" is an Identifier.
  */
-public class Identifier implements Expression {
+public final class Identifier implements Expression {
+    // Addresses that are not a (depth, slot) pair: look the name up at run time
+    public static final int UNRESOLVED = -1;
+    public static final int DYNAMIC = -2;
+    // Slot value of an address whose name lives in the global environment at that depth
+    public static final int GLOBAL_SLOT = 0xFFFF;
+
     private final Token token;  // The IDENT token
     private final String value; // The actual identifier name
+    private int address = UNRESOLVED; // Set by the Resolver: depth << 16 | slot
 
     /**
      * Constructs a new Identifier node
@@ -27,6 +35,11 @@ public class Identifier implements Expression {
         return value;
     }
 
+    @Override
+    public <R, C> R accept(NodeVisitor<R, C> visitor, C context) {
+        return visitor.visitIdentifier(this, context);
+    }
+
     /**
      * @return The token's literal representation
      */
@@ -43,6 +56,47 @@ public class Identifier implements Expression {
         return value;
     }
 
+    /**
+     * @return The lexical address set by the Resolver, UNRESOLVED or DYNAMIC
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Records the lexical address of this identifier. A node can be shared by two programs
+     * (the optimizer and the incremental parser reuse subtrees); if they disagree on its
+     * address it becomes DYNAMIC for good, which is always correct.
+     * @param address The packed address, see address(int, int)
+     */
+    public void resolve(int address) {
+        if (this.address == UNRESOLVED) {
+            this.address = address;
+        } else if (this.address != address) {
+            this.address = DYNAMIC;
+        }
+    }
+
+    /**
+     * @param depth How many function scopes out the name is bound
+     * @param slot The slot in that scope, or GLOBAL_SLOT
+     * @return The packed address, or DYNAMIC if either part is out of range
+     */
+    public static int address(int depth, int slot) {
+        if (depth > Short.MAX_VALUE || slot > GLOBAL_SLOT) {
+            return DYNAMIC;
+        }
+        return depth << 16 | slot;
+    }
+
+    public static int depthOf(int address) {
+        return address >>> 16;
+    }
+
+    public static int slotOf(int address) {
+        return address & 0xFFFF;
+    }
+
     // Optional: Useful for testing and debugging
     /**
      * @return The token associated with this identifier
@@ -2,10 +2,11 @@ package main.java.com.yourproject.ast.expressions;
 
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.ast.statements.BlockStatement;
 import main.java.com.yourproject.tokens.Token;
 
-public class IfExpression implements Expression {
+public final class IfExpression implements Expression {
     private final Token token;
     private final Expression condition;
     private final BlockStatement consequence;
@@ -23,6 +24,10 @@ public class IfExpression implements Expression {
     public BlockStatement getConsequence() { return consequence; }
     public BlockStatement getAlternative() { return alternative; }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitIfExpression(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() {
         String out = "if " + condition + " " + consequence;
@@ -1,14 +1,15 @@
 package main.java.com.yourproject.ast.expressions;
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
 
-public class InfixExpression implements Expression {
+public final class InfixExpression implements Expression {
     private final Token token;
     private final Expression left;
-    private final String operator;
+    private final Operator operator;
     private final Expression right;
 
-    public InfixExpression(Token token, Expression left, String operator, Expression right) {
+    public InfixExpression(Token token, Expression left, Operator operator, Expression right) {
         this.token = token;
         this.left = left;
         this.operator = operator;
@@ -16,9 +17,13 @@ public class InfixExpression implements Expression {
     }
 
     public Expression getLeft() { return left; }
-    public String getOperator() { return operator; }
+    public Operator getOperator() { return operator; }
     public Expression getRight() { return right; }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitInfixExpression(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() { return "(" + left + " " + operator + " " + right + ")"; }
 }
\ No newline at end of file
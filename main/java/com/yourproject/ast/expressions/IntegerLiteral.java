@@ -1,14 +1,17 @@
 package main.java.com.yourproject.ast.expressions;
 
+import main.java.com.yourproject.ast.NodeVisitor;
+import main.java.com.yourproject.objects.IntegerObj;
 import main.java.com.yourproject.tokens.Token;
 
 /**
  * Represents an integer literal expression in the Monkey language.
  * Example: In `let x = 5;`, "5" is an IntegerLiteral.
  */
-public class IntegerLiteral implements Expression {
+public final class IntegerLiteral implements Expression {
     private final Token token;  // The INT token
     private final int value;    // The parsed integer value
+    private final IntegerObj object;  // The value at run time, created once
 
     /**
      * Constructs a new IntegerLiteral node
@@ -18,6 +21,7 @@ public class IntegerLiteral implements Expression {
     public IntegerLiteral(Token token, int value) {
         this.token = token;
         this.value = value;
+        this.object = IntegerObj.valueOf(value);
     }
 
     /**
@@ -27,6 +31,18 @@ public class IntegerLiteral implements Expression {
         return value;
     }
 
+    /**
+     * @return The runtime value of this literal, shared by every evaluation of it
+     */
+    public IntegerObj getObject() {
+        return object;
+    }
+
+    @Override
+    public <R, C> R accept(NodeVisitor<R, C> visitor, C context) {
+        return visitor.visitIntegerLiteral(this, context);
+    }
+
     /**
      * @return The token's literal representation (original string)
      */
@@ -0,0 +1,70 @@
+package main.java.com.yourproject.ast.expressions;
+
+/**
+ * The operators of prefix and infix expressions, resolved once by the parser so evaluation
+ * can switch on an enum instead of comparing strings. "-" is NEGATE as a prefix and SUBTRACT
+ * as an infix operator.
+ */
+public enum Operator {
+    // Prefix
+    NOT("!"),
+    NEGATE("-"),
+
+    // Infix
+    ADD("+"),
+    SUBTRACT("-"),
+    MULTIPLY("*"),
+    DIVIDE("/"),
+    LESS_THAN("<"),
+    GREATER_THAN(">"),
+    EQUAL("=="),
+    NOT_EQUAL("!=");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return The operator as written in source, e.g. "+"
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @param symbol The operator as written in source
+     * @return The prefix operator, or null if there is none with that symbol
+     */
+    public static Operator prefix(String symbol) {
+        switch (symbol) {
+            case "!": return NOT;
+            case "-": return NEGATE;
+            default: return null;
+        }
+    }
+
+    /**
+     * @param symbol The operator as written in source
+     * @return The infix operator, or null if there is none with that symbol
+     */
+    public static Operator infix(String symbol) {
+        switch (symbol) {
+            case "+": return ADD;
+            case "-": return SUBTRACT;
+            case "*": return MULTIPLY;
+            case "/": return DIVIDE;
+            case "<": return LESS_THAN;
+            case ">": return GREATER_THAN;
+            case "==": return EQUAL;
+            case "!=": return NOT_EQUAL;
+            default: return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -1,21 +1,26 @@
 package main.java.com.yourproject.ast.expressions;
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
 
-public class PrefixExpression implements Expression {
+public final class PrefixExpression implements Expression {
     private final Token token;
-    private final String operator;
+    private final Operator operator;
     private final Expression right;
 
-    public PrefixExpression(Token token, String operator, Expression right) {
+    public PrefixExpression(Token token, Operator operator, Expression right) {
         this.token = token;
         this.operator = operator;
         this.right = right;
     }
 
-    public String getOperator() { return operator; }
+    public Operator getOperator() { return operator; }
     public Expression getRight() { return right; }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitPrefixExpression(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() { return "(" + operator + right + ")"; }
 }
\ No newline at end of file
@@ -0,0 +1,403 @@
+package main.java.com.yourproject.ast.flat;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, read-only form of a Program for large scripts.
+ *
+ * Nodes are numbered in pre-order (the program is node 0) and stored in parallel arrays
+ * instead of one object per node: the kind, the token type, a pool index for the token
+ * literal, one kind-specific value (see NodeKind) and a range of the shared children array.
+ * Names, operators and literals are kept once in a string pool. A node costs about 22 bytes
+ * plus its entries in the children array, and a walk over the tree reads a few dense arrays
+ * instead of chasing pointers.
+ *
+ * Read it through a Cursor, or convert back with toProgram().
+ */
+public final class FlatAst {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final byte[] kinds;
+    private final byte[] tokenTypes;
+    private final int[] tokenLiterals; // pool index, -1 for types with a fixed literal
+    private final int[] values;
+    private final int[] childStarts;
+    private final int[] childCounts;
+    private final int[] children;      // node indices, -1 for null
+    private final String[] pool;
+
+    private FlatAst(Builder builder) {
+        int size = builder.size;
+        this.kinds = Arrays.copyOf(builder.kinds, size);
+        this.tokenTypes = Arrays.copyOf(builder.tokenTypes, size);
+        this.tokenLiterals = Arrays.copyOf(builder.tokenLiterals, size);
+        this.values = Arrays.copyOf(builder.values, size);
+        this.childStarts = Arrays.copyOf(builder.childStarts, size);
+        this.childCounts = Arrays.copyOf(builder.childCounts, size);
+        this.children = Arrays.copyOf(builder.children, builder.childrenSize);
+        this.pool = builder.pool.toArray(new String[0]);
+    }
+
+    /**
+     * Flattens a program
+     * @param program The program to convert, left unchanged
+     * @return The flat form
+     */
+    public static FlatAst from(Program program) {
+        Builder builder = new Builder();
+        builder.add(program);
+        return new FlatAst(builder);
+    }
+
+    /**
+     * @return The number of nodes, including the program node
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * @return A cursor on the program node
+     */
+    public Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Rebuilds the tree form. IDENT and INT tokens are shared per distinct literal.
+     * @return A new Program equal in structure to the one this was built from
+     */
+    public Program toProgram() {
+        Token[] shared = new Token[pool.length];
+        Program program = new Program();
+        for (int i = 0; i < childCounts[0]; i++) {
+            program.addStatement((Statement) toNode(children[childStarts[0] + i], shared));
+        }
+        return program;
+    }
+
+    private Node toNode(int node, Token[] shared) {
+        if (node < 0) {
+            return null;
+        }
+        Token token = token(node, shared);
+        int first = childStarts[node];
+        switch (NodeKind.of(kinds[node])) {
+            case LET_STATEMENT:
+                return new LetStatement(token, (Identifier) toNode(children[first], shared),
+                        (Expression) toNode(children[first + 1], shared));
+            case RETURN_STATEMENT:
+                return new ReturnStatement(token, (Expression) toNode(children[first], shared));
+            case EXPRESSION_STATEMENT:
+                return new ExpressionStatement(token, (Expression) toNode(children[first], shared));
+            case BLOCK_STATEMENT: {
+                BlockStatement block = new BlockStatement(token);
+                for (int i = 0; i < childCounts[node]; i++) {
+                    block.addStatement((Statement) toNode(children[first + i], shared));
+                }
+                return block;
+            }
+            case IDENTIFIER:
+                return new Identifier(token, pool[values[node]]);
+            case INTEGER_LITERAL:
+                return new IntegerLiteral(token, values[node]);
+            case BOOLEAN_LITERAL:
+                return new BooleanLiteral(token, values[node] != 0);
+            case PREFIX_EXPRESSION:
+                return new PrefixExpression(token, Operator.prefix(pool[values[node]]), (Expression) toNode(children[first], shared));
+            case INFIX_EXPRESSION:
+                return new InfixExpression(token, (Expression) toNode(children[first], shared), Operator.infix(pool[values[node]]),
+                        (Expression) toNode(children[first + 1], shared));
+            case IF_EXPRESSION:
+                return new IfExpression(token, (Expression) toNode(children[first], shared),
+                        (BlockStatement) toNode(children[first + 1], shared),
+                        (BlockStatement) toNode(children[first + 2], shared));
+            case FUNCTION_LITERAL: {
+                int count = values[node];
+                List<Identifier> parameters = count < 0 ? null : new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    parameters.add((Identifier) toNode(children[first + i], shared));
+                }
+                BlockStatement body = (BlockStatement) toNode(children[first + Math.max(count, 0)], shared);
+                return new FunctionLiteral(token, parameters, body);
+            }
+            case CALL_EXPRESSION: {
+                Expression function = (Expression) toNode(children[first], shared);
+                int count = values[node];
+                List<Expression> arguments = count < 0 ? null : new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    arguments.add((Expression) toNode(children[first + 1 + i], shared));
+                }
+                return new CallExpression(token, function, arguments);
+            }
+            default:
+                throw new IllegalStateException("unexpected " + NodeKind.of(kinds[node]) + " at node " + node);
+        }
+    }
+
+    private Token token(int node, Token[] shared) {
+        TokenType type = TOKEN_TYPES[tokenTypes[node]];
+        int literal = tokenLiterals[node];
+        if (literal < 0) {
+            return Token.of(type);
+        }
+        if (type != TokenType.IDENT && type != TokenType.INT) {
+            return new Token(type, pool[literal]);
+        }
+        Token token = shared[literal];
+        if (token == null || token.getType() != type) {
+            token = new Token(type, pool[literal]);
+            shared[literal] = token;
+        }
+        return token;
+    }
+
+    /**
+     * A movable view of one node. Cursors are cheap; take one per thread.
+     */
+    public final class Cursor {
+        private int node;
+
+        private Cursor(int node) {
+            this.node = node;
+        }
+
+        /**
+         * @param node A node index, as returned by child()
+         * @return This cursor, now on that node
+         */
+        public Cursor moveTo(int node) {
+            if (node < 0 || node >= kinds.length) {
+                throw new IndexOutOfBoundsException("node " + node + " out of bounds for size " + kinds.length);
+            }
+            this.node = node;
+            return this;
+        }
+
+        /**
+         * Moves to a child of the current node
+         * @return true if moved, false if the child is null
+         */
+        public boolean toChild(int index) {
+            int child = child(index);
+            if (child < 0) {
+                return false;
+            }
+            node = child;
+            return true;
+        }
+
+        public int node() {
+            return node;
+        }
+
+        public NodeKind kind() {
+            return NodeKind.of(kinds[node]);
+        }
+
+        public TokenType tokenType() {
+            return TOKEN_TYPES[tokenTypes[node]];
+        }
+
+        public String tokenLiteral() {
+            int literal = tokenLiterals[node];
+            return literal < 0 ? tokenType().getLiteral() : pool[literal];
+        }
+
+        public int childCount() {
+            return childCounts[node];
+        }
+
+        /**
+         * @return The node index of a child, or -1 if the child is null
+         */
+        public int child(int index) {
+            if (index < 0 || index >= childCounts[node]) {
+                throw new IndexOutOfBoundsException("child " + index + " of " + kind() + " with " + childCounts[node]);
+            }
+            return children[childStarts[node] + index];
+        }
+
+        /**
+         * @return The kind-specific value of the node, see NodeKind
+         */
+        public int value() {
+            return values[node];
+        }
+
+        /**
+         * @return The name of an IDENTIFIER or the operator of a PREFIX/INFIX_EXPRESSION
+         */
+        public String string() {
+            NodeKind kind = kind();
+            if (kind != NodeKind.IDENTIFIER && kind != NodeKind.PREFIX_EXPRESSION && kind != NodeKind.INFIX_EXPRESSION) {
+                throw new IllegalStateException(kind + " has no string value");
+            }
+            return pool[values[node]];
+        }
+    }
+
+    /**
+     * Appends nodes in pre-order into growable arrays
+     */
+    private static final class Builder {
+        private byte[] kinds = new byte[256];
+        private byte[] tokenTypes = new byte[256];
+        private int[] tokenLiterals = new int[256];
+        private int[] values = new int[256];
+        private int[] childStarts = new int[256];
+        private int[] childCounts = new int[256];
+        private int size;
+
+        private int[] children = new int[256];
+        private int childrenSize;
+
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private final List<String> pool = new ArrayList<>();
+
+        private int add(Node node) {
+            if (node == null) {
+                return -1;
+            }
+            if (node instanceof Program) {
+                int index = newNode(NodeKind.PROGRAM, Token.of(TokenType.EOF), 0);
+                return withChildren(index, addAll(((Program) node).getStatements()));
+            }
+            if (node instanceof LetStatement) {
+                LetStatement let = (LetStatement) node;
+                int index = newNode(NodeKind.LET_STATEMENT, let.getToken(), 0);
+                return withChildren(index, add(let.getName()), add(let.getValue()));
+            }
+            if (node instanceof ReturnStatement) {
+                ReturnStatement ret = (ReturnStatement) node;
+                int index = newNode(NodeKind.RETURN_STATEMENT, ret.getToken(), 0);
+                return withChildren(index, add(ret.getReturnValue()));
+            }
+            if (node instanceof ExpressionStatement) {
+                ExpressionStatement statement = (ExpressionStatement) node;
+                int index = newNode(NodeKind.EXPRESSION_STATEMENT, statement.getToken(), 0);
+                return withChildren(index, add(statement.getExpression()));
+            }
+            if (node instanceof BlockStatement) {
+                BlockStatement block = (BlockStatement) node;
+                int index = newNode(NodeKind.BLOCK_STATEMENT, block.getToken(), 0);
+                return withChildren(index, addAll(block.getStatements()));
+            }
+            if (node instanceof Identifier) {
+                Identifier identifier = (Identifier) node;
+                return withChildren(newNode(NodeKind.IDENTIFIER, identifier.getToken(), intern(identifier.getValue())));
+            }
+            if (node instanceof IntegerLiteral) {
+                IntegerLiteral literal = (IntegerLiteral) node;
+                return withChildren(newNode(NodeKind.INTEGER_LITERAL, literal.getToken(), literal.getValue()));
+            }
+            if (node instanceof BooleanLiteral) {
+                BooleanLiteral literal = (BooleanLiteral) node;
+                return withChildren(newNode(NodeKind.BOOLEAN_LITERAL, literal.getToken(), literal.getValue() ? 1 : 0));
+            }
+            if (node instanceof PrefixExpression) {
+                PrefixExpression prefix = (PrefixExpression) node;
+                int index = newNode(NodeKind.PREFIX_EXPRESSION, prefix.getToken(), intern(prefix.getOperator().getSymbol()));
+                return withChildren(index, add(prefix.getRight()));
+            }
+            if (node instanceof InfixExpression) {
+                InfixExpression infix = (InfixExpression) node;
+                int index = newNode(NodeKind.INFIX_EXPRESSION, infix.getToken(), intern(infix.getOperator().getSymbol()));
+                return withChildren(index, add(infix.getLeft()), add(infix.getRight()));
+            }
+            if (node instanceof IfExpression) {
+                IfExpression ifExpression = (IfExpression) node;
+                int index = newNode(NodeKind.IF_EXPRESSION, ifExpression.getToken(), 0);
+                return withChildren(index, add(ifExpression.getCondition()), add(ifExpression.getConsequence()),
+                        add(ifExpression.getAlternative()));
+            }
+            if (node instanceof FunctionLiteral) {
+                FunctionLiteral function = (FunctionLiteral) node;
+                List<Identifier> parameters = function.getParameters();
+                int count = parameters == null ? 0 : parameters.size();
+                int index = newNode(NodeKind.FUNCTION_LITERAL, function.getToken(), parameters == null ? -1 : count);
+                int[] nodes = new int[count + 1];
+                for (int i = 0; i < count; i++) {
+                    nodes[i] = add(parameters.get(i));
+                }
+                nodes[count] = add(function.getBody());
+                return withChildren(index, nodes);
+            }
+            if (node instanceof CallExpression) {
+                CallExpression call = (CallExpression) node;
+                List<Expression> arguments = call.getArguments();
+                int count = arguments == null ? 0 : arguments.size();
+                int index = newNode(NodeKind.CALL_EXPRESSION, call.getToken(), arguments == null ? -1 : count);
+                int[] nodes = new int[count + 1];
+                nodes[0] = add(call.getFunction());
+                for (int i = 0; i < count; i++) {
+                    nodes[i + 1] = add(arguments.get(i));
+                }
+                return withChildren(index, nodes);
+            }
+            throw new IllegalArgumentException("cannot flatten node " + node.getClass().getName());
+        }
+
+        private int[] addAll(List<? extends Node> nodes) {
+            int[] indices = new int[nodes.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = add(nodes.get(i));
+            }
+            return indices;
+        }
+
+        private int newNode(NodeKind kind, Token token, int value) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                tokenTypes = Arrays.copyOf(tokenTypes, capacity);
+                tokenLiterals = Arrays.copyOf(tokenLiterals, capacity);
+                values = Arrays.copyOf(values, capacity);
+                childStarts = Arrays.copyOf(childStarts, capacity);
+                childCounts = Arrays.copyOf(childCounts, capacity);
+            }
+            kinds[size] = (byte) kind.ordinal();
+            tokenTypes[size] = (byte) token.getType().ordinal();
+            tokenLiterals[size] = token.getType().hasFixedLiteral() ? -1 : intern(token.getLiteral());
+            values[size] = value;
+            return size++;
+        }
+
+        /**
+         * Records the children of a node once they have all been added.
+         * Children are appended as one run, so every node's range is contiguous.
+         */
+        private int withChildren(int index, int... nodes) {
+            if (childrenSize + nodes.length > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + nodes.length));
+            }
+            System.arraycopy(nodes, 0, children, childrenSize, nodes.length);
+            childStarts[index] = childrenSize;
+            childCounts[index] = nodes.length;
+            childrenSize += nodes.length;
+            return index;
+        }
+
+        private int intern(String value) {
+            Integer index = poolIndex.get(value);
+            if (index == null) {
+                index = pool.size();
+                poolIndex.put(value, index);
+                pool.add(value);
+            }
+            return index;
+        }
+    }
+}
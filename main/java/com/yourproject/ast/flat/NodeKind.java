@@ -0,0 +1,28 @@
+package main.java.com.yourproject.ast.flat;
+
+/**
+ * Node kinds of a FlatAst, one per AST node class.
+ * The comment on each kind gives its value() and its children, in order;
+ * a child of -1 means the tree node had null there.
+ */
+public enum NodeKind {
+    PROGRAM,              // children: statements
+    LET_STATEMENT,        // children: name, value
+    RETURN_STATEMENT,     // children: return value
+    EXPRESSION_STATEMENT, // children: expression
+    BLOCK_STATEMENT,      // children: statements
+    IDENTIFIER,           // value: pool index of the name
+    INTEGER_LITERAL,      // value: the integer
+    BOOLEAN_LITERAL,      // value: 1 or 0
+    PREFIX_EXPRESSION,    // value: pool index of the operator; children: right
+    INFIX_EXPRESSION,     // value: pool index of the operator; children: left, right
+    IF_EXPRESSION,        // children: condition, consequence, alternative
+    FUNCTION_LITERAL,     // value: parameter count, -1 for a null list; children: parameters, body
+    CALL_EXPRESSION;      // value: argument count, -1 for a null list; children: function, arguments
+
+    private static final NodeKind[] VALUES = values();
+
+    static NodeKind of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -1,17 +1,20 @@
 package main.java.com.yourproject.ast.statements;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.tokens.Token;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a block of statements enclosed in curly braces {}.
  * Used in control structures like if/else, while loops, and functions.
  */
-public class BlockStatement implements Statement {
+public final class BlockStatement implements Statement {
     private final Token token; // The { token
     private final List<Statement> statements;
+    private final List<Statement> view;
 
     /**
      * Constructs a new block statement
@@ -20,6 +23,7 @@ public class BlockStatement implements Statement {
     public BlockStatement(Token token) {
         this.token = token;
         this.statements = new ArrayList<>();
+        this.view = Collections.unmodifiableList(statements);
     }
 
     /**
@@ -31,10 +35,15 @@ public class BlockStatement implements Statement {
     }
 
     /**
-     * @return The list of statements in this block
+     * @return A read-only view of the statements in this block
      */
     public List<Statement> getStatements() {
-        return statements;
+        return view;
+    }
+
+    @Override
+    public <R, C> R accept(NodeVisitor<R, C> visitor, C context) {
+        return visitor.visitBlockStatement(this, context);
     }
 
     /**
@@ -1,11 +1,12 @@
 package main.java.com.yourproject.ast.statements;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.ast.statements.Statement;
 import main.java.com.yourproject.ast.expressions.Expression;
 import main.java.com.yourproject.tokens.Token;
 
-public class ExpressionStatement implements Statement {
+public final class ExpressionStatement implements Statement {
     private final Token token;
     private final Expression expression;
 
@@ -18,6 +19,10 @@ public class ExpressionStatement implements Statement {
         return expression;
     }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitExpressionStatement(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() { return expression.toString(); }
 }
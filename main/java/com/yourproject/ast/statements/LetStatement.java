@@ -1,6 +1,7 @@
 package main.java.com.yourproject.ast.statements;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.ast.expressions.Identifier;
 import main.java.com.yourproject.ast.expressions.Expression;
 import main.java.com.yourproject.tokens.Token;
@@ -9,7 +10,7 @@ import main.java.com.yourproject.tokens.Token;
  * Represents a variable declaration in the Monkey language.
  * Example: 'let x = 5;' or 'let name = "Alice";'
  */
-public class LetStatement implements Statement {
+public final class LetStatement implements Statement {
     private final Token token; // The 'let' token
     private final Identifier name; // The variable name
     private final Expression value; // The assigned expression
@@ -40,6 +41,11 @@ public class LetStatement implements Statement {
         return value;
     }
 
+    @Override
+    public <R, C> R accept(NodeVisitor<R, C> visitor, C context) {
+        return visitor.visitLetStatement(this, context);
+    }
+
     /**
      * @return The literal 'let' token string
      */
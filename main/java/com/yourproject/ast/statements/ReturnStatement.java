@@ -1,10 +1,11 @@
 package main.java.com.yourproject.ast.statements;
 
 
+import main.java.com.yourproject.ast.NodeVisitor;
 import main.java.com.yourproject.ast.expressions.Expression;
 import main.java.com.yourproject.tokens.Token;
 
-public class ReturnStatement implements Statement {
+public final class ReturnStatement implements Statement {
     private final Token token;
     private final Expression returnValue;
 
@@ -15,6 +16,10 @@ public class ReturnStatement implements Statement {
 
     public Expression getReturnValue() { return returnValue; }
 
+    public Token getToken() { return token; }
+
+    @Override public <R, C> R accept(NodeVisitor<R, C> visitor, C context) { return visitor.visitReturnStatement(this, context); }
+
     @Override public String tokenLiteral() { return token.getLiteral(); }
     @Override public String toString() { return "return " + returnValue + ";"; }
 }
@@ -5,9 +5,10 @@ import main.java.com.yourproject.ast.Node;
 
 /**
  * Marker interface for all statement nodes in the AST.
- * Statements perform actions but don't produce values.
+ * Statements perform actions but don't produce values. The kinds are fixed: see NodeVisitor.
  */
-public interface Statement extends Node {
+public sealed interface Statement extends Node
+        permits LetStatement, ReturnStatement, ExpressionStatement, BlockStatement {
     // All statement-specific methods will be defined in concrete implementations
     // This serves as a type marker for the parser and evaluator
 }
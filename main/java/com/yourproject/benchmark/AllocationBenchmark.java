@@ -0,0 +1,84 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.CallExpression;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how many bytes the Evaluator (without the Jit) allocates per evaluated node and
+ * per function call on the fibonacci and factorial scripts. A counting Evaluator gives the
+ * number of nodes and calls one run evaluates; the allocation of warmed-up runs comes from
+ * the JVM's per-thread counter.
+ * Run with: java main.java.com.yourproject.benchmark.AllocationBenchmark
+ */
+public class AllocationBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(20)";
+    // The factorial of compilador.monkey, in a loop so one run does a measurable amount of work
+    private static final String FACTORIAL =
+            "let factorial = fn(n) { if (n == 0) { 1 } else { n * factorial(n - 1) } };"
+            + " let loop = fn(i, acc) { if (i == 0) { acc } else { loop(i - 1, acc + factorial(20) / factorial(18)) } };"
+            + " loop(2000, 0)";
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 20;
+
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) {
+        report("fibonacci", FIBONACCI);
+        report("factorial", FACTORIAL);
+    }
+
+    private static void report(String label, String source) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+
+        CountingEvaluator counter = new CountingEvaluator();
+        sink = counter.eval(program, new Environment());
+        long nodes = counter.nodes;
+        long calls = counter.calls;
+
+        Evaluator evaluator = new Evaluator(null);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink = evaluator.eval(program, new Environment());
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            sink = evaluator.eval(program, new Environment());
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+        double bytes = (double) (threads.getThreadAllocatedBytes(thread) - before) / MEASURED_RUNS;
+        System.out.printf("%-10s %,10d nodes  %,14.0f bytes/run  %6.2f bytes/node  %6.1f bytes/call  %8.2f ms  = %s%n",
+                label, nodes, bytes, bytes / nodes, bytes / calls, millis, sink.inspect());
+    }
+
+    /**
+     * Every node the Evaluator evaluates goes through eval
+     */
+    private static final class CountingEvaluator extends Evaluator {
+        long nodes;
+        long calls;
+
+        CountingEvaluator() {
+            super(null);
+        }
+
+        @Override
+        public EvaluatorObject eval(Node node, Environment env) {
+            nodes++;
+            if (node instanceof CallExpression) {
+                calls++;
+            }
+            return super.eval(node, env);
+        }
+    }
+}
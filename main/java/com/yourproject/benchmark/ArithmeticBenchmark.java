@@ -0,0 +1,101 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.Operator;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.evaluator.EvaluatorUtils;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.Random;
+
+/**
+ * Compares integer operations dispatched on the operator's source string, the way the
+ * evaluator did before the parser resolved operators, with the Operator switch in
+ * EvaluatorUtils. Both run over the same random mix of the eight infix operators. The
+ * Evaluator (without the Jit) is then timed on an arithmetic-heavy loop.
+ * Run with: java main.java.com.yourproject.benchmark.ArithmeticBenchmark
+ */
+public class ArithmeticBenchmark {
+    private static final String LOOP =
+            "let loop = fn(i, acc) { if (i == 0) { acc } else { loop(i - 1, acc + i * 3 - i / 2 + -i) } };"
+            + " loop(100000, 0)";
+    private static final int OPERATIONS = 4096;
+    private static final int PASSES = 2000;
+    private static final int ROUNDS = 10;
+
+    static long sink;
+
+    public static void main(String[] args) {
+        Operator[] infix = {
+                Operator.ADD, Operator.SUBTRACT, Operator.MULTIPLY, Operator.DIVIDE,
+                Operator.LESS_THAN, Operator.GREATER_THAN, Operator.EQUAL, Operator.NOT_EQUAL
+        };
+        Random random = new Random(42);
+        Operator[] operators = new Operator[OPERATIONS];
+        String[] symbols = new String[OPERATIONS];
+        IntegerObj[] left = new IntegerObj[OPERATIONS];
+        IntegerObj[] right = new IntegerObj[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            operators[i] = infix[random.nextInt(infix.length)];
+            // A fresh copy, as the lexer hands out substrings of the source
+            symbols[i] = new String(operators[i].getSymbol());
+            left[i] = IntegerObj.valueOf(random.nextInt(1000));
+            right[i] = IntegerObj.valueOf(1 + random.nextInt(1000));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    sink += weigh(bySymbol(symbols[i], left[i], right[i]));
+                }
+            }
+            double strings = (double) (System.nanoTime() - start) / ((long) PASSES * OPERATIONS);
+
+            start = System.nanoTime();
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    sink += weigh(EvaluatorUtils.evalIntegerInfixExpression(operators[i], left[i], right[i]));
+                }
+            }
+            double resolved = (double) (System.nanoTime() - start) / ((long) PASSES * OPERATIONS);
+            System.out.printf("string switch %6.2f ns/op   Operator switch %6.2f ns/op%n", strings, resolved);
+        }
+
+        Program program = new Parser(new Lexer(LOOP)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            String result = evaluator.eval(program, new Environment()).inspect();
+            System.out.printf("evaluator loop %8.2f ms = %s%n", (System.nanoTime() - start) / 1e6, result);
+        }
+    }
+
+    private static long weigh(EvaluatorObject value) {
+        return value instanceof IntegerObj ? ((IntegerObj) value).getIntegerValue() : value == BooleanObj.TRUE ? 1 : 0;
+    }
+
+    /**
+     * The integer rules as they were written before operators were resolved by the parser
+     */
+    private static EvaluatorObject bySymbol(String operator, IntegerObj left, IntegerObj right) {
+        long leftVal = left.getIntegerValue();
+        long rightVal = right.getIntegerValue();
+        switch (operator) {
+            case "+": return IntegerObj.valueOf(leftVal + rightVal);
+            case "-": return IntegerObj.valueOf(leftVal - rightVal);
+            case "*": return IntegerObj.valueOf(leftVal * rightVal);
+            case "/": return IntegerObj.valueOf(leftVal / rightVal);
+            case "<": return EvaluatorUtils.nativeBoolToBooleanObj(leftVal < rightVal);
+            case ">": return EvaluatorUtils.nativeBoolToBooleanObj(leftVal > rightVal);
+            case "==": return EvaluatorUtils.nativeBoolToBooleanObj(leftVal == rightVal);
+            case "!=": return EvaluatorUtils.nativeBoolToBooleanObj(leftVal != rightVal);
+            default: throw new IllegalArgumentException(operator);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.codec.AstReader;
+import main.java.com.yourproject.ast.codec.AstWriter;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.ParseCache;
+import main.java.com.yourproject.parser.Parser;
+
+import java.io.IOException;
+
+/**
+ * Compares Lexer + Parser with loading the same program from the compiled AST format.
+ * Run with: java main.java.com.yourproject.benchmark.AstCodecBenchmark [megabytes]
+ */
+public class AstCodecBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    static Program sink;
+
+    public static void main(String[] args) throws IOException {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        String source = LexerBenchmark.generateSource(megabytes * 1024 * 1024);
+        byte[] compiled = AstWriter.write(new Parser(new Lexer(source)).parseProgram(), ParseCache.digest(source));
+        System.out.printf("Input: %,d chars source, %,d bytes compiled%n", source.length(), compiled.length);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = new Parser(new Lexer(source)).parseProgram();
+            sink = new AstReader(compiled).readProgram();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = new Parser(new Lexer(source)).parseProgram();
+        }
+        double parseMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = new AstReader(compiled).readProgram();
+        }
+        double loadMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        System.out.printf("lex + parse     %9.2f ms%n", parseMillis);
+        System.out.printf("compiled load   %9.2f ms  (%.1fx)%n", loadMillis, parseMillis / loadMillis);
+    }
+}
@@ -0,0 +1,85 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.closures.ClosureCompiler;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Compares the Evaluator (without the Jit) with the ClosureCompiler on the compilador.monkey
+ * workloads: the script itself, and its functions (suma, dobleSuma, factorial) called in a
+ * loop. Parsing happens once, outside the timed runs.
+ * Run with: java main.java.com.yourproject.benchmark.ClosureBenchmark [path to compilador.monkey]
+ */
+public class ClosureBenchmark {
+    // Used while compilador.monkey does not parse
+    private static final String COMPILADOR =
+            "let suma = fn(a, b) { a + b }; let dobleSuma = fn(x, y) { suma(x, y) * 2 }; dobleSuma(3, 7);"
+            + " let factorial = fn(n) { if (n == 0) { 1 } else { n * factorial(n - 1) } }; factorial(5)";
+    // The same functions, called often enough to time
+    private static final String LOOP =
+            " let loop = fn(i, acc) { if (i == 0) { acc } else { loop(i - 1, acc + dobleSuma(i, 1) + factorial(10)) } };"
+            + " loop(20000, 0)";
+    private static final int WARMUP_ROUNDS = 100;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final int SCRIPT_RUNS = 1000;
+
+    static Object sink;
+
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "main/java/com/yourproject/compilador.monkey");
+        String script = Files.readString(path);
+        Parser parser = new Parser(new Lexer(script));
+        parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            System.out.println(path + " does not parse (" + parser.getErrors().get(0) + "), using its fn transcription");
+            script = COMPILADOR;
+        }
+
+        compare("compilador.monkey x" + SCRIPT_RUNS, script, SCRIPT_RUNS);
+        compare("compilador functions in a loop", script + ";" + LOOP, 1);
+    }
+
+    private static void compare(String name, String source, int runs) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        ClosureCompiler compiler = new ClosureCompiler();
+        System.out.println(name);
+        double evaluated = report("evaluator", () -> {
+            Object result = null;
+            for (int i = 0; i < runs; i++) {
+                result = evaluator.eval(program, new Environment()).inspect();
+            }
+            return result;
+        });
+        double compiled = report("closures", () -> {
+            Object result = null;
+            for (int i = 0; i < runs; i++) {
+                result = compiler.eval(program, new Environment()).inspect();
+            }
+            return result;
+        });
+        System.out.printf("speedup %.1fx%n", evaluated / compiled);
+    }
+
+    private static double report(String label, Supplier<Object> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = run.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = run.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-10s %9.3f ms  = %s%n", label, millis, sink);
+        return millis;
+    }
+}
@@ -0,0 +1,154 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.NodeVisitor;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the two ways of finding a node's kind: the instanceof chain Evaluator.eval used
+ * to walk, and a visitor call through Node.accept. Both run over the same mixed array of
+ * nodes, and the visitor does the same trivial work per kind as the chain. The Evaluator
+ * (without the Jit) is then timed on fib(25), where every step dispatches through accept.
+ * Run with: java main.java.com.yourproject.benchmark.DispatchBenchmark
+ */
+public class DispatchBenchmark {
+    private static final String SOURCE =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } };"
+            + " let make = fn(a) { fn(b) { if (!(a > b)) { return a * b; } -a / b } };"
+            + " let flag = true; let counter = fn(i, acc) { if (i == 0) { acc } else { counter(i - 1, acc + make(i)(2)) } };"
+            + " counter(10, 0); fib(10)";
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(25)";
+    private static final int PASSES = 20000;
+    private static final int ROUNDS = 10;
+
+    static long sink;
+
+    public static void main(String[] args) {
+        Program program = new Parser(new Lexer(SOURCE)).parseProgram();
+        List<Node> collected = new ArrayList<>();
+        collect(program, collected);
+        Node[] nodes = collected.toArray(new Node[0]);
+
+        KindVisitor visitor = new KindVisitor();
+        for (int i = 0; i < ROUNDS; i++) {
+            double chain = time(() -> {
+                long sum = 0;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    for (Node node : nodes) {
+                        sum += kindOf(node);
+                    }
+                }
+                return sum;
+            }, nodes.length);
+            double visited = time(() -> {
+                long sum = 0;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    for (Node node : nodes) {
+                        sum += node.accept(visitor, null);
+                    }
+                }
+                return sum;
+            }, nodes.length);
+            System.out.printf("%d nodes   instanceof chain %6.2f ns/node   visitor %6.2f ns/node%n",
+                    nodes.length, chain, visited);
+        }
+
+        Program fib = new Parser(new Lexer(FIBONACCI)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            String result = evaluator.eval(fib, new Environment()).inspect();
+            System.out.printf("evaluator fib(25) %8.2f ms = %s%n", (System.nanoTime() - start) / 1e6, result);
+        }
+    }
+
+    private interface Run {
+        long run();
+    }
+
+    private static double time(Run run, int nodes) {
+        long start = System.nanoTime();
+        sink += run.run();
+        return (double) (System.nanoTime() - start) / ((long) PASSES * nodes);
+    }
+
+    /**
+     * The order of checks Evaluator.eval used before it dispatched through accept
+     */
+    private static int kindOf(Node node) {
+        if (node instanceof Program) return 1;
+        if (node instanceof ExpressionStatement) return 2;
+        if (node instanceof LetStatement) return 3;
+        if (node instanceof IntegerLiteral) return 4;
+        if (node instanceof BooleanLiteral) return 5;
+        if (node instanceof Identifier) return 6;
+        if (node instanceof PrefixExpression) return 7;
+        if (node instanceof InfixExpression) return 8;
+        if (node instanceof BlockStatement) return 9;
+        if (node instanceof IfExpression) return 10;
+        if (node instanceof ReturnStatement) return 11;
+        if (node instanceof FunctionLiteral) return 12;
+        if (node instanceof CallExpression) return 13;
+        return 0;
+    }
+
+    private static final class KindVisitor implements NodeVisitor<Integer, Void> {
+        @Override public Integer visitProgram(Program node, Void context) { return 1; }
+        @Override public Integer visitExpressionStatement(ExpressionStatement node, Void context) { return 2; }
+        @Override public Integer visitLetStatement(LetStatement node, Void context) { return 3; }
+        @Override public Integer visitIntegerLiteral(IntegerLiteral node, Void context) { return 4; }
+        @Override public Integer visitBooleanLiteral(BooleanLiteral node, Void context) { return 5; }
+        @Override public Integer visitIdentifier(Identifier node, Void context) { return 6; }
+        @Override public Integer visitPrefixExpression(PrefixExpression node, Void context) { return 7; }
+        @Override public Integer visitInfixExpression(InfixExpression node, Void context) { return 8; }
+        @Override public Integer visitBlockStatement(BlockStatement node, Void context) { return 9; }
+        @Override public Integer visitIfExpression(IfExpression node, Void context) { return 10; }
+        @Override public Integer visitReturnStatement(ReturnStatement node, Void context) { return 11; }
+        @Override public Integer visitFunctionLiteral(FunctionLiteral node, Void context) { return 12; }
+        @Override public Integer visitCallExpression(CallExpression node, Void context) { return 13; }
+    }
+
+    private static void collect(Node node, List<Node> out) {
+        if (node == null) {
+            return;
+        }
+        out.add(node);
+        if (node instanceof Program) {
+            for (Statement statement : ((Program) node).getStatements()) collect(statement, out);
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) collect(statement, out);
+        } else if (node instanceof LetStatement) {
+            collect(((LetStatement) node).getName(), out);
+            collect(((LetStatement) node).getValue(), out);
+        } else if (node instanceof ReturnStatement) {
+            collect(((ReturnStatement) node).getReturnValue(), out);
+        } else if (node instanceof ExpressionStatement) {
+            collect(((ExpressionStatement) node).getExpression(), out);
+        } else if (node instanceof PrefixExpression) {
+            collect(((PrefixExpression) node).getRight(), out);
+        } else if (node instanceof InfixExpression) {
+            collect(((InfixExpression) node).getLeft(), out);
+            collect(((InfixExpression) node).getRight(), out);
+        } else if (node instanceof IfExpression) {
+            collect(((IfExpression) node).getCondition(), out);
+            collect(((IfExpression) node).getConsequence(), out);
+            collect(((IfExpression) node).getAlternative(), out);
+        } else if (node instanceof FunctionLiteral) {
+            for (Identifier parameter : ((FunctionLiteral) node).getParameters()) collect(parameter, out);
+            collect(((FunctionLiteral) node).getBody(), out);
+        } else if (node instanceof CallExpression) {
+            collect(((CallExpression) node).getFunction(), out);
+            for (Expression argument : ((CallExpression) node).getArguments()) collect(argument, out);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.ast.flat.FlatAst;
+import main.java.com.yourproject.ast.flat.NodeKind;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.Parser;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares the retained heap of a parsed Program with its FlatAst form, and the time
+ * to visit every node of each.
+ * Run with: java main.java.com.yourproject.benchmark.FlatAstBenchmark [megabytes]
+ */
+public class FlatAstBenchmark {
+    private static final int WALK_ROUNDS = 10;
+
+    static Object sink;
+    static long total;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        String source = LexerBenchmark.generateSource(megabytes * 1024 * 1024);
+        System.out.printf("Input: %,d chars%n", source.length());
+
+        long treeBytes = retained(() -> new Parser(new Lexer(source)).parseProgram());
+        Program program = (Program) sink;
+        FlatAst flat = FlatAst.from(program);
+        int nodes = flat.size();
+        sink = null;
+        program = null;
+        long flatBytes = retained(() -> FlatAst.from(new Parser(new Lexer(source)).parseProgram()));
+        flat = (FlatAst) sink;
+
+        System.out.printf("%,d nodes%n", nodes);
+        System.out.printf("Node tree  %,14d bytes  %6.1f B/node%n", treeBytes, treeBytes / (double) nodes);
+        System.out.printf("FlatAst    %,14d bytes  %6.1f B/node  (%.1fx smaller)%n",
+                flatBytes, flatBytes / (double) nodes, treeBytes / (double) flatBytes);
+
+        program = flat.toProgram();
+        Program tree = program;
+        FlatAst flatAst = flat;
+        System.out.printf("walk tree  %9.2f ms%n", time(() -> walk(tree)));
+        System.out.printf("walk flat  %9.2f ms%n", time(() -> walk(flatAst)));
+    }
+
+    /**
+     * Heap still in use after building the result and collecting garbage, minus the heap before
+     */
+    private static long retained(Supplier<Object> build) {
+        long before = usedAfterGc();
+        sink = build.get();
+        return usedAfterGc() - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double time(Runnable walk) {
+        for (int i = 0; i < WALK_ROUNDS; i++) {
+            walk.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < WALK_ROUNDS; i++) {
+            walk.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / WALK_ROUNDS;
+    }
+
+    // Both walks sum the integer literals, so they touch every node and the same data
+
+    private static void walk(Program program) {
+        total = sum(program);
+    }
+
+    private static long sum(Node node) {
+        if (node instanceof IntegerLiteral) {
+            return ((IntegerLiteral) node).getValue();
+        }
+        if (node instanceof Program) {
+            return sumAll(((Program) node).getStatements());
+        }
+        if (node instanceof BlockStatement) {
+            return sumAll(((BlockStatement) node).getStatements());
+        }
+        if (node instanceof LetStatement) {
+            return sum(((LetStatement) node).getValue());
+        }
+        if (node instanceof ReturnStatement) {
+            return sum(((ReturnStatement) node).getReturnValue());
+        }
+        if (node instanceof ExpressionStatement) {
+            return sum(((ExpressionStatement) node).getExpression());
+        }
+        if (node instanceof PrefixExpression) {
+            return sum(((PrefixExpression) node).getRight());
+        }
+        if (node instanceof InfixExpression) {
+            return sum(((InfixExpression) node).getLeft()) + sum(((InfixExpression) node).getRight());
+        }
+        if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            return sum(ifExpression.getCondition()) + sum(ifExpression.getConsequence()) + sum(ifExpression.getAlternative());
+        }
+        if (node instanceof FunctionLiteral) {
+            return sum(((FunctionLiteral) node).getBody());
+        }
+        if (node instanceof CallExpression) {
+            return sum(((CallExpression) node).getFunction()) + sumAll(((CallExpression) node).getArguments());
+        }
+        return 0;
+    }
+
+    private static long sumAll(List<? extends Node> nodes) {
+        long sum = 0;
+        for (Node node : nodes) {
+            sum += sum(node);
+        }
+        return sum;
+    }
+
+    private static void walk(FlatAst flat) {
+        FlatAst.Cursor cursor = flat.cursor();
+        long sum = 0;
+        for (int node = 0; node < flat.size(); node++) {
+            cursor.moveTo(node);
+            if (cursor.kind() == NodeKind.INTEGER_LITERAL) {
+                sum += cursor.value();
+            }
+        }
+        total = sum;
+    }
+}
@@ -0,0 +1,76 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.lexer.MappedLexer;
+import main.java.com.yourproject.parser.Parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Measures file-to-Program time for the different ways Main.runFile can read a script.
+ * The first pass of each mode is reported as "cold" (fresh JIT, file possibly not cached),
+ * the average of the following passes as "warm".
+ * Run with: java main.java.com.yourproject.benchmark.FrontEndBenchmark [file|megabytes] [mode]
+ * Passing a single mode runs only that one, which keeps its cold number honest.
+ */
+public class FrontEndBenchmark {
+    private static final int WARM_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Path path = scriptPath(args.length > 0 ? args[0] : "16");
+        System.out.printf("Input: %s (%,d bytes)%n", path, Files.size(path));
+
+        String mode = args.length > 1 ? args[1] : "all";
+        if (mode.equals("all") || mode.equals("string")) {
+            report("readAllBytes", () -> parse(new Parser(new Lexer(new String(Files.readAllBytes(path))))));
+        }
+        if (mode.equals("all") || mode.equals("mmap")) {
+            report("mmap", () -> parse(new Parser(MappedLexer.open(path))));
+        }
+    }
+
+    private interface Pass {
+        Program run() throws IOException;
+    }
+
+    private static void report(String label, Pass pass) throws IOException {
+        long start = System.nanoTime();
+        int statements = pass.run().getStatements().size();
+        double coldMillis = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        for (int i = 0; i < WARM_ROUNDS; i++) {
+            pass.run();
+        }
+        double warmMillis = (System.nanoTime() - start) / 1e6 / WARM_ROUNDS;
+
+        System.out.printf("%-14s %,10d statements  cold %9.2f ms  warm %9.2f ms%n",
+                label, statements, coldMillis, warmMillis);
+    }
+
+    private static Program parse(Parser parser) {
+        Program program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("benchmark script failed to parse: " + parser.getErrors().get(0));
+        }
+        return program;
+    }
+
+    /**
+     * Uses an existing script, or generates one of the given size in megabytes
+     */
+    private static Path scriptPath(String argument) throws IOException {
+        Path path = Paths.get(argument);
+        if (Files.exists(path)) {
+            return path;
+        }
+        Path generated = Files.createTempFile("frontend-benchmark", ".monkey");
+        generated.toFile().deleteOnExit();
+        Files.writeString(generated, LexerBenchmark.generateSource(Integer.parseInt(argument) * 1024 * 1024));
+        return generated;
+    }
+}
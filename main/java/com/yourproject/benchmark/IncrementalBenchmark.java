@@ -0,0 +1,81 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.IncrementalParser;
+import main.java.com.yourproject.parser.Parser;
+
+/**
+ * Compares re-parsing a whole script against IncrementalParser after a one-line edit.
+ * Run with: java main.java.com.yourproject.benchmark.IncrementalBenchmark [lines]
+ */
+public class IncrementalBenchmark {
+    private static final int FULL_ROUNDS = 20;
+    private static final int EDIT_ROUNDS = 2000;
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        String source = generateLines(lines);
+        System.out.printf("Input: %,d lines, %,d chars%n", lines, source.length());
+
+        // Full parse after every edit
+        for (int i = 0; i < FULL_ROUNDS; i++) {
+            new Parser(new Lexer(source)).parseProgram();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FULL_ROUNDS; i++) {
+            new Parser(new Lexer(source)).parseProgram();
+        }
+        double fullMicros = (System.nanoTime() - start) / 1e3 / FULL_ROUNDS;
+
+        // Incremental: keep rewriting the literal on a line in the middle of the file
+        IncrementalParser parser = new IncrementalParser(source);
+        int offset = source.indexOf("= ", source.indexOf("\nlet val", source.length() / 2)) + 2;
+        int length = 1;
+        for (int i = 0; i < EDIT_ROUNDS; i++) {
+            length = edit(parser, offset, length, i);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < EDIT_ROUNDS; i++) {
+            length = edit(parser, offset, length, i);
+        }
+        double editMicros = (System.nanoTime() - start) / 1e3 / EDIT_ROUNDS;
+
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("edited script failed to parse: " + parser.getErrors().get(0));
+        }
+        System.out.printf("full re-parse       %10.1f us%n", fullMicros);
+        System.out.printf("incremental edit    %10.1f us  (%,d statements)%n",
+                editMicros, parser.getProgram().getStatements().size());
+    }
+
+    private static int edit(IncrementalParser parser, int offset, int length, int round) {
+        String replacement = String.valueOf(round % 1000);
+        parser.applyEdit(offset, length, replacement);
+        return replacement.length();
+    }
+
+    /**
+     * One statement per line, so the line count is exact
+     */
+    static String generateLines(int lines) {
+        StringBuilder builder = new StringBuilder(lines * 32);
+        for (int i = 0; i < lines; i++) {
+            String name = LexerBenchmark.letters(i);
+            switch (i % 4) {
+                case 0:
+                    builder.append("let val").append(name).append(" = ").append(i % 97).append(" * 2 + 1;\n");
+                    break;
+                case 1:
+                    builder.append("let fun").append(name).append(" = fn(a, b) { if (a < b) { a } else { b } };\n");
+                    break;
+                case 2:
+                    builder.append("fun").append(LexerBenchmark.letters(i - 1)).append("(").append(i).append(", 3);\n");
+                    break;
+                default:
+                    builder.append("return val").append(LexerBenchmark.letters(i - 3)).append(" - 1;\n");
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+}
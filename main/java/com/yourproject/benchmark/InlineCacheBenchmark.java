@@ -0,0 +1,108 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.CallSiteCache;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Times the Evaluator (without the Jit) on workloads whose calls go through the call sites'
+ * inline caches, and prints the caches of the last run's functions: fibonacci, where each
+ * call looks up the global fib; helpers calling helpers; and a higher-order apply whose site
+ * sees one, three and then six different functions (monomorphic, polymorphic, megamorphic).
+ * Run with: java main.java.com.yourproject.benchmark.InlineCacheBenchmark
+ */
+public class InlineCacheBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(25)";
+    private static final String HELPERS =
+            "let sq = fn(x) { x * x }; let norm = fn(a, b) { sq(a) + sq(b) };"
+            + " let loop = fn(i, acc) { if (i == 0) { acc } else { loop(i - 1, acc + norm(i, 3) / 100) } };"
+            + " loop(100000, 0)";
+    private static final String APPLY =
+            "let inc = fn(x) { x + 1 }; let dbl = fn(x) { x * 2 }; let neg = fn(x) { -x };"
+            + " let sq = fn(x) { x * x }; let half = fn(x) { x / 2 }; let same = fn(x) { x };"
+            + " let one = fn(f, i, acc) { if (i == 0) { acc } else { one(f, i - 1, acc + f(i)) } };"
+            + " let three = fn(i, acc) { if (i == 0) { acc } else { three(i - 1, acc + one(inc, 1, 0) + one(dbl, 1, 0) + one(neg, 1, 0)) } };"
+            + " let six = fn(i, acc) { if (i == 0) { acc } else { six(i - 1, acc + one(sq, 1, 0) + one(half, 1, 0) + one(same, 1, 0)) } };"
+            + " one(inc, 50000, 0) + three(20000, 0) + six(20000, 0)";
+    private static final int WARMUP_RUNS = 10;
+    private static final int MEASURED_RUNS = 10;
+
+    static String sink;
+
+    public static void main(String[] args) {
+        report("fib(25)", FIBONACCI);
+        report("helpers", HELPERS);
+        report("apply", APPLY);
+    }
+
+    private static void report(String label, String source) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink = evaluator.eval(program, new Environment()).inspect();
+        }
+        Environment env = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            env = new Environment();
+            sink = evaluator.eval(program, env).inspect();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+        System.out.printf("%-8s %9.3f ms   = %s%n", label, millis, sink);
+
+        // The caches belong to the function values, so they only count the last run
+        for (Statement statement : program.getStatements()) {
+            if (statement instanceof LetStatement && ((LetStatement) statement).getValue() instanceof FunctionLiteral) {
+                String name = ((LetStatement) statement).getName().getValue();
+                printSites(name, (FunctionObj) env.get(name), ((LetStatement) statement).getValue());
+            }
+        }
+    }
+
+    /**
+     * Prints the cache of every call through a name in a function's body, in source order
+     */
+    private static void printSites(String owner, FunctionObj function, Node node) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) printSites(owner, function, statement);
+        } else if (node instanceof LetStatement) {
+            printSites(owner, function, ((LetStatement) node).getValue());
+        } else if (node instanceof ReturnStatement) {
+            printSites(owner, function, ((ReturnStatement) node).getReturnValue());
+        } else if (node instanceof ExpressionStatement) {
+            printSites(owner, function, ((ExpressionStatement) node).getExpression());
+        } else if (node instanceof PrefixExpression) {
+            printSites(owner, function, ((PrefixExpression) node).getRight());
+        } else if (node instanceof InfixExpression) {
+            printSites(owner, function, ((InfixExpression) node).getLeft());
+            printSites(owner, function, ((InfixExpression) node).getRight());
+        } else if (node instanceof IfExpression) {
+            printSites(owner, function, ((IfExpression) node).getCondition());
+            printSites(owner, function, ((IfExpression) node).getConsequence());
+            printSites(owner, function, ((IfExpression) node).getAlternative());
+        } else if (node instanceof FunctionLiteral && function.getBody() == ((FunctionLiteral) node).getBody()) {
+            // Nested literals make other function values, with caches of their own
+            printSites(owner, function, ((FunctionLiteral) node).getBody());
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            if (call.getSite() >= 0 && call.getSite() < function.getCallSiteCount()) {
+                CallSiteCache cache = function.getCallSiteCache(call.getSite());
+                System.out.printf("         %-8s %-10s %s%n", owner, call.getFunction() + "(...)",
+                        cache != null ? cache : "never called");
+            }
+            printSites(owner, function, call.getFunction());
+            for (Expression argument : call.getArguments()) printSites(owner, function, argument);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.jit.Jit;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+import main.java.com.yourproject.utiliity.Fibonacci;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Compares recursive fibonacci in the interpreted Evaluator, in the Evaluator with the Jit, and
+ * as plain Java (utiliity.Fibonacci). Parsing happens once, outside the timed runs.
+ * Run with: java main.java.com.yourproject.benchmark.JitBenchmark [n]
+ */
+public class JitBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(%d)";
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURED_ROUNDS = 20;
+
+    static long sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+        Program program = new Parser(new Lexer(String.format(FIBONACCI, n))).parseProgram();
+        Evaluator interpreter = new Evaluator(null);
+        Jit jit = new Jit(Jit.DEFAULT_THRESHOLD);
+        Evaluator compiling = new Evaluator(jit);
+
+        double interpreted = report("evaluator", () -> value(interpreter, program));
+        double compiled = report("jit", () -> value(compiling, program));
+        double java = report("java", () -> Fibonacci.calculate(n));
+        System.out.printf("speedup %.1fx over the evaluator, %.1fx of plain Java%n",
+                interpreted / compiled, java / compiled);
+        System.out.println(jit);
+    }
+
+    private static long value(Evaluator evaluator, Program program) {
+        return Long.parseLong(evaluator.eval(program, new Environment()).inspect());
+    }
+
+    private static double report(String label, LongSupplier run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = run.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = run.getAsLong();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-10s %9.3f ms  = %d%n", label, millis, sink);
+        return millis;
+    }
+}
@@ -0,0 +1,237 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.lexer.TokenSource;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures raw tokenizing throughput of the Lexer on a generated multi-megabyte script,
+ * and what parsing it costs on top of that. The Character.isLetter rows are the baseline
+ * for the Lexer's class table: the same token rules with java.lang.Character classification.
+ * Run with: java main.java.com.yourproject.benchmark.LexerBenchmark [megabytes]
+ */
+public class LexerBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    // Tokens are published here so escape analysis cannot remove their allocation,
+    // the same way a parser holding on to them would keep them alive
+    static Token sink;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        String source = generateSource(megabytes * 1024 * 1024);
+
+        System.out.printf("Input: %,d chars%n", source.length());
+        report("Lexer.nextToken", "tokens", source, text -> lex(new Lexer(text)));
+        report("Character.isLetter", "tokens", source, text -> lex(new CharacterLexer(text)));
+        report("Parser(Lexer)", "statements", source, text -> new Parser(new Lexer(text)).parseProgram().getStatements().size());
+
+        String identifiers = generateIdentifiers(megabytes * 1024 * 1024);
+        System.out.printf("%nIdentifier-dense input: %,d chars%n", identifiers.length());
+        report("Lexer.nextToken", "tokens", identifiers, text -> lex(new Lexer(text)));
+        report("Character.isLetter", "tokens", identifiers, text -> lex(new CharacterLexer(text)));
+    }
+
+    private static void report(String label, String unit, String source, ToLongFunction<String> lexer) {
+        long count = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            count = lexer.applyAsLong(source);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            lexer.applyAsLong(source);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9 / MEASURED_ROUNDS;
+        double bytesPerChar = (allocatedBytes() - allocatedBefore) / (double) MEASURED_ROUNDS / source.length();
+        double mbPerSecond = source.length() / (1024.0 * 1024.0) / seconds;
+
+        System.out.printf("%-20s %,12d %-10s  %8.2f ms/pass  %8.2f MB/s  %6.2f B allocated/char%n",
+                label, count, unit, seconds * 1000, mbPerSecond, bytesPerChar);
+    }
+
+    /**
+     * @return Bytes allocated so far by the current thread, or 0 if the JVM cannot tell
+     */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static long lex(TokenSource lexer) {
+        long count = 0;
+        Token token;
+        do {
+            token = lexer.nextToken();
+            sink = token;
+            count++;
+        } while (token.getType() != TokenType.EOF);
+        return count;
+    }
+
+    /**
+     * Builds a script of roughly the requested size out of typical Monkey statements
+     */
+    static String generateSource(int targetChars) {
+        StringBuilder builder = new StringBuilder(targetChars + 128);
+        int i = 0;
+        while (builder.length() < targetChars) {
+            String suffix = letters(i);
+            builder.append("let value").append(suffix).append(" = fn(a, b) {\n")
+                    .append("    if (a < b) { return a * 2 + b; } else { return !(a == b); }\n")
+                    .append("};\n")
+                    .append("let result").append(suffix).append(" = value").append(suffix)
+                    .append("(").append(i).append(", ").append(i % 17).append(") > -42;\n");
+            i++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Builds a run of keywords and identifiers, many of them keyword-sized or keyword-like
+     */
+    static String generateIdentifiers(int targetChars) {
+        String[] words = {
+                "let", "fn", "if", "else", "return", "true", "false", "while", "for",
+                "lex", "fun", "ix", "elsa", "returns", "truth", "falsy", "whale", "fort",
+                "x", "y", "count", "index", "accumulator", "parse_tree", "_tmp"
+        };
+        StringBuilder builder = new StringBuilder(targetChars + 16);
+        int i = 0;
+        while (builder.length() < targetChars) {
+            builder.append(words[i % words.length]).append(letters(i)).append(' ')
+                    .append(words[(i * 7) % words.length]).append('\n');
+            i++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Identifiers cannot contain digits, so unique names are spelled with letters only
+     */
+    static String letters(int n) {
+        StringBuilder builder = new StringBuilder();
+        do {
+            builder.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return builder.toString();
+    }
+
+    /**
+     * The Lexer's token rules with Character.isLetter, isDigit and isWhitespace in place of
+     * the class table. It agrees with the Lexer on ASCII input, which is all this generates.
+     */
+    private static final class CharacterLexer implements TokenSource {
+        private final String input;
+        private int position;
+        private int readPosition;
+        private char ch;
+
+        CharacterLexer(String input) {
+            this.input = input;
+            readChar();
+        }
+
+        @Override
+        public Token nextToken() {
+            while (Character.isWhitespace(ch)) {
+                readChar();
+            }
+            TokenType type;
+            switch (ch) {
+                case '=':
+                    type = withEquals(TokenType.ASSIGN, TokenType.EQ);
+                    break;
+                case '+':
+                    type = TokenType.PLUS;
+                    break;
+                case '-':
+                    type = TokenType.MINUS;
+                    break;
+                case '!':
+                    type = withEquals(TokenType.BANG, TokenType.NOT_EQ);
+                    break;
+                case '/':
+                    type = TokenType.SLASH;
+                    break;
+                case '*':
+                    type = TokenType.ASTERISK;
+                    break;
+                case '<':
+                    type = withEquals(TokenType.LT, TokenType.LE);
+                    break;
+                case '>':
+                    type = withEquals(TokenType.GT, TokenType.GE);
+                    break;
+                case ';':
+                    type = TokenType.SEMICOLON;
+                    break;
+                case ',':
+                    type = TokenType.COMMA;
+                    break;
+                case '(':
+                    type = TokenType.LPAREN;
+                    break;
+                case ')':
+                    type = TokenType.RPAREN;
+                    break;
+                case '{':
+                    type = TokenType.LBRACE;
+                    break;
+                case '}':
+                    type = TokenType.RBRACE;
+                    break;
+                case 0:
+                    return Token.of(TokenType.EOF);
+                default:
+                    return word();
+            }
+            readChar();
+            return Token.of(type);
+        }
+
+        private Token word() {
+            int start = position;
+            if (Character.isLetter(ch) || ch == '_') {
+                while (Character.isLetter(ch) || ch == '_') {
+                    readChar();
+                }
+                TokenType type = TokenType.lookupKeyword(input, start, position - start);
+                return type == TokenType.IDENT ? new Token(type, input.substring(start, position)) : Token.of(type);
+            }
+            if (Character.isDigit(ch)) {
+                while (Character.isDigit(ch)) {
+                    readChar();
+                }
+                return new Token(TokenType.INT, input.substring(start, position));
+            }
+            readChar();
+            return new Token(TokenType.ILLEGAL, input.substring(start, position));
+        }
+
+        private TokenType withEquals(TokenType single, TokenType withEquals) {
+            if (readPosition < input.length() && input.charAt(readPosition) == '=') {
+                readChar();
+                return withEquals;
+            }
+            return single;
+        }
+
+        private void readChar() {
+            ch = readPosition < input.length() ? input.charAt(readPosition) : 0;
+            position = readPosition;
+            readPosition++;
+        }
+    }
+}
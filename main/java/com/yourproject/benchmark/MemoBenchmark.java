@@ -0,0 +1,53 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.memo.Memoizer;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Compares the Evaluator (without the Jit) with and without memoization of pure functions:
+ * the exponential fibonacci, which becomes linear, and a loop that calls pure helpers with
+ * a few repeating arguments. Prints the Memoizer's counters after the memoized runs.
+ * Run with: java main.java.com.yourproject.benchmark.MemoBenchmark
+ */
+public class MemoBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(25)";
+    private static final String HELPERS =
+            "let factorial = fn(n) { if (n == 0) { 1 } else { n * factorial(n - 1) } };"
+            + " let choose = fn(n, k) { factorial(n) / (factorial(k) * factorial(n - k)) };"
+            + " let loop = fn(i, acc) { if (i == 0) { acc } else { loop(i - 1, acc + choose(20, i - i / 10 * 10)) } };"
+            + " loop(5000, 0)";
+    private static final int ROUNDS = 10;
+
+    static String sink;
+
+    public static void main(String[] args) {
+        report("fib(25)", FIBONACCI);
+        report("helpers", HELPERS);
+    }
+
+    private static void report(String label, String source) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+        double plain = time(program, new Evaluator(null, null));
+        Memoizer memoizer = new Memoizer();
+        double memoized = time(program, new Evaluator(null, memoizer));
+        System.out.printf("%-8s plain %9.3f ms   memoized %9.3f ms   (%.0fx)   = %s%n",
+                label, plain, memoized, plain / memoized, sink);
+        System.out.println("         " + memoizer);
+    }
+
+    private static double time(Program program, Evaluator evaluator) {
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = evaluator.eval(program, new Environment()).inspect();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = evaluator.eval(program, new Environment()).inspect();
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+}
@@ -0,0 +1,59 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.nodes.NodeInterpreter;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+import main.java.com.yourproject.utiliity.Fibonacci;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares the Evaluator (without the Jit) with the self-specializing NodeInterpreter on
+ * recursive fibonacci and on an arithmetic-heavy tail-recursive loop, with the hand-written
+ * Java fibonacci for scale. Parsing happens once, outside the timed runs.
+ * Run with: java main.java.com.yourproject.benchmark.NodeBenchmark [n]
+ */
+public class NodeBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(%d)";
+    private static final String ARITHMETIC =
+            "let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + (n * 3 - n / 2) * (n - 1) / 4) } };"
+            + " loop(%d, 0)";
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURED_ROUNDS = 20;
+
+    static Object sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+        compare("fib(" + n + ")", String.format(FIBONACCI, n));
+        compare("arithmetic", String.format(ARITHMETIC, 100000));
+        report("java fib", () -> Fibonacci.calculate(n));
+    }
+
+    private static void compare(String name, String source) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        NodeInterpreter interpreter = new NodeInterpreter();
+        System.out.println(name);
+        double evaluated = report("evaluator", () -> evaluator.eval(program, new Environment()).inspect());
+        double specialized = report("nodes", () -> interpreter.run(program, new Environment()).inspect());
+        System.out.printf("speedup %.1fx%n", evaluated / specialized);
+    }
+
+    private static double report(String label, Supplier<Object> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = run.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = run.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-10s %9.3f ms  = %s%n", label, millis, sink);
+        return millis;
+    }
+}
@@ -0,0 +1,50 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.optimizer.Optimizer;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Evaluates a constant-heavy script repeatedly, as parsed and after the Optimizer.
+ * Run with: java main.java.com.yourproject.benchmark.OptimizerBenchmark [statements]
+ */
+public class OptimizerBenchmark {
+    private static final int ROUNDS = 2000;
+
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        StringBuilder builder = new StringBuilder("let base = 6;\n");
+        for (int i = 0; i < statements; i++) {
+            String name = "val" + LexerBenchmark.letters(i);
+            builder.append("let ").append(name).append(" = base * 2 + ").append(i % 10).append(" * (3 - 1);\n");
+            builder.append("if (!(").append(name).append(" < 10)) { ").append(name).append(" / 2 } else { -").append(name).append(" };\n");
+        }
+        Program parsed = new Parser(new Lexer(builder.toString())).parseProgram();
+        Program optimized = new Optimizer().optimize(parsed);
+
+        System.out.printf("%,d statements%n", parsed.getStatements().size());
+        report("as parsed", parsed);
+        report("optimized", optimized);
+    }
+
+    private static void report(String label, Program program) {
+        Evaluator evaluator = new Evaluator();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = evaluator.eval(program, new Environment());
+        }
+        long allocatedBefore = LexerBenchmark.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = evaluator.eval(program, new Environment());
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / ROUNDS;
+        double allocated = (LexerBenchmark.allocatedBytes() - allocatedBefore) / (double) ROUNDS;
+        System.out.printf("%-10s %9.1f us/run  %,12.0f B allocated/run%n", label, micros, allocated);
+    }
+}
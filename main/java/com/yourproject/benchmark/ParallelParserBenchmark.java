@@ -0,0 +1,43 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.ParallelParser;
+import main.java.com.yourproject.parser.Parser;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares Parser with ParallelParser on a large generated script.
+ * Run with: java main.java.com.yourproject.benchmark.ParallelParserBenchmark [megabytes]
+ */
+public class ParallelParserBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        String source = LexerBenchmark.generateSource(megabytes * 1024 * 1024);
+        System.out.printf("Input: %,d chars, %d cores%n", source.length(), Runtime.getRuntime().availableProcessors());
+
+        String sequential = report("Parser", () -> new Parser(new Lexer(source)).parseProgram());
+        String parallel = report("ParallelParser", () -> new ParallelParser(source).parseProgram());
+        if (!sequential.equals(parallel)) {
+            throw new IllegalStateException("parallel parse differs from sequential parse");
+        }
+    }
+
+    private static String report(String label, Supplier<Program> parse) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse.get();
+        }
+        long start = System.nanoTime();
+        Program program = null;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            program = parse.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-16s %,10d statements  %9.2f ms%n", label, program.getStatements().size(), millis);
+        return program.toString();
+    }
+}
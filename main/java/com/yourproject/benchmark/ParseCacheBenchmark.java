@@ -0,0 +1,49 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.Interpreter;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.ParseCache;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Runs a fixed set of scripts over and over, once parsing every run and once through
+ * an Interpreter with a ParseCache.
+ * Run with: java main.java.com.yourproject.benchmark.ParseCacheBenchmark [scripts] [runs]
+ */
+public class ParseCacheBenchmark {
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) {
+        int scriptCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        String[] scripts = new String[scriptCount];
+        for (int i = 0; i < scriptCount; i++) {
+            scripts[i] = "let id" + LexerBenchmark.letters(i) + " = " + i + ";\n" + IncrementalBenchmark.generateLines(20 + i % 40).replace("return ", "") + "val" + LexerBenchmark.letters(0);
+        }
+
+        Evaluator evaluator = new Evaluator();
+        Interpreter interpreter = new Interpreter(new ParseCache(scriptCount));
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                String source = scripts[i % scriptCount];
+                sink = evaluator.eval(new Parser(new Lexer(source)).parseProgram(), new Environment());
+            }
+            double uncached = (System.nanoTime() - start) / 1e3 / runs;
+
+            start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                sink = interpreter.run(scripts[i % scriptCount]);
+            }
+            double cached = (System.nanoTime() - start) / 1e3 / runs;
+
+            System.out.printf("round %d  parse every run %8.2f us/run   cached %8.2f us/run%n", round, uncached, cached);
+        }
+        System.out.println(interpreter.getCache());
+    }
+}
@@ -0,0 +1,55 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.parser.Parser;
+
+/**
+ * Measures Parser cost for many short inputs (one parser per REPL line or request)
+ * and for a single large script.
+ * Run with: java main.java.com.yourproject.benchmark.ParserBenchmark [megabytes]
+ */
+public class ParserBenchmark {
+    private static final String[] SHORT_INPUTS = {
+            "let x = 5 * (y + 2);",
+            "add(1, 2 * 3, -4)",
+            "if (a < b) { a } else { b }",
+            "fn(n) { n * 2 }",
+            "!true == false",
+    };
+    private static final int SHORT_PARSES = 2_000_000;
+    private static final int LARGE_ROUNDS = 5;
+
+    static Program sink;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+        shortParses();
+        shortParses();
+        long start = System.nanoTime();
+        shortParses();
+        double nanosPerParse = (System.nanoTime() - start) / (double) SHORT_PARSES;
+        System.out.printf("short parses   %,d inputs  %8.1f ns/parse%n", SHORT_PARSES, nanosPerParse);
+
+        String source = LexerBenchmark.generateSource(megabytes * 1024 * 1024);
+        sink = largeParse(source);
+        sink = largeParse(source);
+        start = System.nanoTime();
+        for (int i = 0; i < LARGE_ROUNDS; i++) {
+            sink = largeParse(source);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / LARGE_ROUNDS;
+        System.out.printf("large parse    %,d chars  %8.1f ms/parse%n", source.length(), millis);
+    }
+
+    private static void shortParses() {
+        for (int i = 0; i < SHORT_PARSES; i++) {
+            sink = new Parser(new Lexer(SHORT_INPUTS[i % SHORT_INPUTS.length])).parseProgram();
+        }
+    }
+
+    private static Program largeParse(String source) {
+        return new Parser(new Lexer(source)).parseProgram();
+    }
+}
@@ -0,0 +1,67 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.statements.Statement;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Compares variable access through Resolver addresses with name-based lookup, on a
+ * recursive function and on a deeply nested closure.
+ * Run with: java main.java.com.yourproject.benchmark.ResolverBenchmark
+ */
+public class ResolverBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(22)";
+    private static final String NESTED =
+            "let make = fn(a) { let b = a + 1; fn(c) { let d = c * 2; fn(e) { fn(f) { a + b + c + d + e + f } } } };"
+            + " let deep = make(1)(2)(3);"
+            + " let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + deep(n)) } };"
+            + " loop(300, 0)";
+    private static final int ROUNDS = 200;
+
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) {
+        report("fib(22)", FIBONACCI);
+        report("nested closure", NESTED);
+    }
+
+    private static void report(String label, String source) {
+        double byName = time(source, false);
+        double resolved = time(source, true);
+        System.out.printf("%-16s by name %8.2f ms   resolved %8.2f ms   (%.2fx)   = %s%n",
+                label, byName, resolved, byName / resolved, sink.inspect());
+    }
+
+    private static double time(String source, boolean resolve) {
+        for (int i = 0; i < ROUNDS; i++) {
+            run(source, resolve);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            run(source, resolve);
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+
+    /**
+     * Evaluating a Program resolves it; evaluating its statements one by one does not,
+     * which is how every variable was looked up before the Resolver
+     */
+    private static void run(String source, boolean resolve) {
+        Program program = new Parser(new Lexer(source)).parseProgram();
+        Evaluator evaluator = new Evaluator(null);
+        Environment env = new Environment();
+        if (resolve) {
+            sink = evaluator.eval(program, env);
+        } else {
+            for (Statement statement : program.getStatements()) {
+                sink = evaluator.eval(statement, env);
+            }
+        }
+    }
+}
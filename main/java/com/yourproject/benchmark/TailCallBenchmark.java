@@ -0,0 +1,52 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Runs the same counting loop written as a tail call and as a non-tail call (the result goes
+ * through a let first). The non-tail version needs a Java frame per iteration, so it runs on
+ * a thread with a 2 GB stack.
+ * Run with: java main.java.com.yourproject.benchmark.TailCallBenchmark [iterations]
+ */
+public class TailCallBenchmark {
+    private static final String TAIL =
+            "let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + 1) } }; loop(%d, 0)";
+    private static final String NOT_TAIL =
+            "let loop = fn(n, acc) { if (n == 0) { acc } else { let r = loop(n - 1, acc + 1); r } }; loop(%d, 0)";
+    private static final int ROUNDS = 5;
+
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Thread thread = new Thread(null, () -> {
+            report("non-tail call", String.format(NOT_TAIL, iterations));
+            report("tail call", String.format(TAIL, iterations));
+        }, "deep-stack", 2L << 30);
+        thread.start();
+        thread.join();
+
+        // And on the default stack, where only the tail version can go deep
+        report("tail call, 10x", String.format(TAIL, iterations * 10));
+    }
+
+    private static void report(String label, String source) {
+        for (int i = 0; i < ROUNDS; i++) {
+            run(source);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            run(source);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        System.out.printf("%-16s %9.2f ms  = %s%n", label, millis, sink.inspect());
+    }
+
+    private static void run(String source) {
+        sink = new Evaluator(null).eval(new Parser(new Lexer(source)).parseProgram(), new Environment());
+    }
+}
@@ -0,0 +1,52 @@
+package main.java.com.yourproject.benchmark;
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.compiler.Bytecode;
+import main.java.com.yourproject.compiler.Compiler;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.Environment;
+import main.java.com.yourproject.vm.VirtualMachine;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares the tree-walking Evaluator with the bytecode VirtualMachine on recursive fibonacci.
+ * Parsing and compiling happen once, outside the timed runs.
+ * Run with: java main.java.com.yourproject.benchmark.VmBenchmark [n]
+ */
+public class VmBenchmark {
+    private static final String FIBONACCI =
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(%d)";
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURED_ROUNDS = 20;
+
+    static EvaluatorObject sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+        Program program = new Parser(new Lexer(String.format(FIBONACCI, n))).parseProgram();
+        Bytecode bytecode = Compiler.compile(program);
+        Evaluator evaluator = new Evaluator(null);
+        VirtualMachine vm = new VirtualMachine();
+
+        double evaluated = report("evaluator", () -> evaluator.eval(program, new Environment()));
+        double compiled = report("vm", () -> vm.run(bytecode));
+        System.out.printf("speedup %.1fx%n", evaluated / compiled);
+    }
+
+    private static double report(String label, Supplier<EvaluatorObject> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = run.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = run.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-10s %9.2f ms  = %s%n", label, millis, sink.inspect());
+        return millis;
+    }
+}
@@ -0,0 +1,403 @@
+package main.java.com.yourproject.closures;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.evaluator.EvaluatorUtils;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.objects.NullObj;
+import main.java.com.yourproject.objects.ReturnObj;
+import main.java.com.yourproject.resolver.Resolver;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the AST into a tree of pre-bound Java lambdas (Code), once per node, so running a
+ * function body is a chain of direct calls instead of the Evaluator's instanceof cascade on
+ * every visit. Operators, literals and variable addresses are fixed at compile time: `a + 1`
+ * becomes a lambda that adds two longs, `x` one that reads slot 2 of the current frame.
+ *
+ * eval(Node, Environment) is a drop-in replacement for Evaluator.eval: same results, same
+ * errors and exceptions, and tail calls on the same kind of trampoline. Compiled programs
+ * are kept, so a Program is compiled on its first run only; other nodes are compiled on
+ * every call.
+ *
+ * Not thread-safe.
+ */
+public class ClosureCompiler {
+    private static final Code NULL = env -> NullObj.NULL;
+
+    private final Map<Program, Code> programs = new IdentityHashMap<>();
+    // Bodies of functions that were not created by compiled code, e.g. by the Evaluator
+    private final Map<BlockStatement, CompiledBody> foreignBodies = new IdentityHashMap<>();
+
+    /**
+     * Evaluates a node like Evaluator.eval
+     * @param node The AST node; a Program is resolved first
+     * @param env The current environment
+     * @return The evaluated object
+     */
+    public EvaluatorObject eval(Node node, Environment env) {
+        if (!(node instanceof Program)) {
+            return compile(node).run(env);
+        }
+        Code code = programs.get(node);
+        if (code == null) {
+            code = compile(node);
+            programs.put((Program) node, code);
+        }
+        return code.run(env);
+    }
+
+    /**
+     * @param node The AST node; a Program is resolved first
+     * @return Code that evaluates the node like Evaluator.eval
+     */
+    public Code compile(Node node) {
+        if (node instanceof Program) {
+            Resolver.resolve((Program) node);
+            Code body = block(((Program) node).getStatements());
+            return env -> {
+                EvaluatorObject result = body.run(env);
+                return result instanceof ReturnObj ? ((ReturnObj) result).getValue() : result;
+            };
+        }
+        if (node instanceof Statement) {
+            return statement((Statement) node);
+        }
+        if (node instanceof Expression) {
+            return expression((Expression) node);
+        }
+        return NULL;
+    }
+
+    /**
+     * Calls a function. Tail calls made by the body come back as TailCall values and are run
+     * by this loop instead of a nested Java call.
+     */
+    private EvaluatorObject apply(EvaluatorObject fn, List<EvaluatorObject> args) {
+        while (true) {
+            if (!(fn instanceof FunctionObj)) {
+                return new ErrorObj("not a function: " + fn.type());
+            }
+            FunctionObj function = (FunctionObj) fn;
+            if (function.getParameters().size() != args.size()) {
+                return new ErrorObj("wrong number of arguments: want=" + function.getParameters().size() + ", got=" + args.size());
+            }
+
+            CompiledBody body = function instanceof ClosureFunction ? ((ClosureFunction) function).body : foreign(function);
+            EvaluatorObject result = body.code.run(body.enter(function.getEnv(), args));
+            if (result instanceof ReturnObj) {
+                result = ((ReturnObj) result).getValue();
+            }
+            if (!(result instanceof TailCall)) {
+                return result;
+            }
+            fn = ((TailCall) result).function;
+            args = ((TailCall) result).args;
+        }
+    }
+
+    private CompiledBody foreign(FunctionObj function) {
+        CompiledBody body = foreignBodies.get(function.getBody());
+        if (body == null) {
+            body = body(function.getParameters(), function.getBody(), function.getSlotNames());
+            foreignBodies.put(function.getBody(), body);
+        }
+        return body;
+    }
+
+    private CompiledBody body(List<Identifier> parameters, BlockStatement block, String[] slotNames) {
+        String[] names = new String[parameters.size()];
+        int[] slots = new int[parameters.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = parameters.get(i).getValue();
+            slots[i] = bindingSlot(parameters.get(i));
+        }
+        return new CompiledBody(block(block.getStatements()), slotNames, names, slots);
+    }
+
+    /**
+     * A block stops at the first ReturnObj or ErrorObj
+     */
+    private Code block(List<Statement> statements) {
+        if (statements.isEmpty()) {
+            return NULL;
+        }
+        if (statements.size() == 1) {
+            return statement(statements.get(0));
+        }
+        Code[] codes = new Code[statements.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = statement(statements.get(i));
+        }
+        return env -> {
+            EvaluatorObject result = null;
+            for (Code code : codes) {
+                result = code.run(env);
+                if (result instanceof ReturnObj || result instanceof ErrorObj) {
+                    return result;
+                }
+            }
+            return result;
+        };
+    }
+
+    private Code statement(Statement statement) {
+        if (statement instanceof LetStatement) {
+            return let((LetStatement) statement);
+        }
+        if (statement instanceof ReturnStatement) {
+            Code value = expression(((ReturnStatement) statement).getReturnValue());
+            return env -> new ReturnObj(value.run(env));
+        }
+        if (statement instanceof ExpressionStatement) {
+            return expression(((ExpressionStatement) statement).getExpression());
+        }
+        if (statement instanceof BlockStatement) {
+            return block(((BlockStatement) statement).getStatements());
+        }
+        return NULL;
+    }
+
+    private Code let(LetStatement let) {
+        Code value = expression(let.getValue());
+        String name = let.getName().getValue();
+        int slot = bindingSlot(let.getName());
+        if (slot >= 0) {
+            return env -> {
+                EvaluatorObject result = value.run(env);
+                if (result instanceof ErrorObj) return result;
+                env.setSlot(slot, result);
+                return result;
+            };
+        }
+        return env -> {
+            EvaluatorObject result = value.run(env);
+            if (result instanceof ErrorObj) return result;
+            env.set(name, result);
+            return result;
+        };
+    }
+
+    private Code expression(Expression expression) {
+        if (expression instanceof IntegerLiteral) {
+            // Integers are only ever compared by value, so one object can serve every run
+            IntegerObj value = ((IntegerLiteral) expression).getObject();
+            return env -> value;
+        }
+        if (expression instanceof BooleanLiteral) {
+            BooleanObj value = ((BooleanLiteral) expression).getValue() ? BooleanObj.TRUE : BooleanObj.FALSE;
+            return env -> value;
+        }
+        if (expression instanceof Identifier) {
+            return identifier((Identifier) expression);
+        }
+        if (expression instanceof PrefixExpression) {
+            return prefix((PrefixExpression) expression);
+        }
+        if (expression instanceof InfixExpression) {
+            return infix((InfixExpression) expression);
+        }
+        if (expression instanceof IfExpression) {
+            return ifExpression((IfExpression) expression);
+        }
+        if (expression instanceof FunctionLiteral) {
+            FunctionLiteral literal = (FunctionLiteral) expression;
+            CompiledBody body = body(literal.getParameters(), literal.getBody(), literal.getSlotNames());
+            return env -> new ClosureFunction(literal, env, body);
+        }
+        if (expression instanceof CallExpression) {
+            return call((CallExpression) expression);
+        }
+        return NULL;
+    }
+
+    /**
+     * Follows the Resolver's address: depth hops out, then one slot read. Globals, unset slots
+     * and unresolved identifiers are looked up by name from where the hops ended.
+     */
+    private Code identifier(Identifier identifier) {
+        String name = identifier.getValue();
+        int address = identifier.getAddress();
+        if (address < 0) {
+            return env -> found(name, env.get(name));
+        }
+        int depth = Identifier.depthOf(address);
+        int slot = Identifier.slotOf(address);
+        if (slot == Identifier.GLOBAL_SLOT) {
+            return env -> found(name, outer(env, depth).get(name));
+        }
+        if (depth == 0) {
+            return env -> {
+                EvaluatorObject value = env.getSlot(slot);
+                return value != null ? value : found(name, env.get(name));
+            };
+        }
+        return env -> {
+            Environment scope = outer(env, depth);
+            EvaluatorObject value = scope.getSlot(slot);
+            return value != null ? value : found(name, scope.get(name));
+        };
+    }
+
+    private static Environment outer(Environment env, int depth) {
+        for (; depth > 0 && env.getOuter() != null; depth--) {
+            env = env.getOuter();
+        }
+        return env;
+    }
+
+    private static EvaluatorObject found(String name, EvaluatorObject value) {
+        return value != null ? value : new ErrorObj("identifier not found: " + name);
+    }
+
+    private Code prefix(PrefixExpression prefix) {
+        Code right = expression(prefix.getRight());
+        Operator operator = prefix.getOperator();
+        switch (operator) {
+            case NOT:
+                return env -> {
+                    EvaluatorObject value = right.run(env);
+                    if (value instanceof ErrorObj) return value;
+                    return EvaluatorUtils.evalBangOperator(value);
+                };
+            case NEGATE:
+                return env -> {
+                    EvaluatorObject value = right.run(env);
+                    if (value instanceof ErrorObj) return value;
+                    return EvaluatorUtils.evalMinusPrefixOperator(value);
+                };
+            default:
+                return env -> {
+                    EvaluatorObject value = right.run(env);
+                    if (value instanceof ErrorObj) return value;
+                    return EvaluatorUtils.evalPrefixExpression(operator, value);
+                };
+        }
+    }
+
+    private interface LongOperator {
+        long apply(long left, long right);
+    }
+
+    private interface LongComparison {
+        boolean test(long left, long right);
+    }
+
+    private Code infix(InfixExpression infix) {
+        Code left = expression(infix.getLeft());
+        Code right = expression(infix.getRight());
+        Operator operator = infix.getOperator();
+        switch (operator) {
+            case ADD:
+                return arithmetic(operator, left, right, (a, b) -> a + b);
+            case SUBTRACT:
+                return arithmetic(operator, left, right, (a, b) -> a - b);
+            case MULTIPLY:
+                return arithmetic(operator, left, right, (a, b) -> a * b);
+            case DIVIDE:
+                return arithmetic(operator, left, right, (a, b) -> a / b);
+            case LESS_THAN:
+                return comparison(operator, left, right, (a, b) -> a < b);
+            case GREATER_THAN:
+                return comparison(operator, left, right, (a, b) -> a > b);
+            case EQUAL:
+                return comparison(operator, left, right, (a, b) -> a == b);
+            case NOT_EQUAL:
+                return comparison(operator, left, right, (a, b) -> a != b);
+            default:
+                return env -> {
+                    EvaluatorObject l = left.run(env);
+                    if (l instanceof ErrorObj) return l;
+                    EvaluatorObject r = right.run(env);
+                    if (r instanceof ErrorObj) return r;
+                    return EvaluatorUtils.evalInfixExpression(operator, l, r);
+                };
+        }
+    }
+
+    private static Code arithmetic(Operator operator, Code left, Code right, LongOperator operation) {
+        return env -> {
+            EvaluatorObject l = left.run(env);
+            if (l instanceof ErrorObj) return l;
+            EvaluatorObject r = right.run(env);
+            if (r instanceof ErrorObj) return r;
+            if (l instanceof IntegerObj && r instanceof IntegerObj) {
+                return IntegerObj.valueOf(operation.apply(((IntegerObj) l).getIntegerValue(), ((IntegerObj) r).getIntegerValue()));
+            }
+            return EvaluatorUtils.evalInfixExpression(operator, l, r);
+        };
+    }
+
+    private static Code comparison(Operator operator, Code left, Code right, LongComparison operation) {
+        return env -> {
+            EvaluatorObject l = left.run(env);
+            if (l instanceof ErrorObj) return l;
+            EvaluatorObject r = right.run(env);
+            if (r instanceof ErrorObj) return r;
+            if (l instanceof IntegerObj && r instanceof IntegerObj) {
+                return operation.test(((IntegerObj) l).getIntegerValue(), ((IntegerObj) r).getIntegerValue())
+                        ? BooleanObj.TRUE : BooleanObj.FALSE;
+            }
+            return EvaluatorUtils.evalInfixExpression(operator, l, r);
+        };
+    }
+
+    private Code ifExpression(IfExpression ifExpression) {
+        Code condition = expression(ifExpression.getCondition());
+        Code consequence = statement(ifExpression.getConsequence());
+        Code alternative = ifExpression.getAlternative() != null ? statement(ifExpression.getAlternative()) : NULL;
+        return env -> {
+            EvaluatorObject value = condition.run(env);
+            if (value instanceof ErrorObj) return value;
+            return EvaluatorUtils.isTruthy(value) ? consequence.run(env) : alternative.run(env);
+        };
+    }
+
+    private Code call(CallExpression call) {
+        Code function = expression(call.getFunction());
+        List<Expression> arguments = call.getArguments() != null ? call.getArguments() : List.of();
+        Code[] args = new Code[arguments.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = expression(arguments.get(i));
+        }
+        boolean tailCall = call.isTailCall();
+        return env -> {
+            EvaluatorObject callee = function.run(env);
+            if (callee instanceof ErrorObj) return callee;
+            List<EvaluatorObject> values = new ArrayList<>(args.length);
+            for (Code arg : args) {
+                EvaluatorObject value = arg.run(env);
+                if (value instanceof ErrorObj) return value;
+                values.add(value);
+            }
+            if (tailCall && callee instanceof FunctionObj) {
+                return new TailCall((FunctionObj) callee, values);
+            }
+            return apply(callee, values);
+        };
+    }
+
+    /**
+     * @return The slot a let or parameter of this name binds in the current call, or -1 if it
+     *         is bound by name
+     */
+    private static int bindingSlot(Identifier name) {
+        int address = name.getAddress();
+        if (address >= 0 && Identifier.depthOf(address) == 0 && Identifier.slotOf(address) != Identifier.GLOBAL_SLOT) {
+            return Identifier.slotOf(address);
+        }
+        return -1;
+    }
+}
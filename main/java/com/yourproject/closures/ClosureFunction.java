@@ -0,0 +1,19 @@
+package main.java.com.yourproject.closures;
+
+
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * A function created by compiled code. To the program it is an ordinary FunctionObj; calls
+ * from compiled code run its compiled body directly.
+ */
+final class ClosureFunction extends FunctionObj {
+    final CompiledBody body;
+
+    ClosureFunction(FunctionLiteral literal, Environment env, CompiledBody body) {
+        super(literal.getParameters(), literal.getBody(), env, literal.getSlotNames());
+        this.body = body;
+    }
+}
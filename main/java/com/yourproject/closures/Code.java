@@ -0,0 +1,17 @@
+package main.java.com.yourproject.closures;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * One compiled AST node: runs it in the environment of the current call
+ */
+@FunctionalInterface
+public interface Code {
+    /**
+     * @param env The environment (frame) of the running call
+     * @return The value, following the Evaluator's rules for ErrorObj and ReturnObj
+     */
+    EvaluatorObject run(Environment env);
+}
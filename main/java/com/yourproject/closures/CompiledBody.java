@@ -0,0 +1,39 @@
+package main.java.com.yourproject.closures;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.List;
+
+/**
+ * The compiled body of a function literal, and how a call of it binds its arguments
+ */
+final class CompiledBody {
+    final Code code;
+    private final String[] slotNames;       // null for name-only calls
+    private final String[] parameterNames;
+    private final int[] parameterSlots;     // -1 binds by name
+
+    CompiledBody(Code code, String[] slotNames, String[] parameterNames, int[] parameterSlots) {
+        this.code = code;
+        this.slotNames = slotNames;
+        this.parameterNames = parameterNames;
+        this.parameterSlots = parameterSlots;
+    }
+
+    /**
+     * @return The environment of one call, with the arguments bound
+     */
+    Environment enter(Environment outer, List<EvaluatorObject> args) {
+        Environment callEnv = slotNames != null ? new Environment(outer, slotNames) : new Environment(outer);
+        for (int i = 0; i < parameterSlots.length; i++) {
+            if (parameterSlots[i] >= 0) {
+                callEnv.setSlot(parameterSlots[i], args.get(i));
+            } else {
+                callEnv.set(parameterNames[i], args.get(i));
+            }
+        }
+        return callEnv;
+    }
+}
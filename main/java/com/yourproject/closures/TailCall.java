@@ -0,0 +1,24 @@
+package main.java.com.yourproject.closures;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+
+import java.util.List;
+
+/**
+ * A call in tail position, handed up to the call loop in ClosureCompiler.apply so that a
+ * chain of tail calls uses constant Java stack. Never visible outside compiled code.
+ */
+final class TailCall implements EvaluatorObject {
+    final FunctionObj function;
+    final List<EvaluatorObject> args;
+
+    TailCall(FunctionObj function, List<EvaluatorObject> args) {
+        this.function = function;
+        this.args = args;
+    }
+
+    @Override public String type() { return "TAIL_CALL"; }
+    @Override public String inspect() { return "tail call"; }
+}
@@ -0,0 +1,85 @@
+package main.java.com.yourproject.compiler;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compiled program: the top-level code plus the pools its instructions index into.
+ * Immutable, so one Bytecode can be run by any number of virtual machines.
+ */
+public final class Bytecode {
+    private final CompiledFunction main;
+    private final EvaluatorObject[] constants;
+    private final CompiledFunction[] functions;
+    private final String[] globalNames;
+    private final Map<String, Integer> globalIndex = new HashMap<>();
+
+    Bytecode(CompiledFunction main, EvaluatorObject[] constants, CompiledFunction[] functions, String[] globalNames) {
+        this.main = main;
+        this.constants = constants;
+        this.functions = functions;
+        this.globalNames = globalNames;
+        for (int i = 0; i < globalNames.length; i++) {
+            globalIndex.put(globalNames[i], i);
+        }
+    }
+
+    /**
+     * @return The code of the program's top level
+     */
+    public CompiledFunction getMain() {
+        return main;
+    }
+
+    /**
+     * @return The constant pool read by CONSTANT. Shared, do not modify.
+     */
+    public EvaluatorObject[] getConstants() {
+        return constants;
+    }
+
+    /**
+     * @return The function pool read by CLOSURE. Shared, do not modify.
+     */
+    public CompiledFunction[] getFunctions() {
+        return functions;
+    }
+
+    /**
+     * @return The name of each global, by index. Shared, do not modify.
+     */
+    public String[] getGlobalNames() {
+        return globalNames;
+    }
+
+    /**
+     * @param name A global name
+     * @return Its index, or -1 if the program never mentions it
+     */
+    public int globalIndex(String name) {
+        Integer index = globalIndex.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return The pools and a disassembly of every function
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < constants.length; i++) {
+            out.append("constant ").append(i).append(": ").append(constants[i].inspect()).append('\n');
+        }
+        for (int i = 0; i < globalNames.length; i++) {
+            out.append("global ").append(i).append(": ").append(globalNames[i]).append('\n');
+        }
+        out.append("main:\n").append(main.disassemble());
+        for (int i = 0; i < functions.length; i++) {
+            out.append("function ").append(i).append(":\n").append(functions[i].disassemble());
+        }
+        return out.toString();
+    }
+}
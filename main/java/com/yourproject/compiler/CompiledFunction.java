@@ -0,0 +1,100 @@
+package main.java.com.yourproject.compiler;
+
+
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+
+/**
+ * The bytecode of one function literal, or of the top level of a program.
+ *
+ * A call frame holds numSlots slots: the parameters in order, then the names the body binds
+ * with `let`. They live on the operand stack, unless the function contains a function literal
+ * that may capture them; then they live in a heap Scope that the closures keep alive
+ * (usesScope() is true).
+ */
+public final class CompiledFunction {
+    private final byte[] code;
+    private final int numParameters;
+    private final String[] slotNames;
+    private final boolean usesScope;
+    private final int maxStack;
+    private final FunctionLiteral literal;
+
+    CompiledFunction(byte[] code, int numParameters, String[] slotNames, boolean usesScope,
+                     int maxStack, FunctionLiteral literal) {
+        this.code = code;
+        this.numParameters = numParameters;
+        this.slotNames = slotNames;
+        this.usesScope = usesScope;
+        this.maxStack = maxStack;
+        this.literal = literal;
+    }
+
+    /**
+     * @return The instructions. Shared, do not modify.
+     */
+    public byte[] getCode() {
+        return code;
+    }
+
+    public int getNumParameters() {
+        return numParameters;
+    }
+
+    /**
+     * @return The number of slots a call frame needs
+     */
+    public int getNumSlots() {
+        return slotNames.length;
+    }
+
+    /**
+     * @return The name bound in each slot. Shared, do not modify.
+     */
+    public String[] getSlotNames() {
+        return slotNames;
+    }
+
+    /**
+     * @return Whether the slots live in a heap Scope instead of on the operand stack
+     */
+    public boolean usesScope() {
+        return usesScope;
+    }
+
+    /**
+     * @return The most operand stack entries the function needs above its slots
+     */
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    /**
+     * @return The function literal this was compiled from, or null for a program's top level
+     */
+    public FunctionLiteral getLiteral() {
+        return literal;
+    }
+
+    /**
+     * @return One instruction per line, with its offset and decoded operands
+     */
+    public String disassemble() {
+        StringBuilder out = new StringBuilder();
+        int ip = 0;
+        while (ip < code.length) {
+            byte opcode = code[ip];
+            out.append(String.format("%04d %s", ip, Opcode.name(opcode)));
+            int operand = ip + 1;
+            for (int width : Opcode.operandWidths(opcode)) {
+                int value = width == 2
+                        ? ((code[operand] & 0xFF) << 8) | (code[operand + 1] & 0xFF)
+                        : code[operand] & 0xFF;
+                out.append(' ').append(value);
+                operand += width;
+            }
+            out.append('\n');
+            ip += Opcode.length(opcode);
+        }
+        return out.toString();
+    }
+}
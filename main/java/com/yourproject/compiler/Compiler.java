@@ -0,0 +1,466 @@
+package main.java.com.yourproject.compiler;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowers a Program to Bytecode for the VirtualMachine.
+ *
+ * Names are resolved the way the Resolver does it: a function's slots are its parameters
+ * followed by the names its body binds with `let` (blocks do not open scopes, nested
+ * functions do), and any other name is a global. The compiler works this out itself instead
+ * of reading the Resolver's annotations, which may be missing or demoted on shared trees.
+ *
+ * Every statement leaves exactly one value on the operand stack and every block leaves the
+ * value of its last statement, so a program or function body ends with its result on top.
+ * Calls whose value is the value of the enclosing function become TAIL_CALL.
+ */
+public final class Compiler {
+    private static final int MAX_U8 = 0xFF;
+    private static final int MAX_U16 = 0xFFFF;
+
+    private final List<EvaluatorObject> constants = new ArrayList<>();
+    private final Map<Long, Integer> integerConstants = new HashMap<>();
+    private final List<CompiledFunction> functions = new ArrayList<>();
+    private final List<String> globalNames = new ArrayList<>();
+    private final Map<String, Integer> globals = new HashMap<>();
+
+    // The program's top level first, innermost function last
+    private final List<Unit> units = new ArrayList<>();
+
+    private Compiler() {
+    }
+
+    /**
+     * @param program A program without parser errors
+     * @return Its bytecode
+     * @throws IllegalStateException If the program exceeds an operand limit, such as more
+     *                               than 65536 globals or 256 slots in one function
+     */
+    public static Bytecode compile(Program program) {
+        Compiler compiler = new Compiler();
+        Unit main = new Unit(null, new String[0], false, null);
+        compiler.units.add(main);
+        compiler.statements(program.getStatements(), false);
+        compiler.emit(Opcode.RETURN_VALUE, -1);
+        return new Bytecode(main.finish(0),
+                compiler.constants.toArray(new EvaluatorObject[0]),
+                compiler.functions.toArray(new CompiledFunction[0]),
+                compiler.globalNames.toArray(new String[0]));
+    }
+
+    /**
+     * Compiles a statement list to code that leaves the value of the last statement,
+     * or NULL for an empty list
+     */
+    private void statements(List<Statement> statements, boolean tail) {
+        if (statements.isEmpty()) {
+            emit(Opcode.NULL, 1);
+            return;
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            boolean last = i == statements.size() - 1;
+            statement(statements.get(i), tail && last);
+            if (!last) {
+                emit(Opcode.POP, -1);
+            }
+        }
+    }
+
+    private void statement(Statement statement, boolean tail) {
+        if (statement instanceof LetStatement) {
+            LetStatement let = (LetStatement) statement;
+            expression(let.getValue(), false);
+            bind(let.getName().getValue());
+        } else if (statement instanceof ReturnStatement) {
+            expression(((ReturnStatement) statement).getReturnValue(), inFunction());
+            emit(Opcode.RETURN_VALUE, -1);
+            // Never falls through, but the statement still counts as leaving a value
+            unit().adjust(1);
+        } else if (statement instanceof ExpressionStatement) {
+            expression(((ExpressionStatement) statement).getExpression(), tail);
+        } else {
+            emit(Opcode.NULL, 1);
+        }
+    }
+
+    private void block(BlockStatement block, boolean tail) {
+        statements(block.getStatements(), tail);
+    }
+
+    /**
+     * @param tail Whether the expression's value becomes the value of the enclosing function
+     */
+    private void expression(Expression expression, boolean tail) {
+        if (expression instanceof IntegerLiteral) {
+            emit(Opcode.CONSTANT, 1);
+            u16(integerConstant(((IntegerLiteral) expression).getValue()), "constants");
+        } else if (expression instanceof BooleanLiteral) {
+            emit(((BooleanLiteral) expression).getValue() ? Opcode.TRUE : Opcode.FALSE, 1);
+        } else if (expression instanceof Identifier) {
+            load(((Identifier) expression).getValue());
+        } else if (expression instanceof PrefixExpression) {
+            PrefixExpression prefix = (PrefixExpression) expression;
+            expression(prefix.getRight(), false);
+            emit(prefixOpcode(prefix.getOperator()), 0);
+        } else if (expression instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression) expression;
+            expression(infix.getLeft(), false);
+            if (infix.getRight() instanceof IntegerLiteral) {
+                // Superinstruction for the common `n - 1`, `n < 2`: one dispatch instead of two
+                emit(Opcode.withConstant(infixOpcode(infix.getOperator())), 0);
+                u16(integerConstant(((IntegerLiteral) infix.getRight()).getValue()), "constants");
+            } else {
+                expression(infix.getRight(), false);
+                emit(infixOpcode(infix.getOperator()), -1);
+            }
+        } else if (expression instanceof IfExpression) {
+            ifExpression((IfExpression) expression, tail);
+        } else if (expression instanceof FunctionLiteral) {
+            function((FunctionLiteral) expression);
+        } else if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            expression(call.getFunction(), false);
+            List<Expression> arguments = call.getArguments() == null ? List.of() : call.getArguments();
+            for (Expression argument : arguments) {
+                expression(argument, false);
+            }
+            emit(tail && inFunction() ? Opcode.TAIL_CALL : Opcode.CALL, -arguments.size());
+            u8(arguments.size(), "arguments");
+        } else {
+            emit(Opcode.NULL, 1);
+        }
+    }
+
+    private void ifExpression(IfExpression ifExpression, boolean tail) {
+        expression(ifExpression.getCondition(), false);
+        int jumpIfFalse = jump(Opcode.JUMP_IF_FALSE, -1);
+        block(ifExpression.getConsequence(), tail);
+        if (tail && inFunction()) {
+            // The value is returned right after the if anyway, so return without the jump
+            emit(Opcode.RETURN_VALUE, -1);
+            patch(jumpIfFalse);
+            if (ifExpression.getAlternative() != null) {
+                block(ifExpression.getAlternative(), true);
+            } else {
+                emit(Opcode.NULL, 1);
+            }
+            return;
+        }
+        int jumpToEnd = jump(Opcode.JUMP, 0);
+
+        patch(jumpIfFalse);
+        unit().adjust(-1); // only one of the branches leaves its value
+        if (ifExpression.getAlternative() != null) {
+            block(ifExpression.getAlternative(), tail);
+        } else {
+            emit(Opcode.NULL, 1);
+        }
+        patch(jumpToEnd);
+    }
+
+    private void function(FunctionLiteral literal) {
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<Identifier> parameters = literal.getParameters() == null ? List.of() : literal.getParameters();
+        // One slot per parameter; a repeated name refers to its last parameter, which is the
+        // one the evaluator's binding order leaves in place
+        for (Identifier parameter : parameters) {
+            slots.put(parameter.getValue(), names.size());
+            names.add(parameter.getValue());
+        }
+        collectLets(literal.getBody(), slots, names);
+        if (names.size() > MAX_U8 + 1) {
+            throw new IllegalStateException("too many parameters and locals in one function: " + names.size());
+        }
+
+        Unit unit = new Unit(slots, names.toArray(new String[0]), containsFunction(literal.getBody()), literal);
+        units.add(unit);
+        block(literal.getBody(), true);
+        emit(Opcode.RETURN_VALUE, -1);
+        units.remove(units.size() - 1);
+
+        functions.add(unit.finish(parameters.size()));
+        emit(Opcode.CLOSURE, 1);
+        u16(functions.size() - 1, "functions");
+    }
+
+    /**
+     * Loads a name: from the current frame, from an enclosing function's scope, or from a global
+     */
+    private void load(String name) {
+        int innermost = units.size() - 1;
+        for (int i = innermost; i > 0; i--) {
+            Integer slot = units.get(i).slots.get(name);
+            if (slot == null) {
+                continue;
+            }
+            Unit unit = unit();
+            if (i == innermost && !unit.usesScope) {
+                emit(Opcode.GET_LOCAL, 1);
+                u8(slot, "slots");
+            } else {
+                // The frame's scope chain starts at its own scope, or at its closure's
+                // parent scope when the slots are on the stack
+                int hops = innermost - i - (unit.usesScope ? 0 : 1);
+                emit(Opcode.GET_SCOPE, 1);
+                u8(hops, "nesting depth");
+                u8(slot, "slots");
+            }
+            return;
+        }
+        emit(Opcode.GET_GLOBAL, 1);
+        u16(global(name), "globals");
+    }
+
+    /**
+     * Stores the value on top of the stack under a let name, leaving it on the stack
+     */
+    private void bind(String name) {
+        Unit unit = unit();
+        if (!inFunction()) {
+            emit(Opcode.SET_GLOBAL, 0);
+            u16(global(name), "globals");
+        } else {
+            emit(unit.usesScope ? Opcode.SET_SCOPE : Opcode.SET_LOCAL, 0);
+            u8(unit.slots.get(name), "slots");
+        }
+    }
+
+    private int global(String name) {
+        Integer index = globals.get(name);
+        if (index == null) {
+            index = globalNames.size();
+            globals.put(name, index);
+            globalNames.add(name);
+        }
+        return index;
+    }
+
+    private int integerConstant(long value) {
+        Integer index = integerConstants.get(value);
+        if (index == null) {
+            index = constants.size();
+            integerConstants.put(value, index);
+            constants.add(IntegerObj.valueOf(value));
+        }
+        return index;
+    }
+
+    private static byte prefixOpcode(Operator operator) {
+        switch (operator) {
+            case NEGATE:
+                return Opcode.MINUS;
+            case NOT:
+                return Opcode.BANG;
+            default:
+                throw new IllegalStateException("unknown prefix operator: " + operator);
+        }
+    }
+
+    private static byte infixOpcode(Operator operator) {
+        switch (operator) {
+            case ADD:
+                return Opcode.ADD;
+            case SUBTRACT:
+                return Opcode.SUB;
+            case MULTIPLY:
+                return Opcode.MUL;
+            case DIVIDE:
+                return Opcode.DIV;
+            case EQUAL:
+                return Opcode.EQUAL;
+            case NOT_EQUAL:
+                return Opcode.NOT_EQUAL;
+            case LESS_THAN:
+                return Opcode.LESS_THAN;
+            case GREATER_THAN:
+                return Opcode.GREATER_THAN;
+            default:
+                throw new IllegalStateException("unknown infix operator: " + operator);
+        }
+    }
+
+    private boolean inFunction() {
+        return units.size() > 1;
+    }
+
+    private Unit unit() {
+        return units.get(units.size() - 1);
+    }
+
+    private void emit(byte opcode, int stackEffect) {
+        Unit unit = unit();
+        unit.code.write(opcode);
+        unit.adjust(stackEffect);
+    }
+
+    private void u8(int operand, String what) {
+        if (operand > MAX_U8) {
+            throw new IllegalStateException("too many " + what + ": " + operand);
+        }
+        unit().code.write(operand);
+    }
+
+    private void u16(int operand, String what) {
+        if (operand > MAX_U16) {
+            throw new IllegalStateException("too many " + what + ": " + operand);
+        }
+        unit().code.write(operand >>> 8);
+        unit().code.write(operand);
+    }
+
+    /**
+     * Emits a jump with a placeholder offset
+     * @return The position of the offset, for patch()
+     */
+    private int jump(byte opcode, int stackEffect) {
+        emit(opcode, stackEffect);
+        int position = unit().code.size();
+        u16(0, "code");
+        return position;
+    }
+
+    /**
+     * Points a jump at the next instruction to be emitted
+     */
+    private void patch(int position) {
+        Unit unit = unit();
+        int offset = unit.code.size() - (position + 2);
+        if (offset > MAX_U16) {
+            throw new IllegalStateException("jump too long: " + offset + " bytes");
+        }
+        unit.patches.add(new int[]{position, offset});
+    }
+
+    /**
+     * Finds the lets that bind in the scope of the function being compiled,
+     * without entering nested function literals
+     */
+    private static void collectLets(Node node, Map<String, Integer> slots, List<String> names) {
+        if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            collectLets(let.getValue(), slots, names);
+            if (!slots.containsKey(let.getName().getValue())) {
+                slots.put(let.getName().getValue(), names.size());
+                names.add(let.getName().getValue());
+            }
+        } else if (node instanceof ReturnStatement) {
+            collectLets(((ReturnStatement) node).getReturnValue(), slots, names);
+        } else if (node instanceof ExpressionStatement) {
+            collectLets(((ExpressionStatement) node).getExpression(), slots, names);
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) {
+                collectLets(statement, slots, names);
+            }
+        } else if (node instanceof PrefixExpression) {
+            collectLets(((PrefixExpression) node).getRight(), slots, names);
+        } else if (node instanceof InfixExpression) {
+            collectLets(((InfixExpression) node).getLeft(), slots, names);
+            collectLets(((InfixExpression) node).getRight(), slots, names);
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            collectLets(ifExpression.getCondition(), slots, names);
+            collectLets(ifExpression.getConsequence(), slots, names);
+            collectLets(ifExpression.getAlternative(), slots, names);
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            collectLets(call.getFunction(), slots, names);
+            if (call.getArguments() != null) {
+                for (Expression argument : call.getArguments()) {
+                    collectLets(argument, slots, names);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether a function literal appears anywhere under node
+     */
+    private static boolean containsFunction(Node node) {
+        if (node instanceof FunctionLiteral) {
+            return true;
+        } else if (node instanceof LetStatement) {
+            return containsFunction(((LetStatement) node).getValue());
+        } else if (node instanceof ReturnStatement) {
+            return containsFunction(((ReturnStatement) node).getReturnValue());
+        } else if (node instanceof ExpressionStatement) {
+            return containsFunction(((ExpressionStatement) node).getExpression());
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) {
+                if (containsFunction(statement)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof PrefixExpression) {
+            return containsFunction(((PrefixExpression) node).getRight());
+        } else if (node instanceof InfixExpression) {
+            return containsFunction(((InfixExpression) node).getLeft())
+                    || containsFunction(((InfixExpression) node).getRight());
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            return containsFunction(ifExpression.getCondition())
+                    || containsFunction(ifExpression.getConsequence())
+                    || containsFunction(ifExpression.getAlternative());
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            if (containsFunction(call.getFunction())) {
+                return true;
+            }
+            if (call.getArguments() != null) {
+                for (Expression argument : call.getArguments()) {
+                    if (containsFunction(argument)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The function, or program top level, being compiled
+     */
+    private static final class Unit {
+        final Map<String, Integer> slots; // null at the top level
+        final String[] slotNames;
+        final boolean usesScope;
+        final FunctionLiteral literal;
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        final List<int[]> patches = new ArrayList<>();
+        int depth;
+        int maxDepth;
+
+        Unit(Map<String, Integer> slots, String[] slotNames, boolean usesScope, FunctionLiteral literal) {
+            this.slots = slots;
+            this.slotNames = slotNames;
+            this.usesScope = usesScope;
+            this.literal = literal;
+        }
+
+        void adjust(int stackEffect) {
+            depth += stackEffect;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        CompiledFunction finish(int numParameters) {
+            byte[] bytes = code.toByteArray();
+            for (int[] patch : patches) {
+                bytes[patch[0]] = (byte) (patch[1] >>> 8);
+                bytes[patch[0] + 1] = (byte) patch[1];
+            }
+            return new CompiledFunction(bytes, numParameters, slotNames, usesScope, maxDepth, literal);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package main.java.com.yourproject.compiler;
+
+
+/**
+ * The instruction set of the virtual machine.
+ *
+ * Every instruction is one opcode byte followed by its operands, big-endian. The comment on
+ * each opcode lists its operands and what it does to the operand stack.
+ */
+public final class Opcode {
+    public static final byte CONSTANT = 0;        // u16 constant index    -> value
+    public static final byte TRUE = 1;            //                       -> TRUE
+    public static final byte FALSE = 2;           //                       -> FALSE
+    public static final byte NULL = 3;            //                       -> NULL
+    public static final byte POP = 4;             // value ->
+
+    public static final byte ADD = 5;             // left right -> result
+    public static final byte SUB = 6;
+    public static final byte MUL = 7;
+    public static final byte DIV = 8;
+    public static final byte EQUAL = 9;
+    public static final byte NOT_EQUAL = 10;
+    public static final byte LESS_THAN = 11;
+    public static final byte GREATER_THAN = 12;
+    public static final byte MINUS = 13;          // value -> -value
+    public static final byte BANG = 14;           // value -> !value
+
+    public static final byte JUMP = 15;           // u16 forward offset from the next instruction
+    public static final byte JUMP_IF_FALSE = 16;  // u16 forward offset; value ->, jumps unless truthy
+
+    public static final byte GET_GLOBAL = 17;     // u16 global index      -> value
+    public static final byte SET_GLOBAL = 18;     // u16 global index      value -> value
+    public static final byte GET_LOCAL = 19;      // u8 slot in the frame  -> value
+    public static final byte SET_LOCAL = 20;      // u8 slot in the frame  value -> value
+    public static final byte GET_SCOPE = 21;      // u8 hops, u8 slot      -> value
+    public static final byte SET_SCOPE = 22;      // u8 slot in the frame's own scope  value -> value
+
+    public static final byte CLOSURE = 23;        // u16 function index    -> closure
+    public static final byte CALL = 24;           // u8 argument count     callee args... -> result
+    public static final byte TAIL_CALL = 25;      // u8 argument count     callee args... -> (replaces the frame)
+    public static final byte RETURN_VALUE = 26;   // value -> (leaves the frame)
+
+    // An infix operator whose right operand is an integer constant, in the order of ADD..GREATER_THAN
+    public static final byte ADD_CONSTANT = 27;   // u16 constant index    left -> result
+    public static final byte SUB_CONSTANT = 28;
+    public static final byte MUL_CONSTANT = 29;
+    public static final byte DIV_CONSTANT = 30;
+    public static final byte EQUAL_CONSTANT = 31;
+    public static final byte NOT_EQUAL_CONSTANT = 32;
+    public static final byte LESS_THAN_CONSTANT = 33;
+    public static final byte GREATER_THAN_CONSTANT = 34;
+
+    private static final String[] NAMES = {
+            "CONSTANT", "TRUE", "FALSE", "NULL", "POP",
+            "ADD", "SUB", "MUL", "DIV", "EQUAL", "NOT_EQUAL", "LESS_THAN", "GREATER_THAN", "MINUS", "BANG",
+            "JUMP", "JUMP_IF_FALSE",
+            "GET_GLOBAL", "SET_GLOBAL", "GET_LOCAL", "SET_LOCAL", "GET_SCOPE", "SET_SCOPE",
+            "CLOSURE", "CALL", "TAIL_CALL", "RETURN_VALUE",
+            "ADD_CONSTANT", "SUB_CONSTANT", "MUL_CONSTANT", "DIV_CONSTANT",
+            "EQUAL_CONSTANT", "NOT_EQUAL_CONSTANT", "LESS_THAN_CONSTANT", "GREATER_THAN_CONSTANT",
+    };
+
+    // Operand widths in bytes, per opcode
+    private static final int[][] OPERANDS = {
+            {2}, {}, {}, {}, {},
+            {}, {}, {}, {}, {}, {}, {}, {}, {}, {},
+            {2}, {2},
+            {2}, {2}, {1}, {1}, {1, 1}, {1},
+            {2}, {1}, {1}, {},
+            {2}, {2}, {2}, {2}, {2}, {2}, {2}, {2},
+    };
+
+    private Opcode() {
+    }
+
+    /**
+     * @param opcode An infix opcode, ADD..GREATER_THAN
+     * @return The same operator with an integer constant as its right operand
+     */
+    public static byte withConstant(byte opcode) {
+        return (byte) (opcode + ADD_CONSTANT - ADD);
+    }
+
+    /**
+     * @param opcode One of ADD_CONSTANT..GREATER_THAN_CONSTANT
+     * @return The plain infix opcode
+     */
+    public static byte withoutConstant(byte opcode) {
+        return (byte) (opcode - ADD_CONSTANT + ADD);
+    }
+
+    /**
+     * @param opcode An opcode byte
+     * @return Its mnemonic
+     */
+    public static String name(byte opcode) {
+        return opcode >= 0 && opcode < NAMES.length ? NAMES[opcode] : "UNKNOWN_" + opcode;
+    }
+
+    /**
+     * @param opcode An opcode byte
+     * @return The width in bytes of each of its operands
+     */
+    public static int[] operandWidths(byte opcode) {
+        return OPERANDS[opcode].clone();
+    }
+
+    /**
+     * @param opcode An opcode byte
+     * @return The size of the whole instruction in bytes
+     */
+    public static int length(byte opcode) {
+        int length = 1;
+        for (int width : OPERANDS[opcode]) {
+            length += width;
+        }
+        return length;
+    }
+}
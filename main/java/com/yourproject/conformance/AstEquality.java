@@ -0,0 +1,145 @@
+package main.java.com.yourproject.conformance;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.tokens.Token;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Structural comparison of two ASTs: same node classes, same tokens (type and literal),
+ * same values and the same children in the same order.
+ */
+final class AstEquality {
+    private AstEquality() {
+    }
+
+    /**
+     * @return null if the trees are equal, otherwise a description of the first difference
+     */
+    static String difference(Node expected, Node actual) {
+        return compare(expected, actual, "program");
+    }
+
+    private static String compare(Node expected, Node actual, String path) {
+        if (expected == null || actual == null) {
+            return expected == actual ? null : path + ": " + expected + " vs " + actual;
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return path + ": " + expected.getClass().getSimpleName() + " vs " + actual.getClass().getSimpleName();
+        }
+
+        if (expected instanceof Program) {
+            return compareLists(((Program) expected).getStatements(), ((Program) actual).getStatements(), path);
+        }
+        if (expected instanceof LetStatement) {
+            LetStatement e = (LetStatement) expected, a = (LetStatement) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compare(e.getName(), a.getName(), path + ".name"),
+                    compare(e.getValue(), a.getValue(), path + ".value"));
+        }
+        if (expected instanceof ReturnStatement) {
+            ReturnStatement e = (ReturnStatement) expected, a = (ReturnStatement) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compare(e.getReturnValue(), a.getReturnValue(), path + ".value"));
+        }
+        if (expected instanceof ExpressionStatement) {
+            ExpressionStatement e = (ExpressionStatement) expected, a = (ExpressionStatement) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compare(e.getExpression(), a.getExpression(), path + ".expression"));
+        }
+        if (expected instanceof BlockStatement) {
+            BlockStatement e = (BlockStatement) expected, a = (BlockStatement) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compareLists(e.getStatements(), a.getStatements(), path));
+        }
+        if (expected instanceof Identifier) {
+            Identifier e = (Identifier) expected, a = (Identifier) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    value(e.getValue(), a.getValue(), path));
+        }
+        if (expected instanceof IntegerLiteral) {
+            IntegerLiteral e = (IntegerLiteral) expected, a = (IntegerLiteral) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    value(e.getValue(), a.getValue(), path));
+        }
+        if (expected instanceof BooleanLiteral) {
+            BooleanLiteral e = (BooleanLiteral) expected, a = (BooleanLiteral) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    value(e.getValue(), a.getValue(), path));
+        }
+        if (expected instanceof PrefixExpression) {
+            PrefixExpression e = (PrefixExpression) expected, a = (PrefixExpression) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    value(e.getOperator(), a.getOperator(), path + ".operator"),
+                    compare(e.getRight(), a.getRight(), path + ".right"));
+        }
+        if (expected instanceof InfixExpression) {
+            InfixExpression e = (InfixExpression) expected, a = (InfixExpression) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    value(e.getOperator(), a.getOperator(), path + ".operator"),
+                    compare(e.getLeft(), a.getLeft(), path + ".left"),
+                    compare(e.getRight(), a.getRight(), path + ".right"));
+        }
+        if (expected instanceof IfExpression) {
+            IfExpression e = (IfExpression) expected, a = (IfExpression) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compare(e.getCondition(), a.getCondition(), path + ".condition"),
+                    compare(e.getConsequence(), a.getConsequence(), path + ".consequence"),
+                    compare(e.getAlternative(), a.getAlternative(), path + ".alternative"));
+        }
+        if (expected instanceof FunctionLiteral) {
+            FunctionLiteral e = (FunctionLiteral) expected, a = (FunctionLiteral) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compareLists(e.getParameters(), a.getParameters(), path + ".parameters"),
+                    compare(e.getBody(), a.getBody(), path + ".body"));
+        }
+        if (expected instanceof CallExpression) {
+            CallExpression e = (CallExpression) expected, a = (CallExpression) actual;
+            return first(token(e.getToken(), a.getToken(), path),
+                    compare(e.getFunction(), a.getFunction(), path + ".function"),
+                    compareLists(e.getArguments(), a.getArguments(), path + ".arguments"));
+        }
+        return path + ": no comparison for " + expected.getClass().getSimpleName();
+    }
+
+    private static String compareLists(List<? extends Node> expected, List<? extends Node> actual, String path) {
+        if (expected == null || actual == null) {
+            return expected == actual ? null : path + ": list " + expected + " vs " + actual;
+        }
+        if (expected.size() != actual.size()) {
+            return path + ": " + expected.size() + " vs " + actual.size() + " elements";
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            String difference = compare(expected.get(i), actual.get(i), path + "[" + i + "]");
+            if (difference != null) {
+                return difference;
+            }
+        }
+        return null;
+    }
+
+    private static String token(Token expected, Token actual, String path) {
+        if (expected.getType() != actual.getType() || !expected.getLiteral().equals(actual.getLiteral())) {
+            return path + ": token " + expected + " vs " + actual;
+        }
+        return null;
+    }
+
+    private static String value(Object expected, Object actual, String path) {
+        return Objects.equals(expected, actual) ? null : path + ": " + expected + " vs " + actual;
+    }
+
+    private static String first(String... differences) {
+        for (String difference : differences) {
+            if (difference != null) {
+                return difference;
+            }
+        }
+        return null;
+    }
+}
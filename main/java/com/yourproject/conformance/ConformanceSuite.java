@@ -0,0 +1,788 @@
+package main.java.com.yourproject.conformance;
+
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.codec.AstReader;
+import main.java.com.yourproject.ast.expressions.CallExpression;
+import main.java.com.yourproject.ast.expressions.Expression;
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+import main.java.com.yourproject.ast.expressions.IfExpression;
+import main.java.com.yourproject.ast.expressions.InfixExpression;
+import main.java.com.yourproject.ast.codec.AstWriter;
+import main.java.com.yourproject.ast.flat.FlatAst;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.ast.statements.ExpressionStatement;
+import main.java.com.yourproject.ast.statements.LetStatement;
+import main.java.com.yourproject.ast.statements.Statement;
+import main.java.com.yourproject.closures.ClosureCompiler;
+import main.java.com.yourproject.compiler.Compiler;
+import main.java.com.yourproject.jit.Jit;
+import main.java.com.yourproject.memo.Memoizer;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.objects.ReturnObj;
+import main.java.com.yourproject.optimizer.Optimizer;
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.lexer.MappedLexer;
+import main.java.com.yourproject.lexer.StreamingLexer;
+import main.java.com.yourproject.lexer.TokenSource;
+import main.java.com.yourproject.nodes.NodeInterpreter;
+import main.java.com.yourproject.parser.IncrementalParser;
+import main.java.com.yourproject.parser.ParallelParser;
+import main.java.com.yourproject.parser.ParseCache;
+import main.java.com.yourproject.parser.Parser;
+import main.java.com.yourproject.runtime.CallSiteCache;
+import main.java.com.yourproject.runtime.Environment;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+import main.java.com.yourproject.vm.VirtualMachine;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Self-checking suite that runs every program in PROGRAMS (plus a large generated one)
+ * through the alternative front and back ends and compares them with the reference
+ * Lexer + Parser pipeline and the Evaluator.
+ * Run with: java main.java.com.yourproject.conformance.ConformanceSuite
+ * Exits with status 1 if any check fails.
+ */
+public class ConformanceSuite {
+    static final String[] PROGRAMS = {
+            "5",
+            "-7; !true; !!false",
+            "let a = 5; let b = a * 2 + 3; b",
+            "1 + 2 * 3 - 4 / 2",
+            "(1 + 2) * -(3 - 4)",
+            "1 < 2 == true; 3 > 4 != false",
+            "if (1 < 2) { 10 } else { 20 }",
+            "if (false) { 1 }",
+            "return 42; 7",
+            "let add = fn(x, y) { x + y }; add(1, 2 * 3)",
+            "let apply = fn(f, v) { f(v) }; apply(fn(n) { n * n }, 9)",
+            "fn() { return 0; }",
+            "let outer = fn(a) { fn(b) { a + b } }; outer(1)(2)",
+            "let max = fn(a, b) { if (a > b) { return a; } b }; max(3, 8)",
+            "let x = 2147483647; let y = 0; x",
+            "if (true) { if (false) { 1 } else { let z = 3; z * z } }",
+            "let q = 10; let r = q / 0; r",
+            "true + 1; 5",
+            "-true",
+            "!5 == false; true == true; 1 == true",
+            "let x = 2; let y = x * 3 + 1; if (y > 5) { y } else { 0 }",
+            "let big = 2147483647 * 2; big + 1",
+            "let z = 1; let z = z + 2; z * 10",
+            "let k = 4; let f = fn(a) { a + k }; let k = 5; f(1)",
+            "if (1) { 10 }; if (0 > 1) { 10 }",
+            "let t = !(1 < 2); if (t) { 1 } else { if (!t) { 2 } else { 3 } }",
+            "let n = 3; return n * n; n",
+            "let u = 7; u - -u * (u / 2) == 28",
+            "undefinedName + 2 * 3",
+            "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(15)",
+            "let counter = fn(start) { let step = 2; fn(k) { start + step * k } }; counter(10)(5)",
+            "let f = fn(c) { if (c) { let v = 1; } v }; let v = 99; f(false) + f(true)",
+            "let g = fn(a, a) { a }; g(1, 2)",
+            "let h = fn(x) { x }; h(1, 2)",
+            "5(1)",
+            "let adder = fn(a) { fn(b) { fn(c) { a + b + c } } }; adder(1)(2)(3)",
+            "let shadow = fn(x) { let x = x * 2; x }; shadow(21)",
+            "let early = fn() { return 1; 2 }; early() + 10",
+            "let base = 5; let later = fn() { after + base }; let after = 7; later()",
+            "let rec = fn(n) { if (n == 0) { 0 } else { 1 + rec(n - 1) } }; rec(200)",
+            "let twice = fn(f, x) { f(f(x)) }; let inc = fn(x) { x + 1 }; twice(inc, 5) * twice(fn(y) { y * y }, 3)",
+            "let err = fn() { missing }; let z = err(); z",
+            "let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + n) } }; loop(150, 0)",
+            "let even = fn(n) { if (n == 0) { true } else { return odd(n - 1); } }; let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } }; even(101)",
+            "let notTail = fn(n) { if (n == 0) { 0 } else { 1 + notTail(n - 1) } }; let viaLet = fn(n) { let r = notTail(n); r }; viaLet(50)",
+            "let wrong = fn(n) { if (n == 0) { 0 } else { wrong(n - 1, 1) } }; wrong(3)",
+            "let callsInt = fn(n) { if (n == 0) { 5(1) } else { callsInt(n - 1) } }; callsInt(4)",
+            "let make = fn() { let x = 1; let get = fn() { x }; let x = 2; get() }; make()",
+            "let keep = fn(n) { let g = fn() { n }; if (n == 0) { g() } else { keep(n - 1) } }; keep(100)",
+            "let pick = fn(a, b) { fn(c) { if (c) { a } else { b } } }; let p = pick(1, 2); p(true) * 10 + p(false)",
+            "let late = fn() { let y = z; let z = 5; y }; let z = 3; late()",
+            "let f = fn(x) { x }; f",
+            "let cmp = fn(a, b) { a == b }; cmp(cmp, cmp) == cmp(1, 1); cmp(true, 1) != false",
+            "if (if (false) { 1 }) { 2 } else { 3 }",
+            "let sign = fn(a) { if (a > 0) { if (a > 9) { 2 } else { 1 } } else { if (a == 0) { 0 } } }; sign(15) * 100 + sign(4) * 10 + sign(0)",
+            "let none = fn(a) { if (a < 0) { 1 } }; none(5)",
+            "let inc = fn(b) { b + 1 }; inc(true)",
+            "let same = fn(b) { b == 1 }; same(true) == (true != 1); (-3 / 2) * 2 - 1 > 3",
+            "let parity = fn(n, p) { if (n == 0) { p } else { parity(n - 1, !p) } }; parity(7, true) == parity(2, false)",
+            "let poly = fn(x) { let sq = x * x; let big = sq > 50; if (big) { return -sq; } sq + 1 }; poly(3) + poly(9) + poly(0 - 8)",
+            "let flip = fn(x) { if (x == true) { 1 } else { 2 } }; flip(true) * 100 + flip(false) * 10 + flip(5)",
+            "let id = fn(x) { x }; id(1) + id(2); id(true)",
+            "let half = fn(n) { 100 / n }; half(4) + half(0)",
+            "let r = fn(n) { if (n < 1) { 0 } else { r(n - 1) + 1 } }; let s = r; let r = fn(n) { 1000 }; s(5)",
+            "let t = fn(a, b) { if (a) { b } else { -b } }; t(true, 3) + t(false, 4) + t(1, 5)",
+            "let add = fn(a, b) { a + b * 2 }; add(1, 2) + add(3, 4); add(5, true)",
+            "let eq = fn(a, b) { a == b }; let lt = fn(a, b) { a < b }; eq(1, 1) == eq(true, true); lt(1, 2); lt(false, 2)",
+            "let m = fn(a, b) { (a - b) * (a + b) / 2 }; m(9, 3) + m(4, 5); m(missing, 1)",
+            "let suma = fn(a, b) { a + b }; let dobleSuma = fn(x, y) { suma(x, y) * 2 }; dobleSuma(3, 7)",
+            "let function = 4; let functions = 3; let fnx = 2; function * functions * fnx",
+            "let walk = fn(n, acc) { let next = acc + n; if (n == 0) { next } else { walk(n - 1, next) } }; walk(50, 0)",
+            "let hop = fn(n, acc) { if (n == 0) { acc } else { skip(n, acc, 2) } }; let skip = fn(n, acc, b) { let c = acc + b; hop(n - 1, c) }; hop(6, 0)",
+            "let k = 1; let h = fn(x) { x + k }; let f = fn(x) { h(x) }; let a = f(1); let k = 2; a * 10 + f(1)",
+            "let p = fn(n) { if (n == 0) { 0 } else { q(n - 1) + 1 } }; let q = fn(n) { n * 2 }; let a = p(3); let q = fn(n) { n }; a * 10 + p(3)",
+            "let fact = fn(n) { if (n == 0) { 1 } else { n * fact(n - 1) } }; fact(10) + fact(10) - fact(9) * 10 + fact(20) / fact(19)",
+            "let cmp = fn(a, b) { if (a == b) { 1 } else { 0 } }; cmp(1, true) + cmp(true, true) * 10 + cmp(1, 1) * 100 + cmp(cmp, cmp)",
+            "let grab = fn(a, b) { let s = a + b; fn(c) { a * s + c } }; let ga = grab(1, 2); let gb = grab(3, 4); ga(1) * 100 + gb(2)",
+            "let g = fn(x) { x + 1 }; let call = fn(x) { g(x) }; let a = call(1); let g = fn(x) { x * 10 }; a * 100 + call(2)",
+            "let g = fn(x) { x + 1 }; let call = fn(x) { g(x) * 1 }; let a = call(1); let g = 5; a * 100 + call(2)",
+            "let ap = fn(f, x) { f(x) * 1 }; let add = fn(a) { fn(b) { a + b } }; ap(add(1), 1) + ap(add(2), 1) * 10 + ap(add(1), 3) * 100",
+            "let ap = fn(f, x) { f(x) * 1 }; ap(fn(x) { x + 1 }, 1) + ap(fn(x) { x * 2 }, 2) + ap(fn(x) { -x }, 3) + ap(fn(x) { x / 2 }, 8) + ap(fn(x) { x }, 5) + ap(fn(x) { 0 }, 6)",
+            "let ap = fn(f, x) { f(x) * 1 }; let inc = fn(x) { x + 1 }; ap(inc, 1) + ap(inc, 2, 3); ap(3, 1)",
+    };
+    // Deep enough that a Java frame per Monkey call would overflow the default stack
+    private static final String[][] DEEP_TAIL_CALLS = {
+            {"let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + 1) } }; loop(1000000, 0)", "INTEGER 1000000"},
+            {"let loop = fn(n) { if (n > 0) { return loop(n - 1); } 7 }; loop(1000000)", "INTEGER 7"},
+            {"let even = fn(n) { if (n == 0) { true } else { odd(n - 1) } }; let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } }; odd(500001)", "BOOLEAN true"},
+    };
+    private static final int RANDOM_PROGRAMS = 2000;
+    // What the incremental edits insert: whole statements, and fragments that may break the program
+    private static final String[] STATEMENTS = {
+            "let y = 2;", "let z = fn(a) { a * 2 };", "z(4);", "let w = if (y < 1) { 5 } else { 6 };",
+            "return 3;", "\nlet v = fn(b) { let c = b; c + 1 };\n",
+    };
+    private static final String[] EDIT_FRAGMENTS = {
+            ";", "\n", " ", "{", "}", "(", ")", ",", "x", "1", "-", "==", "let", "return",
+            "fn(b) { b }", "; let q = ",
+    };
+    private static final int RANDOM_TOKEN_STREAMS = 1000;
+    // What random lexer input is made of: keywords and names, numbers, every operator, and
+    // characters that start no token, including non-ASCII ones and a surrogate pair
+    private static final String[] LEXER_FRAGMENTS = {
+            "let", "fn", "return", "if", "else", "true", "false", "letter", "x", "_a9", "Zz",
+            "0", "42", "1234567", "=", "==", "!", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/",
+            ";", ",", "(", ")", "{", "}", " ", "  ", "\t", "\n", "\r\n", "#", "\"", "\u00e9", "\u4e2d",
+            "\ud83d\ude00",
+    };
+
+    private final List<String> failures = new ArrayList<>();
+    private int checks;
+
+    public static void main(String[] args) {
+        ConformanceSuite suite = new ConformanceSuite();
+        List<String> programs = new ArrayList<>(List.of(PROGRAMS));
+        programs.add(generateProgram(2000));
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_PROGRAMS; i++) {
+            programs.add(randomProgram(random));
+        }
+
+        for (String source : programs) {
+            suite.codecRoundTrip(source);
+            suite.flatRoundTrip(source);
+            suite.optimizerDifferential(source);
+            suite.resolverDifferential(source);
+            suite.vmDifferential(source);
+            suite.jitDifferential(source);
+            suite.nodesDifferential(source);
+            suite.closuresDifferential(source);
+            suite.memoDifferential(source);
+            suite.inlineCacheRerun(source);
+        }
+        suite.memoThreads();
+        suite.inlineCacheStates();
+        suite.incrementalEdits(List.of(PROGRAMS), 40, new Random(7));
+        suite.incrementalEdits(List.of(generateProgram(300)), 2000, new Random(11));
+        suite.parallelParses();
+        suite.tokenStreams(new Random(13));
+
+        for (String[] program : DEEP_TAIL_CALLS) {
+            suite.check("deep tail calls", program[0], program[1], outcome(parse(program[0])));
+            suite.check("vm deep tail calls", program[0], program[1], vmOutcome(parse(program[0])));
+            suite.check("nodes deep tail calls", program[0], program[1], nodesOutcome(parse(program[0]), new NodeInterpreter()));
+            suite.check("closures deep tail calls", program[0], program[1], closuresOutcome(parse(program[0]), new ClosureCompiler()));
+            suite.check("jit deep tail calls", program[0], program[1], jitOutcome(parse(program[0]), new Jit(0)));
+        }
+
+        System.out.printf("%d checks, %d failures%n", suite.checks, suite.failures.size());
+        suite.failures.forEach(failure -> System.out.println("  FAIL " + failure));
+        if (!suite.failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Encodes the parsed program, decodes it again and compares the two trees
+     */
+    private void codecRoundTrip(String source) {
+        Program parsed = parse(source);
+        String hash = ParseCache.digest(source);
+        try {
+            AstReader reader = new AstReader(AstWriter.write(parsed, hash));
+            check("codec hash", source, hash, reader.getSourceHash());
+            Program decoded = reader.readProgram();
+            check("codec structure", source, null, AstEquality.difference(parsed, decoded));
+            check("codec toString", source, parsed.toString(), decoded.toString());
+        } catch (Exception e) {
+            fail("codec", source, e.toString());
+        }
+    }
+
+    /**
+     * Flattens the parsed program, converts it back and compares the two trees
+     */
+    private void flatRoundTrip(String source) {
+        Program parsed = parse(source);
+        try {
+            FlatAst flat = FlatAst.from(parsed);
+            check("flat structure", source, null, AstEquality.difference(parsed, flat.toProgram()));
+            check("flat root", source, parsed.getStatements().size(), flat.cursor().childCount());
+        } catch (Exception e) {
+            fail("flat", source, e.toString());
+        }
+    }
+
+    /**
+     * Applies random edits to each source with an IncrementalParser and compares the program
+     * and errors after every edit with a full parse of the edited text. Most edits keep the
+     * program valid (new integers, statements inserted or deleted at a semicolon), so the
+     * local re-parse does the work; the rest insert or delete arbitrary fragments. An edit
+     * that leaves parser errors or unbalanced brackets (which the parser accepts at the end of
+     * the input) is undone by the next one, which takes the parser from its full-parse
+     * fallback back to chunks.
+     */
+    private void incrementalEdits(List<String> sources, int edits, Random random) {
+        for (String original : sources) {
+            IncrementalParser incremental = new IncrementalParser(original);
+            String source = original;
+            int[] undo = null;
+            String undoText = null;
+            boolean breaking = false;
+            for (int i = 0; i < edits; i++) {
+                int offset;
+                int removed;
+                String inserted;
+                int kind = breaking ? -1 : random.nextInt(10);
+                if (kind < 0) {
+                    offset = undo[0];
+                    removed = undo[1];
+                    inserted = undoText;
+                } else if (kind < 4 && source.matches("(?s).*\\d.*")) {
+                    // Replace the digits around a random digit with another integer
+                    offset = random.nextInt(source.length());
+                    while (!Character.isDigit(source.charAt(offset))) {
+                        offset = (offset + 1) % source.length();
+                    }
+                    while (offset > 0 && Character.isDigit(source.charAt(offset - 1))) {
+                        offset--;
+                    }
+                    removed = 0;
+                    while (offset + removed < source.length() && Character.isDigit(source.charAt(offset + removed))) {
+                        removed++;
+                    }
+                    inserted = String.valueOf(random.nextInt(1000));
+                } else if (kind < 6) {
+                    // Insert a statement after a semicolon
+                    offset = afterSemicolon(source, random);
+                    removed = 0;
+                    inserted = " " + STATEMENTS[random.nextInt(STATEMENTS.length)];
+                } else if (kind < 7) {
+                    // Delete up to the next semicolon
+                    offset = afterSemicolon(source, random);
+                    int semicolon = source.indexOf(';', offset);
+                    removed = semicolon < 0 ? 0 : semicolon + 1 - offset;
+                    inserted = "";
+                } else {
+                    offset = random.nextInt(source.length() + 1);
+                    removed = Math.min(random.nextInt(6), source.length() - offset);
+                    inserted = random.nextInt(3) == 0 ? "" : EDIT_FRAGMENTS[random.nextInt(EDIT_FRAGMENTS.length)];
+                }
+                undo = new int[]{offset, inserted.length()};
+                undoText = source.substring(offset, offset + removed);
+
+                String label = "edit " + i + " at " + offset + " -" + removed + " +\"" + inserted + "\" of " + original;
+                Program actual;
+                try {
+                    actual = incremental.applyEdit(offset, removed, inserted);
+                } catch (RuntimeException e) {
+                    fail("incremental edit", label, e.toString());
+                    break;
+                }
+                source = source.substring(0, offset) + inserted + source.substring(offset + removed);
+                check("incremental source", label, source, incremental.getSource());
+                Parser parser = new Parser(new Lexer(source));
+                Program expected = parser.parseProgram();
+                check("incremental structure", label, null, AstEquality.difference(expected, actual));
+                check("incremental errors", label, parser.getErrors(), incremental.getErrors());
+                breaking = kind >= 0 && (!parser.getErrors().isEmpty() || !balanced(source));
+            }
+        }
+    }
+
+    /**
+     * Parses large generated programs with a ParallelParser and compares the program and errors
+     * with a sequential parse: one that splits into slices, one with an error in a middle slice
+     * and one whose brackets do not close, which both fall back to the sequential parse
+     */
+    private void parallelParses() {
+        String large = generateProgram(2000);
+        int middle = large.indexOf("let ", large.length() / 2);
+        List<String> sources = List.of(large,
+                large.substring(0, middle) + "let = 5;\n" + large.substring(middle),
+                large.substring(0, middle) + "let open = fn(a) {\n" + large.substring(middle));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String source : sources) {
+                String label = "generated program of " + source.length() + " chars";
+                Parser parser = new Parser(new Lexer(source));
+                Program expected = parser.parseProgram();
+                ParallelParser parallel = new ParallelParser(source, pool);
+                Program actual;
+                try {
+                    actual = parallel.parseProgram();
+                } catch (RuntimeException e) {
+                    fail("parallel parse", label, e.toString());
+                    continue;
+                }
+                check("parallel structure", label, null, AstEquality.difference(expected, actual));
+                check("parallel errors", label, parser.getErrors(), parallel.getErrors());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean balanced(String source) {
+        int braces = 0;
+        int parens = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            braces += c == '{' ? 1 : c == '}' ? -1 : 0;
+            parens += c == '(' ? 1 : c == ')' ? -1 : 0;
+            if (braces < 0 || parens < 0) {
+                return false;
+            }
+        }
+        return braces == 0 && parens == 0;
+    }
+
+    /**
+     * @return The offset just behind a random semicolon, or 0
+     */
+    private static int afterSemicolon(String source, Random random) {
+        int semicolon = source.indexOf(';', random.nextInt(source.length() + 1));
+        return semicolon < 0 ? 0 : semicolon + 1;
+    }
+
+    /**
+     * Lexes random token soup with the StreamingLexer at buffer sizes 2 to 8, so that tokens
+     * and two-char operators straddle refills, and with the MappedLexer over its UTF-8 bytes,
+     * and compares the tokens with the Lexer's. The bytes are lexed once more with stray
+     * non-ASCII bytes inserted, against the Lexer over their decoding with replacement chars.
+     */
+    private void tokenStreams(Random random) {
+        for (int i = 0; i < RANDOM_TOKEN_STREAMS; i++) {
+            StringBuilder builder = new StringBuilder();
+            int fragments = random.nextInt(60);
+            for (int j = 0; j < fragments; j++) {
+                builder.append(LEXER_FRAGMENTS[random.nextInt(LEXER_FRAGMENTS.length)]);
+            }
+            String source = builder.toString();
+            List<Token> expected = tokens(new Lexer(source));
+            for (int bufferSize = 2; bufferSize <= 8; bufferSize++) {
+                check("streaming tokens, buffer " + bufferSize, source, expected,
+                        tokens(new StreamingLexer(new StringReader(source), bufferSize)));
+            }
+
+            byte[] utf8 = source.getBytes(StandardCharsets.UTF_8);
+            check("mapped tokens", source, expected, tokens(new MappedLexer(ByteBuffer.wrap(utf8))));
+            // The same bytes with three stray ones inserted, each at a random place or at the end
+            byte[] malformed = new byte[utf8.length + 3];
+            for (int from = 0, to = 0; to < malformed.length; to++) {
+                boolean stray = from == utf8.length || (to - from < 3 && random.nextInt(utf8.length + 1) < 3);
+                malformed[to] = stray ? (byte) (0x80 + random.nextInt(0x80)) : utf8[from++];
+            }
+            check("mapped tokens, malformed UTF-8", source,
+                    tokens(new Lexer(new String(malformed, StandardCharsets.UTF_8))),
+                    tokens(new MappedLexer(ByteBuffer.wrap(malformed))));
+        }
+    }
+
+    /**
+     * @return The tokens up to EOF, and the one after it, which must be EOF again
+     */
+    private static List<Token> tokens(TokenSource lexer) {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            tokens.add(token);
+        } while (token.getType() != TokenType.EOF);
+        tokens.add(lexer.nextToken());
+        return tokens;
+    }
+
+    /**
+     * Evaluates the program as parsed and as optimized and compares the outcomes
+     */
+    private void optimizerDifferential(String source) {
+        Program parsed = parse(source);
+        Program optimized;
+        try {
+            optimized = new Optimizer().optimize(parsed);
+        } catch (Exception e) {
+            fail("optimizer", source, e.toString());
+            return;
+        }
+        check("optimizer differential", source, outcome(parsed), outcome(optimized));
+    }
+
+    /**
+     * Evaluates the program with Resolver addresses and, on a separate parse, with
+     * name lookup only, and compares the outcomes
+     */
+    private void resolverDifferential(String source) {
+        check("resolver differential", source, outcomeByName(parse(source)), outcome(parse(source)));
+    }
+
+    /**
+     * Runs the program on the bytecode VM and compares the outcome with the Evaluator's
+     */
+    private void vmDifferential(String source) {
+        check("vm differential", source, outcome(parse(source)), vmOutcome(parse(source)));
+    }
+
+    /**
+     * Evaluates the program with every function compiled on its first call and compares the
+     * outcome with the interpreted one. The JVM must accept every class the JIT generates.
+     */
+    private void jitDifferential(String source) {
+        Jit jit = new Jit(0);
+        check("jit differential", source, outcome(parse(source)), jitOutcome(parse(source), jit));
+        check("jit class files", source, 0L, jit.getFailed());
+    }
+
+    /**
+     * Runs the program on the node interpreter twice, the second time on the tree specialized
+     * by the first, and compares both outcomes with the Evaluator's
+     */
+    private void nodesDifferential(String source) {
+        String expected = outcome(parse(source));
+        Program program = parse(source);
+        NodeInterpreter interpreter = new NodeInterpreter();
+        check("nodes differential", source, expected, nodesOutcome(program, interpreter));
+        check("nodes specialized", source, expected, nodesOutcome(program, interpreter));
+    }
+
+    static String nodesOutcome(Program program, NodeInterpreter interpreter) {
+        try {
+            EvaluatorObject result = interpreter.run(program, new Environment());
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Runs the program as compiled closures twice, the second time from the compiled cache,
+     * and compares both outcomes with the Evaluator's
+     */
+    private void closuresDifferential(String source) {
+        String expected = outcome(parse(source));
+        Program program = parse(source);
+        ClosureCompiler compiler = new ClosureCompiler();
+        check("closures differential", source, expected, closuresOutcome(program, compiler));
+        check("closures rerun", source, expected, closuresOutcome(program, compiler));
+    }
+
+    static String closuresOutcome(Program program, ClosureCompiler compiler) {
+        try {
+            EvaluatorObject result = compiler.eval(program, new Environment());
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Runs the program with pure functions memoized, once with tables small enough to evict
+     * and once with the default capacity, and compares both outcomes with the Evaluator's
+     */
+    private void memoDifferential(String source) {
+        String expected = outcome(parse(source));
+        check("memo differential", source, expected, memoOutcome(parse(source), new Memoizer(2)));
+        check("memo default capacity", source, expected, memoOutcome(parse(source), new Memoizer()));
+    }
+
+    static String memoOutcome(Program program, Memoizer memoizer) {
+        try {
+            EvaluatorObject result = new Evaluator(null, memoizer).eval(program, new Environment());
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Calls one memoized function from several threads at once, each with its own Evaluator
+     * over the same globals, so they share the function's table
+     */
+    private void memoThreads() {
+        String definition = "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } };";
+        Environment globals = new Environment();
+        Memoizer memoizer = new Memoizer(8);
+        new Evaluator(null, memoizer).eval(parse(definition), globals);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int n = i % 23;
+                results.add(pool.submit(() -> {
+                    EvaluatorObject result = new Evaluator(null, memoizer).eval(parse("fib(" + n + ")"), new Environment(globals));
+                    return result.type() + " " + result.inspect();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String source = definition + " fib(" + i % 23 + ")";
+                String actual;
+                try {
+                    actual = results.get(i).get();
+                } catch (Exception e) {
+                    actual = "threw " + e;
+                }
+                check("memo threads", source, outcome(parse(source)), actual);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Evaluates one tree three times in fresh environments, so the later runs use the call
+     * site numbers of the first resolution, and compares the outcomes
+     */
+    private void inlineCacheRerun(String source) {
+        Program program = parse(source);
+        String expected = outcome(program);
+        check("inline cache rerun", source, expected, outcome(program));
+        check("inline cache third run", source, expected, outcome(program));
+    }
+
+    /**
+     * Checks the state the call site caches reach on calls with one, a few and many targets,
+     * and that a second run of the same tree starts with caches of its own
+     */
+    private void inlineCacheStates() {
+        String source = "let fib = fn(n) { if (n < 2) { n } else { fib(n - 1) + fib(n - 2) } }; fib(15)";
+        Program program = parse(source);
+        for (int run = 0; run < 2; run++) {
+            CallSiteCache cache = firstCallCache(program, "fib");
+            check("inline cache monomorphic", source, CallSiteCache.State.MONOMORPHIC, cache.getState());
+            check("inline cache misses", source, 1L, cache.getMisses());
+            check("inline cache hits", source, true, cache.getHits() > 900);
+        }
+
+        String[] targets = {"fn(x) { x + 1 }", "fn(x) { x * 2 }", "fn(x) { -x }", "fn(x) { x / 2 }", "fn(x) { x }"};
+        for (int count = 2; count <= targets.length; count++) {
+            StringBuilder builder = new StringBuilder("let ap = fn(f, x) { f(x) * 1 }; 0");
+            for (int i = 0; i < count; i++) {
+                builder.append(" + ap(").append(targets[i]).append(", ").append(i).append(")");
+            }
+            source = builder.toString();
+            check("inline cache state", source, count <= CallSiteCache.MAX_TARGETS
+                    ? CallSiteCache.State.POLYMORPHIC : CallSiteCache.State.MEGAMORPHIC,
+                    firstCallCache(parse(source), "ap").getState());
+        }
+    }
+
+    /**
+     * Runs a program whose first statement binds a function, then looks up that function value
+     * @return The cache of the first call in the function's body
+     */
+    private static CallSiteCache firstCallCache(Program program, String name) {
+        Environment env = new Environment();
+        new Evaluator(null).eval(program, env);
+        int site = firstCall(program.getStatements().get(0)).getSite();
+        return ((FunctionObj) env.get(name)).getCallSiteCache(site);
+    }
+
+    /**
+     * @return The first call expression inside a let's function literal
+     */
+    private static CallExpression firstCall(Statement statement) {
+        Expression value = ((LetStatement) statement).getValue();
+        Expression body = ((ExpressionStatement) ((FunctionLiteral) value).getBody().getStatements().get(0)).getExpression();
+        while (!(body instanceof CallExpression)) {
+            if (body instanceof IfExpression) {
+                body = ((ExpressionStatement) ((IfExpression) body).getAlternative().getStatements().get(0)).getExpression();
+            } else {
+                body = ((InfixExpression) body).getLeft();
+            }
+        }
+        return (CallExpression) body;
+    }
+
+    static String jitOutcome(Program program, Jit jit) {
+        try {
+            EvaluatorObject result = new Evaluator(jit).eval(program, new Environment());
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * @return The type and inspect() of the VM's result, or the exception compiling or running threw
+     */
+    static String vmOutcome(Program program) {
+        try {
+            EvaluatorObject result = new VirtualMachine().run(Compiler.compile(program));
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Evaluates the statements one by one, the way Evaluator.evalProgram does but without
+     * resolving the program first, so every variable is looked up by name
+     */
+    static String outcomeByName(Program program) {
+        try {
+            Evaluator evaluator = new Evaluator(null);
+            Environment env = new Environment();
+            EvaluatorObject result = Evaluator.NULL;
+            for (Statement statement : program.getStatements()) {
+                result = evaluator.eval(statement, env);
+                if (result instanceof ReturnObj) {
+                    result = ((ReturnObj) result).getValue();
+                    break;
+                }
+                if (result instanceof ErrorObj) {
+                    break;
+                }
+            }
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * @return The type and inspect() of the interpreted result, or the exception evaluation threw
+     */
+    static String outcome(Program program) {
+        try {
+            EvaluatorObject result = new Evaluator(null).eval(program, new Environment());
+            return result == null ? "null" : result.type() + " " + result.inspect();
+        } catch (RuntimeException e) {
+            return "threw " + e.getClass().getSimpleName();
+        }
+    }
+
+    private static Program parse(String source) {
+        Parser parser = new Parser(new Lexer(source));
+        Program program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalArgumentException("corpus program does not parse: " + parser.getErrors().get(0));
+        }
+        return program;
+    }
+
+    private void check(String name, String source, Object expected, Object actual) {
+        checks++;
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            fail(name, source, "expected " + expected + " but got " + actual);
+        }
+    }
+
+    private void fail(String name, String source, String message) {
+        String shown = source.length() > 60 ? source.substring(0, 60) + "..." : source;
+        failures.add(name + " [" + shown + "]: " + message);
+    }
+
+    /**
+     * A larger program that uses every node type, for checks that should see some volume
+     */
+    static String generateProgram(int functions) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            String name = "fun" + letters(i);
+            builder.append("let ").append(name).append(" = fn(a, b) { if (a < b) { return -a * ").append(i)
+                    .append("; } else { !(a == b) } };\n");
+            builder.append("let val").append(letters(i)).append(" = ").append(name).append("(")
+                    .append(i % 13).append(", ").append(i % 7).append(" + 1);\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A few lets over small integer and boolean expressions, with ifs, errors and shadowing
+     */
+    static String randomProgram(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int statements = 1 + random.nextInt(5);
+        for (int i = 0; i < statements; i++) {
+            if (random.nextInt(3) > 0) {
+                builder.append("let ").append(VARIABLES[random.nextInt(VARIABLES.length)]).append(" = ");
+            }
+            randomExpression(random, builder, 3);
+            builder.append(";\n");
+        }
+        randomExpression(random, builder, 2);
+        return builder.toString();
+    }
+
+    private static final String[] VARIABLES = {"x", "y", "z"};
+    private static final String[] INFIX = {"+", "-", "*", "/", "<", ">", "==", "!="};
+
+    private static void randomExpression(Random random, StringBuilder builder, int depth) {
+        int choice = depth == 0 ? random.nextInt(3) : random.nextInt(7);
+        switch (choice) {
+            case 0:
+                builder.append(random.nextInt(5));
+                break;
+            case 1:
+                builder.append(random.nextBoolean());
+                break;
+            case 2:
+                builder.append(VARIABLES[random.nextInt(VARIABLES.length)]);
+                break;
+            case 3:
+                builder.append(random.nextBoolean() ? "!" : "-");
+                randomExpression(random, builder, depth - 1);
+                break;
+            case 4:
+                builder.append("if (");
+                randomExpression(random, builder, depth - 1);
+                builder.append(") { ");
+                randomExpression(random, builder, depth - 1);
+                builder.append(" }");
+                if (random.nextBoolean()) {
+                    builder.append(" else { ");
+                    randomExpression(random, builder, depth - 1);
+                    builder.append(" }");
+                }
+                break;
+            default:
+                builder.append("(");
+                randomExpression(random, builder, depth - 1);
+                builder.append(" ").append(INFIX[random.nextInt(INFIX.length)]).append(" ");
+                randomExpression(random, builder, depth - 1);
+                builder.append(")");
+                break;
+        }
+    }
+
+    private static String letters(int n) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return name.toString();
+    }
+}
@@ -4,10 +4,18 @@ import main.java.com.yourproject.ast.Program;
 import main.java.com.yourproject.ast.*;
 import main.java.com.yourproject.ast.expressions.*;
 import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.jit.Jit;
+import main.java.com.yourproject.memo.MemoTable;
+import main.java.com.yourproject.memo.Memoizer;
 import main.java.com.yourproject.objects.*;
+import main.java.com.yourproject.resolver.Resolver;
+import main.java.com.yourproject.runtime.CallSiteCache;
 import main.java.com.yourproject.runtime.Environment;
+
 import java.util.List;
 
+import static main.java.com.yourproject.evaluator.EvaluatorUtils.*;
+
 /**
  * Evaluates AST nodes and produces runtime values
  */
@@ -16,6 +24,48 @@ public class Evaluator {
     public static final BooleanObj FALSE = BooleanObj.FALSE;
     public static final NullObj NULL = NullObj.NULL;
 
+    private final Jit jit;
+    private final Memoizer memoizer;
+    private final Dispatch dispatch = new Dispatch();
+
+    /**
+     * Creates an evaluator with the JIT configured by -Dmonkey.jit.threshold and the
+     * memoization configured by -Dmonkey.memo.capacity
+     */
+    public Evaluator() {
+        this(Jit.fromSystemProperties(), Memoizer.fromSystemProperties());
+    }
+
+    /**
+     * @param jit Compiles hot functions, or null to interpret every call
+     */
+    public Evaluator(Jit jit) {
+        this(jit, null);
+    }
+
+    /**
+     * @param jit Compiles hot functions, or null to interpret every call
+     * @param memoizer Remembers the results of pure functions, or null to run every call
+     */
+    public Evaluator(Jit jit, Memoizer memoizer) {
+        this.jit = jit;
+        this.memoizer = memoizer;
+    }
+
+    /**
+     * @return The JIT, or null if it is disabled
+     */
+    public Jit getJit() {
+        return jit;
+    }
+
+    /**
+     * @return The Memoizer, or null if memoization is disabled
+     */
+    public Memoizer getMemoizer() {
+        return memoizer;
+    }
+
     /**
      * Main evaluation method
      * @param node The AST node to evaluate
@@ -23,73 +73,101 @@ public class Evaluator {
      * @return The evaluated object
      */
     public EvaluatorObject eval(Node node, Environment env) {
-        // Program evaluation
-        if (node instanceof Program) {
-            return evalProgram((Program) node, env);
+        if (node == null) {
+            return NULL;
         }
+        return node.accept(dispatch, env);
+    }
 
-        // Statement evaluations
-        if (node instanceof ExpressionStatement) {
-            return eval(((ExpressionStatement) node).getExpression(), env);
+    /**
+     * One visit method per node kind: each node calls back the method for its own class, so
+     * eval costs a single virtual call instead of a chain of instanceof checks
+     */
+    private final class Dispatch implements NodeVisitor<EvaluatorObject, Environment> {
+        @Override
+        public EvaluatorObject visitProgram(Program node, Environment env) {
+            Resolver.resolve(node);
+            return evalProgram(node, env);
         }
 
-        if (node instanceof LetStatement) {
-            LetStatement letStmt = (LetStatement) node;
-            EvaluatorObject value = eval(letStmt.getValue(), env);
+        @Override
+        public EvaluatorObject visitExpressionStatement(ExpressionStatement node, Environment env) {
+            return eval(node.getExpression(), env);
+        }
+
+        @Override
+        public EvaluatorObject visitLetStatement(LetStatement node, Environment env) {
+            EvaluatorObject value = eval(node.getValue(), env);
             if (isError(value)) return value;
-            env.set(letStmt.getName().getValue(), value);
+            bind(node.getName(), value, env);
             return value;
         }
 
-        // Expression evaluations
-        if (node instanceof IntegerLiteral) {
-            return new IntegerObj(((IntegerLiteral) node).getValue());
+        @Override
+        public EvaluatorObject visitReturnStatement(ReturnStatement node, Environment env) {
+            EvaluatorObject value = eval(node.getReturnValue(), env);
+            return new ReturnObj(value);
+        }
+
+        @Override
+        public EvaluatorObject visitBlockStatement(BlockStatement node, Environment env) {
+            return evalBlockStatement(node, env);
+        }
+
+        @Override
+        public EvaluatorObject visitIntegerLiteral(IntegerLiteral node, Environment env) {
+            return node.getObject();
         }
 
-        if (node instanceof BooleanLiteral) {
-            return ((BooleanLiteral) node).getValue() ? TRUE : FALSE;
+        @Override
+        public EvaluatorObject visitBooleanLiteral(BooleanLiteral node, Environment env) {
+            return node.getValue() ? TRUE : FALSE;
         }
 
-        if (node instanceof Identifier) {
-            return evalIdentifier((Identifier) node, env);
+        @Override
+        public EvaluatorObject visitIdentifier(Identifier node, Environment env) {
+            return evalIdentifier(node, env);
         }
 
-        if (node instanceof PrefixExpression) {
-            EvaluatorObject right = eval(((PrefixExpression) node).getRight(), env);
+        @Override
+        public EvaluatorObject visitPrefixExpression(PrefixExpression node, Environment env) {
+            EvaluatorObject right = eval(node.getRight(), env);
             if (isError(right)) return right;
-            return evalPrefixExpression(((PrefixExpression) node).getOperator(), right);
+            return evalPrefixExpression(node.getOperator(), right);
         }
 
-        if (node instanceof InfixExpression) {
-            EvaluatorObject left = eval(((InfixExpression) node).getLeft(), env);
+        @Override
+        public EvaluatorObject visitInfixExpression(InfixExpression node, Environment env) {
+            EvaluatorObject left = eval(node.getLeft(), env);
             if (isError(left)) return left;
 
-            EvaluatorObject right = eval(((InfixExpression) node).getRight(), env);
+            EvaluatorObject right = eval(node.getRight(), env);
             if (isError(right)) return right;
 
-            return evalInfixExpression(((InfixExpression) node).getOperator(), left, right);
+            return evalInfixExpression(node.getOperator(), left, right);
         }
 
-        if (node instanceof BlockStatement) {
-            return evalBlockStatement((BlockStatement) node, env);
+        @Override
+        public EvaluatorObject visitIfExpression(IfExpression node, Environment env) {
+            return evalIfExpression(node, env);
         }
 
-        if (node instanceof IfExpression) {
-            return evalIfExpression((IfExpression) node, env);
+        @Override
+        public EvaluatorObject visitFunctionLiteral(FunctionLiteral node, Environment env) {
+            return new FunctionObj(node, env);
         }
 
-        if (node instanceof ReturnStatement) {
-            EvaluatorObject value = eval(((ReturnStatement) node).getReturnValue(), env);
-            return new ReturnObj(value);
+        @Override
+        public EvaluatorObject visitCallExpression(CallExpression node, Environment env) {
+            return evalCallExpression(node, env);
         }
-
-        return NULL;
     }
 
     private EvaluatorObject evalProgram(Program program, Environment env) {
         EvaluatorObject result = NULL;
-        for (Statement stmt : program.getStatements()) {
-            result = eval(stmt, env);
+        List<Statement> statements = program.getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            result = eval(statements.get(i), env);
 
             if (result instanceof ReturnObj) {
                 return ((ReturnObj) result).getValue();
@@ -104,8 +182,10 @@ public class Evaluator {
 
     private EvaluatorObject evalBlockStatement(BlockStatement block, Environment env) {
         EvaluatorObject result = NULL;
-        for (Statement stmt : block.getStatements()) {
-            result = eval(stmt, env);
+        // Indexed, so running a block allocates no iterator
+        List<Statement> statements = block.getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            result = eval(statements.get(i), env);
 
             if (result != null && (result instanceof ReturnObj || result instanceof ErrorObj)) {
                 return result;
@@ -114,109 +194,225 @@ public class Evaluator {
         return result;
     }
 
-    private EvaluatorObject evalPrefixExpression(String operator, EvaluatorObject right) {
-        switch (operator) {
-            case "!":
-                return evalBangOperator(right);
-            case "-":
-                return evalMinusPrefixOperator(right);
-            default:
-                return new ErrorObj("unknown operator: " + operator + right.type());
+    private EvaluatorObject evalIfExpression(IfExpression ie, Environment env) {
+        EvaluatorObject condition = eval(ie.getCondition(), env);
+        if (isError(condition)) return condition;
+
+        if (isTruthy(condition)) {
+            return eval(ie.getConsequence(), env);
+        } else if (ie.getAlternative() != null) {
+            return eval(ie.getAlternative(), env);
+        } else {
+            return NULL;
         }
     }
 
-    private EvaluatorObject evalInfixExpression(String operator, EvaluatorObject left, EvaluatorObject right) {
-        if (left instanceof IntegerObj && right instanceof IntegerObj) {
-            return evalIntegerInfixExpression(operator, (IntegerObj) left, (IntegerObj) right);
+    private EvaluatorObject evalCallExpression(CallExpression call, Environment env) {
+        List<Expression> arguments = call.getArguments();
+        int count = arguments.size();
+        EvaluatorObject function;
+        int size;
+        CallSiteCache cache = callSiteCache(call, env);
+        CallSiteCache.Entry target = cache != null ? cachedCallee(cache, (Identifier) call.getFunction(), count, env) : null;
+        if (target != null) {
+            function = target.getFunction();
+            size = target.getFrameSize();
+        } else {
+            function = eval(call.getFunction(), env);
+            if (isError(function)) return function;
+            size = frameSize(function, count);
         }
 
-        if (operator.equals("==")) {
-            return nativeBoolToBooleanObj(left == right);
+        EvaluatorObject[] args = new EvaluatorObject[size];
+        for (int i = 0; i < count; i++) {
+            EvaluatorObject value = eval(arguments.get(i), env);
+            if (isError(value)) return value;
+            args[i] = value;
         }
 
-        if (operator.equals("!=")) {
-            return nativeBoolToBooleanObj(left != right);
+        // In tail position: hand the call to the loop in the caller's applyFunction
+        if (call.isTailCall() && function instanceof FunctionObj) {
+            return new TailCall((FunctionObj) function, args, count);
         }
+        return applyFunction(function, args, count);
+    }
+
+    /**
+     * Blocks do not open environments, so env is the call environment of the function whose
+     * body holds the call, and that function value owns the call site's cache
+     * @return The cache, or null for a call the Resolver did not number (e.g. at the top level)
+     */
+    private static CallSiteCache callSiteCache(CallExpression call, Environment env) {
+        int site = call.getSite();
+        FunctionObj owner = site >= 0 ? env.getFunction() : null;
+        return owner != null && site < owner.getCallSiteCount() ? owner.callSiteCache(site) : null;
+    }
 
-        if (left.type() != right.type()) {
-            return new ErrorObj("type mismatch: " + left.type() + " " + operator + " " + right.type());
+    /**
+     * Looks a called name up through the call site's inline cache. A global is found by the
+     * environment the Resolver's address leads to and that environment's version, without a
+     * HashMap lookup; a name in a slot is read as usual and found by the function there.
+     * @return The callee and its frame size, or null to evaluate the callee as usual
+     */
+    private static CallSiteCache.Entry cachedCallee(CallSiteCache cache, Identifier name, int count, Environment env) {
+        if (cache.isMegamorphic()) {
+            cache.missed();
+            return null;
+        }
+        int address = name.getAddress();
+        if (address >= 0) {
+            for (int depth = Identifier.depthOf(address); depth > 0 && env.getOuter() != null; depth--) {
+                env = env.getOuter();
+            }
+            int slot = Identifier.slotOf(address);
+            if (slot != Identifier.GLOBAL_SLOT) {
+                EvaluatorObject value = env.getSlot(slot);
+                if (!(value instanceof FunctionObj)) {
+                    cache.missed();
+                    return null;
+                }
+                CallSiteCache.Entry entry = cache.find((FunctionObj) value);
+                return entry != null ? entry : cache.add((FunctionObj) value, null, 0, frameSize(value, count));
+            }
+        }
+        // Read before the lookup: a set() in between leaves a stale entry, never a wrong one
+        long version = env.getVersion();
+        CallSiteCache.Entry entry = cache.find(env, version);
+        if (entry != null) {
+            return entry;
+        }
+        EvaluatorObject value = env.getStored(name.getValue());
+        if (!(value instanceof FunctionObj)) {
+            cache.missed();
+            return null;
         }
+        return cache.add((FunctionObj) value, env, version, frameSize(value, count));
+    }
 
-        return new ErrorObj("unknown operator: " + left.type() + " " + operator + " " + right.type());
+    /**
+     * When the parameters of the function are its first slots, the arguments are evaluated
+     * into an array as long as its slot layout, which then becomes the call environment's
+     * frame: a call allocates that array and the Environment, nothing else.
+     * @return The length of the array for the arguments of a call
+     */
+    private static int frameSize(EvaluatorObject function, int count) {
+        if (function instanceof FunctionObj && ((FunctionObj) function).hasParameterSlots()) {
+            return Math.max(count, ((FunctionObj) function).getSlotNames().length);
+        }
+        return count;
     }
 
-    private EvaluatorObject evalIntegerInfixExpression(String operator, IntegerObj left, IntegerObj right) {
-        long leftVal = left.getIntegerValue();
-        long rightVal = right.getIntegerValue();
-        switch (operator) {
-            case "+":
-                return new IntegerObj(leftVal + rightVal);
-            case "-":
-                return new IntegerObj(leftVal - rightVal);
-            case "*":
-                return new IntegerObj(leftVal * rightVal);
-            case "/":
-                return new IntegerObj(leftVal / rightVal);
-            case "<":
-                return nativeBoolToBooleanObj(leftVal < rightVal);
-            case ">":
-                return nativeBoolToBooleanObj(leftVal > rightVal);
-            case "==":
-                return nativeBoolToBooleanObj(leftVal == rightVal);
-            case "!=":
-                return nativeBoolToBooleanObj(leftVal != rightVal);
-            default:
-                return new ErrorObj("unknown operator: " + left.type() + " " + operator + " " + right.type());
+    /**
+     * Calls a function, or returns the remembered result of a pure function
+     * @param args The arguments from index 0, in an array from frameSize
+     * @param count The number of arguments
+     */
+    private EvaluatorObject applyFunction(EvaluatorObject fn, EvaluatorObject[] args, int count) {
+        if (memoizer == null || !(fn instanceof FunctionObj) || ((FunctionObj) fn).getParameters().size() != count) {
+            return runFunction(fn, args, count);
+        }
+        MemoTable table = memoizer.tableFor((FunctionObj) fn);
+        // The key copies the arguments: the call uses args as its frame
+        MemoTable.Key key = table != null ? table.key(args, count) : null;
+        if (key == null) {
+            return runFunction(fn, args, count);
         }
+        EvaluatorObject result = table.get(key);
+        if (result == null) {
+            result = runFunction(fn, args, count);
+            table.put(key, result);
+        }
+        return result;
     }
 
-    private EvaluatorObject evalIfExpression(IfExpression ie, Environment env) {
-        EvaluatorObject condition = eval(ie.getCondition(), env);
-        if (isError(condition)) return condition;
+    /**
+     * Runs a call. Tail calls made by the body come back as TailCall values and are run by
+     * this loop instead of a nested Java call.
+     */
+    private EvaluatorObject runFunction(EvaluatorObject fn, EvaluatorObject[] args, int count) {
+        while (true) {
+            if (!(fn instanceof FunctionObj)) {
+                return new ErrorObj("not a function: " + fn.type());
+            }
+            FunctionObj function = (FunctionObj) fn;
+            List<Identifier> parameters = function.getParameters();
+            if (parameters.size() != count) {
+                return new ErrorObj("wrong number of arguments: want=" + parameters.size() + ", got=" + count);
+            }
+            if (jit != null) {
+                EvaluatorObject compiled = jit.call(function, args);
+                if (compiled != null) {
+                    return compiled;
+                }
+            }
 
-        if (isTruthy(condition)) {
-            return eval(ie.getConsequence(), env);
-        } else if (ie.getAlternative() != null) {
-            return eval(ie.getAlternative(), env);
+            // Resolved functions get a slot environment, unresolved ones a name-only one.
+            // The arguments are already in place in a frame from frameSize.
+            Environment callEnv;
+            if (function.hasParameterSlots() && args.length >= function.getSlotNames().length) {
+                callEnv = new Environment(function.getEnv(), function.getSlotNames(), args, function);
+            } else {
+                callEnv = function.getSlotNames() != null
+                        ? new Environment(function.getEnv(), function.getSlotNames(),
+                                new EvaluatorObject[function.getSlotNames().length], function)
+                        : new Environment(function.getEnv());
+                for (int i = 0; i < count; i++) {
+                    bind(parameters.get(i), args[i], callEnv);
+                }
+            }
+
+            EvaluatorObject result = eval(function.getBody(), callEnv);
+            if (result instanceof ReturnObj) {
+                result = ((ReturnObj) result).getValue();
+            }
+            if (!(result instanceof TailCall)) {
+                return result;
+            }
+            fn = ((TailCall) result).function;
+            args = ((TailCall) result).args;
+            count = ((TailCall) result).count;
+        }
+    }
+
+    /**
+     * Binds a let name or parameter in the current environment, by slot when resolved
+     */
+    private void bind(Identifier name, EvaluatorObject value, Environment env) {
+        int address = name.getAddress();
+        if (address >= 0 && Identifier.depthOf(address) == 0 && Identifier.slotOf(address) != Identifier.GLOBAL_SLOT) {
+            env.setSlot(Identifier.slotOf(address), value);
         } else {
-            return NULL;
+            env.set(name.getValue(), value);
         }
     }
 
     private EvaluatorObject evalIdentifier(Identifier node, Environment env) {
-        EvaluatorObject value = env.get(node.getValue());
+        EvaluatorObject value = lookup(node, env);
         if (value == null) {
             return new ErrorObj("identifier not found: " + node.getValue());
         }
         return value;
     }
 
-    private boolean isTruthy(EvaluatorObject obj) {
-        if (obj == NULL) return false;
-        if (obj == TRUE) return true;
-        if (obj == FALSE) return false;
-        return true;
-    }
-
-    private BooleanObj nativeBoolToBooleanObj(boolean input) {
-        return input ? TRUE : FALSE;
-    }
-
-    private EvaluatorObject evalBangOperator(EvaluatorObject right) {
-        if (right == TRUE) return FALSE;
-        if (right == FALSE) return TRUE;
-        if (right == NULL) return TRUE;
-        return FALSE;
-    }
-
-    private EvaluatorObject evalMinusPrefixOperator(EvaluatorObject right) {
-        if (!(right instanceof IntegerObj)) {
-            return new ErrorObj("unknown operator: -" + right.type());
+    /**
+     * Follows the Resolver's address: depth hops out, then one slot read. Globals, unset
+     * slots and unresolved identifiers are looked up by name from where the hops ended.
+     */
+    private EvaluatorObject lookup(Identifier node, Environment env) {
+        int address = node.getAddress();
+        if (address < 0) {
+            return env.get(node.getValue());
         }
-        return new IntegerObj(-((IntegerObj) right).getIntegerValue());
-    }
-
-    private boolean isError(EvaluatorObject obj) {
-        return obj != null && obj instanceof ErrorObj;
+        for (int depth = Identifier.depthOf(address); depth > 0 && env.getOuter() != null; depth--) {
+            env = env.getOuter();
+        }
+        int slot = Identifier.slotOf(address);
+        if (slot != Identifier.GLOBAL_SLOT) {
+            EvaluatorObject value = env.getSlot(slot);
+            if (value != null) {
+                return value;
+            }
+        }
+        return env.get(node.getValue());
     }
 }
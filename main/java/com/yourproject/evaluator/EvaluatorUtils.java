@@ -1,10 +1,12 @@
 package main.java.com.yourproject.evaluator;
 
 
+import main.java.com.yourproject.ast.expressions.Operator;
 import main.java.com.yourproject.objects.*;
 
 /**
- * Utility class containing helper methods for the Evaluator
+ * The evaluation rules shared by the Evaluator and the other engines. Operators come
+ * resolved from the parser, so each rule is a switch on the Operator enum.
  */
 public class EvaluatorUtils {
 
@@ -40,15 +42,15 @@ public class EvaluatorUtils {
 
     /**
      * Evaluates a prefix operator expression
-     * @param operator The prefix operator (! or -)
+     * @param operator The prefix operator (NOT or NEGATE)
      * @param right The right operand
      * @return The evaluation result
      */
-    public static EvaluatorObject evalPrefixExpression(String operator, EvaluatorObject right) {
+    public static EvaluatorObject evalPrefixExpression(Operator operator, EvaluatorObject right) {
         switch (operator) {
-            case "!":
+            case NOT:
                 return evalBangOperator(right);
-            case "-":
+            case NEGATE:
                 return evalMinusPrefixOperator(right);
             default:
                 return new ErrorObj("unknown operator: " + operator + right.type());
@@ -76,7 +78,34 @@ public class EvaluatorUtils {
         if (!(right instanceof IntegerObj)) {
             return new ErrorObj("unknown operator: -" + right.type());
         }
-        return new IntegerObj(-((IntegerObj) right).getIntegerValue());
+        return IntegerObj.valueOf(-((IntegerObj) right).getIntegerValue());
+    }
+
+    /**
+     * Evaluates an infix expression: integer arithmetic and comparison, identity for == and !=
+     * on anything else, otherwise an error
+     * @param operator The infix operator
+     * @param left The left operand
+     * @param right The right operand
+     * @return The evaluation result
+     */
+    public static EvaluatorObject evalInfixExpression(
+            Operator operator,
+            EvaluatorObject left,
+            EvaluatorObject right) {
+        if (left instanceof IntegerObj && right instanceof IntegerObj) {
+            return evalIntegerInfixExpression(operator, (IntegerObj) left, (IntegerObj) right);
+        }
+        if (operator == Operator.EQUAL) {
+            return nativeBoolToBooleanObj(left == right);
+        }
+        if (operator == Operator.NOT_EQUAL) {
+            return nativeBoolToBooleanObj(left != right);
+        }
+        if (left.type() != right.type()) {
+            return new ErrorObj("type mismatch: " + left.type() + " " + operator + " " + right.type());
+        }
+        return new ErrorObj("unknown operator: " + left.type() + " " + operator + " " + right.type());
     }
 
     /**
@@ -87,21 +116,21 @@ public class EvaluatorUtils {
      * @return The evaluation result
      */
     public static EvaluatorObject evalIntegerInfixExpression(
-            String operator,
+            Operator operator,
             IntegerObj left,
             IntegerObj right) {
         long leftVal = left.getIntegerValue();
         long rightVal = right.getIntegerValue();
 
         switch (operator) {
-            case "+": return new IntegerObj(leftVal + rightVal);
-            case "-": return new IntegerObj(leftVal - rightVal);
-            case "*": return new IntegerObj(leftVal * rightVal);
-            case "/": return new IntegerObj(leftVal / rightVal);
-            case "<": return nativeBoolToBooleanObj(leftVal < rightVal);
-            case ">": return nativeBoolToBooleanObj(leftVal > rightVal);
-            case "==": return nativeBoolToBooleanObj(leftVal == rightVal);
-            case "!=": return nativeBoolToBooleanObj(leftVal != rightVal);
+            case ADD: return IntegerObj.valueOf(leftVal + rightVal);
+            case SUBTRACT: return IntegerObj.valueOf(leftVal - rightVal);
+            case MULTIPLY: return IntegerObj.valueOf(leftVal * rightVal);
+            case DIVIDE: return IntegerObj.valueOf(leftVal / rightVal);
+            case LESS_THAN: return nativeBoolToBooleanObj(leftVal < rightVal);
+            case GREATER_THAN: return nativeBoolToBooleanObj(leftVal > rightVal);
+            case EQUAL: return nativeBoolToBooleanObj(leftVal == rightVal);
+            case NOT_EQUAL: return nativeBoolToBooleanObj(leftVal != rightVal);
             default:
                 return new ErrorObj(
                         "unknown operator: " + left.type() + " " + operator + " " + right.type()
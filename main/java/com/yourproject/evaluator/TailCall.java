@@ -0,0 +1,26 @@
+package main.java.com.yourproject.evaluator;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+
+/**
+ * A call in tail position that has been evaluated up to, but not including, the call itself.
+ * It travels up to the applyFunction loop of the enclosing call, which then runs it in place
+ * of returning, so a chain of tail calls uses constant Java stack.
+ * Never visible outside the Evaluator.
+ */
+final class TailCall implements EvaluatorObject {
+    final FunctionObj function;
+    final EvaluatorObject[] args;  // the arguments from index 0, see Evaluator.evalCallExpression
+    final int count;
+
+    TailCall(FunctionObj function, EvaluatorObject[] args, int count) {
+        this.function = function;
+        this.args = args;
+        this.count = count;
+    }
+
+    @Override public String type() { return "TAIL_CALL"; }
+    @Override public String inspect() { return "tail call"; }
+}
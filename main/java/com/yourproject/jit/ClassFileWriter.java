@@ -0,0 +1,335 @@
+package main.java.com.yourproject.jit;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the few class files the JIT needs: one class with public methods and no fields.
+ *
+ * Classes are written as version 49 (Java 5), so the JVM checks them with the type-inferring
+ * verifier and no StackMapTable has to be computed.
+ */
+final class ClassFileWriter {
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final String name;
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name The internal name of the class, e.g. "a/b/C"
+     * @param interfaces The internal names of the interfaces it implements
+     */
+    ClassFileWriter(String name, String... interfaces) {
+        this.name = name;
+        this.thisClass = classRef(name);
+        this.superClass = classRef("java/lang/Object");
+        this.interfaces = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            this.interfaces[i] = classRef(interfaces[i]);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        }, 1);
+    }
+
+    int classRef(String internalName) {
+        int nameIndex = utf8(internalName);
+        return entry("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(nameIndex);
+        }, 1);
+    }
+
+    int methodRef(String owner, String methodName, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(methodName);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + methodName + " " + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        }, 1);
+        return entry("M" + owner + "." + methodName + descriptor, out -> {
+            out.writeByte(CONSTANT_METHODREF);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        }, 1);
+    }
+
+    int longConstant(long value) {
+        // Long entries take two pool slots
+        return entry("J" + value, out -> {
+            out.writeByte(CONSTANT_LONG);
+            out.writeLong(value);
+        }, 2);
+    }
+
+    /**
+     * Adds a public method
+     * @param isStatic Whether the method is static
+     * @param code The finished method body
+     */
+    void addMethod(String methodName, String descriptor, boolean isStatic, Code code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(ACC_PUBLIC | (isStatic ? ACC_STATIC : 0));
+            out.writeShort(utf8(methodName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            byte[] instructions = code.toByteArray();
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.getMaxStack());
+            out.writeShort(code.getMaxLocals());
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, EntryWriter writer, int slots) {
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            writer.write(poolOut);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("constant pool too large");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    /**
+     * The instructions of one method, with operand stack depth tracking and forward or
+     * backward branches to labels
+     */
+    static final class Code {
+        // The opcodes the JIT emits
+        static final int ICONST_0 = 0x03;
+        static final int ICONST_1 = 0x04;
+        static final int LCONST_0 = 0x09;
+        static final int LCONST_1 = 0x0a;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int LDC2_W = 0x14;
+        static final int ILOAD = 0x15;
+        static final int LLOAD = 0x16;
+        static final int ALOAD = 0x19;
+        static final int LALOAD = 0x2f;
+        static final int ISTORE = 0x36;
+        static final int LSTORE = 0x37;
+        static final int POP = 0x57;
+        static final int POP2 = 0x58;
+        static final int LADD = 0x61;
+        static final int LSUB = 0x65;
+        static final int LMUL = 0x69;
+        static final int LDIV = 0x6d;
+        static final int LNEG = 0x75;
+        static final int IXOR = 0x82;
+        static final int I2L = 0x85;
+        static final int L2I = 0x88;
+        static final int LCMP = 0x94;
+        static final int IFEQ = 0x99;
+        static final int IFNE = 0x9a;
+        static final int IFLT = 0x9b;
+        static final int IFGE = 0x9c;
+        static final int IFGT = 0x9d;
+        static final int IFLE = 0x9e;
+        static final int IF_ICMPEQ = 0x9f;
+        static final int IF_ICMPNE = 0xa0;
+        static final int GOTO = 0xa7;
+        static final int IRETURN = 0xac;
+        static final int LRETURN = 0xad;
+        static final int RETURN = 0xb1;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKESTATIC = 0xb8;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<int[]> branches = new ArrayList<>(); // {instruction, operand, label}
+        private final List<Integer> labels = new ArrayList<>();
+        private int depth;
+        private int maxStack;
+        private int maxLocals;
+
+        /**
+         * Emits an instruction without operands
+         * @param stackEffect The change in operand stack slots (a long counts twice)
+         */
+        void op(int opcode, int stackEffect) {
+            bytes.write(opcode);
+            adjust(stackEffect);
+        }
+
+        void opU1(int opcode, int operand, int stackEffect) {
+            if (operand > 0xFF) {
+                throw new IllegalStateException("operand too large: " + operand);
+            }
+            bytes.write(opcode);
+            bytes.write(operand);
+            adjust(stackEffect);
+        }
+
+        void opU2(int opcode, int operand, int stackEffect) {
+            bytes.write(opcode);
+            bytes.write(operand >>> 8);
+            bytes.write(operand);
+            adjust(stackEffect);
+        }
+
+        /**
+         * Loads or stores a local and records it in max_locals
+         * @param size 1 for int and reference locals, 2 for long
+         */
+        void local(int opcode, int index, int size, int stackEffect) {
+            maxLocals = Math.max(maxLocals, index + size);
+            opU1(opcode, index, stackEffect);
+        }
+
+        void pushInt(int value) {
+            if (value == 0 || value == 1) {
+                op(value == 0 ? ICONST_0 : ICONST_1, 1);
+            } else if (value < 128) {
+                opU1(BIPUSH, value, 1);
+            } else {
+                opU2(SIPUSH, value, 1);
+            }
+        }
+
+        int newLabel() {
+            labels.add(-1);
+            return labels.size() - 1;
+        }
+
+        void mark(int label) {
+            labels.set(label, bytes.size());
+        }
+
+        /**
+         * Emits a branch to a label that is marked before or after this point
+         */
+        void branch(int opcode, int label, int stackEffect) {
+            branches.add(new int[]{bytes.size(), bytes.size() + 1, label});
+            opU2(opcode, 0, stackEffect);
+        }
+
+        void adjust(int stackEffect) {
+            depth += stackEffect;
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Sets the depth at a point that is reached only by a jump
+         */
+        void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        void reserveLocals(int count) {
+            maxLocals = Math.max(maxLocals, count);
+        }
+
+        int getMaxStack() {
+            return maxStack;
+        }
+
+        int getMaxLocals() {
+            return maxLocals;
+        }
+
+        byte[] toByteArray() {
+            byte[] code = bytes.toByteArray();
+            if (code.length > 0xFFFF) {
+                throw new IllegalStateException("method too large: " + code.length + " bytes");
+            }
+            for (int[] branch : branches) {
+                int offset = labels.get(branch[2]) - branch[0];
+                if (offset != (short) offset) {
+                    throw new IllegalStateException("branch too long: " + offset + " bytes");
+                }
+                code[branch[1]] = (byte) (offset >> 8);
+                code[branch[1] + 1] = (byte) offset;
+            }
+            return code;
+        }
+    }
+}
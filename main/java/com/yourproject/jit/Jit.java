@@ -0,0 +1,197 @@
+package main.java.com.yourproject.jit;
+
+
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+import main.java.com.yourproject.jit.JitCompiler.Type;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.objects.IntegerObj;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Compiles hot functions to JVM bytecode for the Evaluator.
+ *
+ * Every call of a FunctionObj is counted. The call after the count passes the threshold
+ * compiles the function for the types of its arguments (integers as long, booleans as
+ * boolean) into a hidden class, so HotSpot can optimize it like any Java method, and caches
+ * the result on the FunctionObj. Later calls run the compiled code when their arguments have
+ * the same types and the names the body calls itself through still mean the function; any
+ * other call deoptimizes, i.e. runs in the Evaluator. A function that deoptimizes too often,
+ * or whose body the JIT cannot translate, stays interpreted for good.
+ *
+ * Every evaluation of a function literal makes a new FunctionObj, so compiled code is also
+ * kept on the FunctionLiteral: the next FunctionObj of the same literal reuses the class,
+ * which HotSpot has already warmed up, instead of generating a new one. The classes are
+ * hidden classes that go away with the AST.
+ *
+ * A Jit and its counters belong to one Evaluator and are not thread-safe.
+ */
+public class Jit {
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    // Deoptimizations after which compiled code is thrown away
+    static final int MAX_DEOPTS = 100;
+
+    private final int threshold;
+    private long compiled;
+    private long rejected;
+    private long failed;
+    private long compiledCalls;
+    private long deopts;
+    private long invalidated;
+
+    /**
+     * @param threshold The number of calls after which a function is compiled
+     */
+    public Jit(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return A Jit with the threshold from -Dmonkey.jit.threshold, or null if it is negative
+     *         (JIT disabled)
+     */
+    public static Jit fromSystemProperties() {
+        int threshold = Integer.parseInt(System.getProperty("monkey.jit.threshold", String.valueOf(DEFAULT_THRESHOLD)));
+        return threshold < 0 ? null : new Jit(threshold);
+    }
+
+    /**
+     * Runs a call in compiled code if possible
+     * @param function The function being called
+     * @param args Its arguments from index 0, already checked against the arity; the array
+     *             may be longer (the Evaluator passes the call frame)
+     * @return The result, or null if the Evaluator has to run the call
+     */
+    public EvaluatorObject call(FunctionObj function, EvaluatorObject[] args) {
+        JitFunction jitFunction = function.getJitFunction();
+        if (jitFunction == null) {
+            if (function.countCall() <= threshold) {
+                return null;
+            }
+            jitFunction = compile(function, args);
+            function.setJitFunction(jitFunction);
+        }
+        if (jitFunction == JitFunction.REJECTED) {
+            return null;
+        }
+
+        EvaluatorObject result = jitFunction.call(function, args);
+        if (result != null) {
+            compiledCalls++;
+            return result;
+        }
+        deopts++;
+        if (jitFunction.getDeopts() >= MAX_DEOPTS) {
+            function.setJitFunction(JitFunction.REJECTED);
+            invalidated++;
+        }
+        return null;
+    }
+
+    private JitFunction compile(FunctionObj function, EvaluatorObject[] args) {
+        Type[] parameterTypes = new Type[function.getParameters().size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (args[i] instanceof IntegerObj) {
+                parameterTypes[i] = Type.LONG;
+            } else if (args[i] instanceof BooleanObj) {
+                parameterTypes[i] = Type.BOOLEAN;
+            } else {
+                rejected++;
+                return JitFunction.REJECTED;
+            }
+        }
+        FunctionLiteral literal = function.getLiteral();
+        if (literal != null) {
+            for (JitFunction jitFunction : literal.getJitFunctions()) {
+                if (jitFunction.accepts(parameterTypes)) {
+                    return jitFunction.copy();
+                }
+            }
+        }
+
+        // The body's type is not inferred: try the likely one first
+        for (Type returnType : new Type[]{Type.LONG, Type.BOOLEAN}) {
+            JitCompiler.Result result;
+            try {
+                result = JitCompiler.compile(function.getParameters(), function.getBody(), parameterTypes, returnType);
+            } catch (JitCompiler.Unsupported e) {
+                continue;
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(result.classFile, true);
+                JitCode code = (JitCode) lookup.lookupClass().getDeclaredConstructor().newInstance();
+                compiled++;
+                JitFunction jitFunction = new JitFunction(code, parameterTypes, returnType, result.selfNames);
+                if (literal != null) {
+                    literal.addJitFunction(jitFunction);
+                    return jitFunction.copy();
+                }
+                return jitFunction;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // A class the JVM refuses is a JIT bug; the function still runs interpreted
+                failed++;
+                return JitFunction.REJECTED;
+            }
+        }
+        rejected++;
+        return JitFunction.REJECTED;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return The number of functions compiled to bytecode
+     */
+    public long getCompiled() {
+        return compiled;
+    }
+
+    /**
+     * @return The number of hot functions the JIT could not translate
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return The number of generated classes the JVM refused; nonzero means a JIT bug
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return The number of calls that ran in compiled code
+     */
+    public long getCompiledCalls() {
+        return compiledCalls;
+    }
+
+    /**
+     * @return The number of calls of compiled functions that fell back to the Evaluator
+     */
+    public long getDeopts() {
+        return deopts;
+    }
+
+    /**
+     * @return The number of compiled functions dropped after too many fallbacks
+     */
+    public long getInvalidated() {
+        return invalidated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Jit[threshold=%d, compiled=%d, rejected=%d, failed=%d, compiledCalls=%d, deopts=%d, invalidated=%d]",
+                threshold, compiled, rejected, failed, compiledCalls, deopts, invalidated);
+    }
+}
@@ -0,0 +1,14 @@
+package main.java.com.yourproject.jit;
+
+
+/**
+ * Implemented by every class the JIT generates. invoke() unpacks the arguments and calls the
+ * static method that holds the translated function body.
+ */
+interface JitCode {
+    /**
+     * @param args One entry per parameter: the integer, or 1 and 0 for true and false
+     * @return The result, with true and false as 1 and 0
+     */
+    long invoke(long[] args);
+}
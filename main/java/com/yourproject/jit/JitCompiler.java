@@ -0,0 +1,535 @@
+package main.java.com.yourproject.jit;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.jit.ClassFileWriter.Code;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static main.java.com.yourproject.jit.ClassFileWriter.Code.*;
+
+/**
+ * Translates one function into a class file, for fixed parameter types.
+ *
+ * The body is typed statically: integers become long, booleans int, and an operation the
+ * Evaluator would turn into an ErrorObj (or anything else the translation does not cover)
+ * throws Unsupported, so the function stays interpreted. Covered are literals, parameters,
+ * lets at the top level of the body, prefix and infix operators, ifs, `return`, and calls
+ * of the function itself through a name it does not bind. A self call in tail position
+ * becomes a jump back to the start.
+ */
+final class JitCompiler {
+    static final String CLASS_NAME = JitCode.class.getPackageName().replace('.', '/') + "/MonkeyFunction";
+    private static final String JIT_CODE = JitCode.class.getName().replace('.', '/');
+
+    // What happens to the value of the expression being compiled
+    private static final int VALUE = 0;    // left on the operand stack
+    private static final int DISCARD = 1;  // dropped
+    private static final int EXIT = 2;     // returned from the method
+
+    /**
+     * The static type of a value. Compiling an expression yields its type, VOID when it left
+     * nothing on the stack, or null when control does not fall through it.
+     */
+    enum Type {
+        LONG("J", 2), BOOLEAN("Z", 1), VOID("V", 0);
+
+        final String descriptor;
+        final int size;
+
+        Type(String descriptor, int size) {
+            this.descriptor = descriptor;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Thrown when the function uses something the translation does not cover
+     */
+    static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private static final class Local {
+        final int index;
+        final Type type;
+
+        Local(int index, Type type) {
+            this.index = index;
+            this.type = type;
+        }
+    }
+
+    private final List<Identifier> parameterNames;
+    private final BlockStatement body;
+    private final Type[] parameterTypes;
+    private final Type returnType;
+    private final String runDescriptor;
+    private final ClassFileWriter classFile = new ClassFileWriter(CLASS_NAME, JIT_CODE);
+    private final Code code = new Code();
+
+    private final Local[] parameters;
+    private final Map<String, Local> locals = new HashMap<>();
+    private final Set<String> letNames = new HashSet<>();
+    private final Set<String> selfNames = new LinkedHashSet<>();
+    private int nextLocal;
+    private int start;
+
+    private JitCompiler(List<Identifier> parameterNames, BlockStatement body, Type[] parameterTypes, Type returnType) {
+        this.parameterNames = parameterNames;
+        this.body = body;
+        this.parameterTypes = parameterTypes;
+        this.returnType = returnType;
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Type type : parameterTypes) {
+            descriptor.append(type.descriptor);
+        }
+        this.runDescriptor = descriptor.append(')').append(returnType.descriptor).toString();
+        this.parameters = new Local[parameterTypes.length];
+    }
+
+    /**
+     * @param parameterNames The parameters of the function to translate
+     * @param body Its body
+     * @param parameterTypes The type each parameter is assumed to have
+     * @param returnType The type the body is assumed to produce
+     * @return The class file and the names the body calls itself through
+     * @throws Unsupported If the body cannot be translated with these types
+     */
+    static Result compile(List<Identifier> parameterNames, BlockStatement body, Type[] parameterTypes, Type returnType) {
+        JitCompiler compiler = new JitCompiler(parameterNames, body, parameterTypes, returnType);
+        compiler.constructor();
+        compiler.invoke();
+        compiler.run();
+        return new Result(compiler.classFile.toByteArray(), compiler.selfNames.toArray(new String[0]));
+    }
+
+    static final class Result {
+        final byte[] classFile;
+        final String[] selfNames;
+
+        Result(byte[] classFile, String[] selfNames) {
+            this.classFile = classFile;
+            this.selfNames = selfNames;
+        }
+    }
+
+    private void constructor() {
+        Code init = new Code();
+        init.local(ALOAD, 0, 1, 1);
+        init.opU2(INVOKESPECIAL, classFile.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        init.op(RETURN, 0);
+        classFile.addMethod("<init>", "()V", false, init);
+    }
+
+    /**
+     * long invoke(long[] args): unpacks the arguments and calls run
+     */
+    private void invoke() {
+        Code invoke = new Code();
+        invoke.reserveLocals(2); // this and args
+        int argumentSlots = 0;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            invoke.local(ALOAD, 1, 1, 1);
+            invoke.pushInt(i);
+            invoke.op(LALOAD, 0);
+            if (parameterTypes[i] == Type.BOOLEAN) {
+                invoke.op(L2I, -1);
+            }
+            argumentSlots += parameterTypes[i].size;
+        }
+        invoke.opU2(INVOKESTATIC, classFile.methodRef(CLASS_NAME, "run", runDescriptor),
+                returnType.size - argumentSlots);
+        if (returnType == Type.BOOLEAN) {
+            invoke.op(I2L, 1);
+        }
+        invoke.op(LRETURN, -2);
+        classFile.addMethod("invoke", "([J)J", false, invoke);
+    }
+
+    /**
+     * static run(params): the translated body
+     */
+    private void run() {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameters[i] = new Local(nextLocal, parameterTypes[i]);
+            // A repeated parameter name means the last one, as in the Evaluator
+            locals.put(parameterNames.get(i).getValue(), parameters[i]);
+            nextLocal += parameterTypes[i].size;
+        }
+        code.reserveLocals(nextLocal);
+        collectLets(body);
+
+        start = code.newLabel();
+        code.mark(start);
+        statements(body.getStatements(), EXIT, true, true);
+        classFile.addMethod("run", runDescriptor, true, code);
+    }
+
+    /**
+     * @param statement Whether the value flows straight into a statement, so that a `return`
+     *                  inside it leaves the function the way it does in the Evaluator
+     * @param topLevel Whether these are the statements of the function body itself
+     */
+    private Type statements(List<Statement> statements, int mode, boolean statement, boolean topLevel) {
+        if (statements.isEmpty()) {
+            if (mode != DISCARD) {
+                throw new Unsupported("empty block has no value");
+            }
+            return Type.VOID;
+        }
+        Type type = null;
+        for (int i = 0; i < statements.size(); i++) {
+            boolean last = i == statements.size() - 1;
+            type = statement(statements.get(i), last ? mode : DISCARD, statement, topLevel);
+            if (type == null) {
+                return null; // the rest never runs
+            }
+        }
+        return type;
+    }
+
+    private Type statement(Statement node, int mode, boolean statement, boolean topLevel) {
+        if (node == null) {
+            throw new Unsupported("statement missing after a parse error");
+        }
+        if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            if (!topLevel) {
+                throw new Unsupported("let inside a block");
+            }
+            Type type = expression(let.getValue(), VALUE, statement);
+            if (type == null) {
+                return null;
+            }
+            String name = let.getName().getValue();
+            Local local = locals.get(name);
+            if (local == null) {
+                local = new Local(nextLocal, type);
+                nextLocal += type.size;
+                locals.put(name, local);
+            } else if (local.type != type) {
+                throw new Unsupported("let changes the type of " + name);
+            }
+            code.local(type == Type.LONG ? LSTORE : ISTORE, local.index, type.size, -type.size);
+            if (mode == DISCARD) {
+                return Type.VOID;
+            }
+            load(local);
+            return finish(type, mode);
+        }
+        if (node instanceof ReturnStatement) {
+            if (!statement) {
+                throw new Unsupported("return inside an operand");
+            }
+            expression(((ReturnStatement) node).getReturnValue(), EXIT, false);
+            return null;
+        }
+        if (node instanceof ExpressionStatement && ((ExpressionStatement) node).getExpression() != null) {
+            return expression(((ExpressionStatement) node).getExpression(), mode, statement);
+        }
+        throw new Unsupported("statement " + describe(node));
+    }
+
+    private Type expression(Expression expression, int mode, boolean statement) {
+        if (expression == null) {
+            throw new Unsupported("expression missing after a parse error");
+        }
+        if (expression instanceof IfExpression) {
+            return ifExpression((IfExpression) expression, mode, statement);
+        }
+        if (expression instanceof CallExpression) {
+            return call((CallExpression) expression, mode);
+        }
+        return finish(value(expression), mode);
+    }
+
+    /**
+     * Compiles an expression that always leaves a value
+     */
+    private Type value(Expression expression) {
+        if (expression instanceof IntegerLiteral) {
+            long value = ((IntegerLiteral) expression).getValue();
+            if (value == 0 || value == 1) {
+                code.op(value == 0 ? LCONST_0 : LCONST_1, 2);
+            } else {
+                code.opU2(LDC2_W, classFile.longConstant(value), 2);
+            }
+            return Type.LONG;
+        }
+        if (expression instanceof BooleanLiteral) {
+            code.op(((BooleanLiteral) expression).getValue() ? ICONST_1 : ICONST_0, 1);
+            return Type.BOOLEAN;
+        }
+        if (expression instanceof Identifier) {
+            Local local = locals.get(((Identifier) expression).getValue());
+            if (local == null) {
+                throw new Unsupported("free variable " + ((Identifier) expression).getValue());
+            }
+            load(local);
+            return local.type;
+        }
+        if (expression instanceof PrefixExpression) {
+            return prefix((PrefixExpression) expression);
+        }
+        if (expression instanceof InfixExpression) {
+            return infix((InfixExpression) expression);
+        }
+        throw new Unsupported("expression " + describe(expression));
+    }
+
+    private Type prefix(PrefixExpression prefix) {
+        Type operand = expression(prefix.getRight(), VALUE, false);
+        if (prefix.getOperator() == Operator.NEGATE && operand == Type.LONG) {
+            code.op(LNEG, 0);
+            return Type.LONG;
+        }
+        if (prefix.getOperator() == Operator.NOT) {
+            if (operand == Type.BOOLEAN) {
+                code.op(ICONST_1, 1);
+                code.op(IXOR, -1);
+            } else {
+                // Every integer is truthy
+                code.op(POP2, -2);
+                code.op(ICONST_0, 1);
+            }
+            return Type.BOOLEAN;
+        }
+        throw new Unsupported("prefix " + prefix.getOperator() + " on " + operand);
+    }
+
+    private Type infix(InfixExpression infix) {
+        Type left = expression(infix.getLeft(), VALUE, false);
+        Type right = expression(infix.getRight(), VALUE, false);
+        Operator operator = infix.getOperator();
+        if (left == Type.LONG && right == Type.LONG) {
+            switch (operator) {
+                case ADD:
+                    code.op(LADD, -2);
+                    return Type.LONG;
+                case SUBTRACT:
+                    code.op(LSUB, -2);
+                    return Type.LONG;
+                case MULTIPLY:
+                    code.op(LMUL, -2);
+                    return Type.LONG;
+                case DIVIDE:
+                    code.op(LDIV, -2);
+                    return Type.LONG;
+                case LESS_THAN:
+                    code.op(LCMP, -3);
+                    return condition(IFLT);
+                case GREATER_THAN:
+                    code.op(LCMP, -3);
+                    return condition(IFGT);
+                case EQUAL:
+                    code.op(LCMP, -3);
+                    return condition(IFEQ);
+                case NOT_EQUAL:
+                    code.op(LCMP, -3);
+                    return condition(IFNE);
+                default:
+                    break;
+            }
+        } else if (left == Type.BOOLEAN && right == Type.BOOLEAN) {
+            if (operator == Operator.EQUAL) {
+                return condition(IF_ICMPEQ);
+            }
+            if (operator == Operator.NOT_EQUAL) {
+                return condition(IF_ICMPNE);
+            }
+        } else if (operator == Operator.EQUAL || operator == Operator.NOT_EQUAL) {
+            // An integer is never the same object as a boolean
+            code.op(right == Type.LONG ? POP2 : POP, -right.size);
+            code.op(left == Type.LONG ? POP2 : POP, -left.size);
+            code.op(operator == Operator.EQUAL ? ICONST_0 : ICONST_1, 1);
+            return Type.BOOLEAN;
+        }
+        throw new Unsupported("infix " + left + " " + operator + " " + right);
+    }
+
+    /**
+     * Turns a branch on the operands into a boolean: 1 if the branch is taken, otherwise 0
+     */
+    private Type condition(int branchOpcode) {
+        int operands = branchOpcode == IF_ICMPEQ || branchOpcode == IF_ICMPNE ? 2 : 1;
+        int taken = code.newLabel();
+        int end = code.newLabel();
+        code.branch(branchOpcode, taken, -operands);
+        code.op(ICONST_0, 1);
+        code.branch(GOTO, end, 0);
+        code.mark(taken);
+        code.adjust(-1);
+        code.op(ICONST_1, 1);
+        code.mark(end);
+        return Type.BOOLEAN;
+    }
+
+    private Type ifExpression(IfExpression ifExpression, int mode, boolean statement) {
+        Type condition = expression(ifExpression.getCondition(), VALUE, false);
+        if (condition == Type.LONG) {
+            // Every integer is truthy
+            code.op(POP2, -2);
+            return block(ifExpression.getConsequence(), mode, statement);
+        }
+
+        int otherwise = code.newLabel();
+        code.branch(IFEQ, otherwise, -1);
+        int base = code.getDepth();
+        Type consequence = block(ifExpression.getConsequence(), mode, statement);
+        int consequenceDepth = code.getDepth();
+
+        if (ifExpression.getAlternative() == null) {
+            if (mode != DISCARD) {
+                throw new Unsupported("if without else has no value when false");
+            }
+            code.mark(otherwise);
+            code.setDepth(base);
+            return Type.VOID;
+        }
+
+        int end = -1;
+        if (consequence != null) {
+            end = code.newLabel();
+            code.branch(GOTO, end, 0);
+        }
+        code.mark(otherwise);
+        code.setDepth(base);
+        Type alternative = block(ifExpression.getAlternative(), mode, statement);
+        if (end >= 0) {
+            code.mark(end);
+        }
+
+        if (consequence == null) {
+            return alternative;
+        }
+        if (alternative == null) {
+            code.setDepth(consequenceDepth);
+            return consequence;
+        }
+        if (consequence != alternative) {
+            throw new Unsupported("if branches have types " + consequence + " and " + alternative);
+        }
+        return consequence;
+    }
+
+    private Type block(BlockStatement block, int mode, boolean statement) {
+        return statements(block.getStatements(), mode, statement, false);
+    }
+
+    private Type call(CallExpression call, int mode) {
+        if (!(call.getFunction() instanceof Identifier)) {
+            throw new Unsupported("call of " + describe(call.getFunction()));
+        }
+        String name = ((Identifier) call.getFunction()).getValue();
+        if (locals.containsKey(name) || letNames.contains(name)) {
+            throw new Unsupported("call through a local: " + name);
+        }
+        List<Expression> arguments = call.getArguments() == null ? List.of() : call.getArguments();
+        if (arguments.size() != parameterTypes.length) {
+            throw new Unsupported("wrong number of arguments");
+        }
+        selfNames.add(name);
+
+        for (int i = 0; i < arguments.size(); i++) {
+            Type type = expression(arguments.get(i), VALUE, false);
+            if (type != parameterTypes[i]) {
+                throw new Unsupported("argument " + i + " is " + type);
+            }
+        }
+
+        if (mode == EXIT) {
+            // Tail call: rebind the parameters and start over
+            for (int i = parameters.length - 1; i >= 0; i--) {
+                Local parameter = parameters[i];
+                code.local(parameter.type == Type.LONG ? LSTORE : ISTORE, parameter.index, parameter.type.size,
+                        -parameter.type.size);
+            }
+            code.branch(GOTO, start, 0);
+            return null;
+        }
+
+        int argumentSlots = 0;
+        for (Type type : parameterTypes) {
+            argumentSlots += type.size;
+        }
+        code.opU2(INVOKESTATIC, classFile.methodRef(CLASS_NAME, "run", runDescriptor),
+                returnType.size - argumentSlots);
+        return finish(returnType, mode);
+    }
+
+    /**
+     * Applies the mode to a value on the stack
+     */
+    private Type finish(Type type, int mode) {
+        if (mode == DISCARD) {
+            code.op(type == Type.LONG ? POP2 : POP, -type.size);
+            return Type.VOID;
+        }
+        if (mode == EXIT) {
+            if (type != returnType) {
+                throw new Unsupported("returns " + type + ", expected " + returnType);
+            }
+            code.op(type == Type.LONG ? LRETURN : IRETURN, -type.size);
+            return null;
+        }
+        return type;
+    }
+
+    /**
+     * Names a node for an Unsupported message. A node left by parse-error recovery can have
+     * missing parts that its toString() does not expect, so it is never printed.
+     */
+    private static String describe(Node node) {
+        return node == null ? "missing after a parse error" : node.getClass().getSimpleName();
+    }
+
+    private void load(Local local) {
+        code.local(local.type == Type.LONG ? LLOAD : ILOAD, local.index, local.type.size, local.type.size);
+    }
+
+    /**
+     * Records every name a let in the body binds, without entering nested function literals
+     */
+    private void collectLets(Node node) {
+        if (node instanceof LetStatement) {
+            letNames.add(((LetStatement) node).getName().getValue());
+            collectLets(((LetStatement) node).getValue());
+        } else if (node instanceof ReturnStatement) {
+            collectLets(((ReturnStatement) node).getReturnValue());
+        } else if (node instanceof ExpressionStatement) {
+            collectLets(((ExpressionStatement) node).getExpression());
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) {
+                collectLets(statement);
+            }
+        } else if (node instanceof PrefixExpression) {
+            collectLets(((PrefixExpression) node).getRight());
+        } else if (node instanceof InfixExpression) {
+            collectLets(((InfixExpression) node).getLeft());
+            collectLets(((InfixExpression) node).getRight());
+        } else if (node instanceof IfExpression) {
+            collectLets(((IfExpression) node).getCondition());
+            collectLets(((IfExpression) node).getConsequence());
+            collectLets(((IfExpression) node).getAlternative());
+        } else if (node instanceof CallExpression) {
+            collectLets(((CallExpression) node).getFunction());
+            if (((CallExpression) node).getArguments() != null) {
+                for (Expression argument : ((CallExpression) node).getArguments()) {
+                    collectLets(argument);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package main.java.com.yourproject.jit;
+
+
+import main.java.com.yourproject.jit.JitCompiler.Type;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.objects.IntegerObj;
+
+import java.util.Arrays;
+
+/**
+ * The compiled form of one function, together with the assumptions it was compiled under.
+ * A call whose arguments break an assumption is left to the interpreter.
+ */
+public final class JitFunction {
+    /**
+     * Marks a function that could not be compiled, or that deoptimized too often
+     */
+    public static final JitFunction REJECTED = new JitFunction(null, new Type[0], null, new String[0]);
+
+    private final JitCode code;
+    private final Type[] parameterTypes;
+    private final Type returnType;
+    private final String[] selfNames;
+    private int deopts;
+
+    JitFunction(JitCode code, Type[] parameterTypes, Type returnType, String[] selfNames) {
+        this.code = code;
+        this.parameterTypes = parameterTypes;
+        this.returnType = returnType;
+        this.selfNames = selfNames;
+    }
+
+    /**
+     * Runs the compiled code if the call matches its assumptions
+     * @param function The function being called, which this was compiled from
+     * @param args The arguments from index 0, already checked against the arity; the array
+     *             may be longer
+     * @return The result, or null if the interpreter has to run the call
+     */
+    EvaluatorObject call(FunctionObj function, EvaluatorObject[] args) {
+        long[] values = new long[parameterTypes.length];
+        for (int i = 0; i < values.length; i++) {
+            EvaluatorObject arg = args[i];
+            if (parameterTypes[i] == Type.LONG && arg instanceof IntegerObj) {
+                values[i] = ((IntegerObj) arg).getIntegerValue();
+            } else if (parameterTypes[i] == Type.BOOLEAN && arg instanceof BooleanObj) {
+                values[i] = arg == BooleanObj.TRUE ? 1 : 0;
+            } else {
+                deopts++;
+                return null;
+            }
+        }
+        // The body calls itself through these names, so they must still mean this function
+        for (String name : selfNames) {
+            if (function.getEnv().get(name) != function) {
+                deopts++;
+                return null;
+            }
+        }
+
+        long result = code.invoke(values);
+        if (returnType == Type.BOOLEAN) {
+            return result != 0 ? BooleanObj.TRUE : BooleanObj.FALSE;
+        }
+        return IntegerObj.valueOf(result);
+    }
+
+    /**
+     * @return Whether this code was compiled for these parameter types
+     */
+    boolean accepts(Type[] types) {
+        return Arrays.equals(parameterTypes, types);
+    }
+
+    /**
+     * @return The same code for another FunctionObj of the same literal, with its own deopt count
+     */
+    JitFunction copy() {
+        return new JitFunction(code, parameterTypes, returnType, selfNames);
+    }
+
+    /**
+     * @return How many calls this code has handed back to the interpreter
+     */
+    int getDeopts() {
+        return deopts;
+    }
+}
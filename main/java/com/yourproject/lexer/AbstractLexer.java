@@ -0,0 +1,149 @@
+package main.java.com.yourproject.lexer;
+
+
+import main.java.com.yourproject.tokens.TokenType;
+
+/**
+ * The token rules shared by the lexers. A subclass supplies the characters (from a String,
+ * a Reader or UTF-8 bytes) through readChar() and peekChar(), and turns the types scanToken()
+ * returns into tokens, taking their text from what was consumed since startToken().
+ */
+abstract class AbstractLexer implements TokenSource {
+    int ch; // current char under examination, 0 at the end of input
+
+    /**
+     * Reads the next character into ch and advances position
+     */
+    abstract void readChar();
+
+    /**
+     * Peeks at the next character without consuming it
+     * @return The character after ch, or 0 at the end of input
+     */
+    abstract int peekChar();
+
+    /**
+     * Marks the current character as the first one of the token being scanned
+     */
+    abstract void startToken();
+
+    /**
+     * @return The keyword spelled by the letters consumed since startToken(), or IDENT
+     */
+    abstract TokenType keyword();
+
+    /**
+     * Consumes a character that starts no token
+     * @return The type of the token it becomes
+     */
+    TokenType illegal() {
+        readChar();
+        return TokenType.ILLEGAL;
+    }
+
+    /**
+     * Scans the next token without materializing it
+     * @return The type of the scanned token
+     */
+    final TokenType scanToken() {
+        TokenType type;
+        skipWhitespace();
+        startToken();
+
+        switch (ch) {
+            case '=':
+                type = withEquals(TokenType.ASSIGN, TokenType.EQ);
+                break;
+            case '+':
+                type = TokenType.PLUS;
+                break;
+            case '-':
+                type = TokenType.MINUS;
+                break;
+            case '!':
+                type = withEquals(TokenType.BANG, TokenType.NOT_EQ);
+                break;
+            case '/':
+                type = TokenType.SLASH;
+                break;
+            case '*':
+                type = TokenType.ASTERISK;
+                break;
+            case '<':
+                type = withEquals(TokenType.LT, TokenType.LE);
+                break;
+            case '>':
+                type = withEquals(TokenType.GT, TokenType.GE);
+                break;
+            case ';':
+                type = TokenType.SEMICOLON;
+                break;
+            case ',':
+                type = TokenType.COMMA;
+                break;
+            case '(':
+                type = TokenType.LPAREN;
+                break;
+            case ')':
+                type = TokenType.RPAREN;
+                break;
+            case '{':
+                type = TokenType.LBRACE;
+                break;
+            case '}':
+                type = TokenType.RBRACE;
+                break;
+            case 0:
+                type = TokenType.EOF;
+                break;
+            default:
+                return scanWord();
+        }
+
+        readChar();
+        return type;
+    }
+
+    /**
+     * Scans an identifier, a keyword or a number, or consumes an illegal character
+     */
+    private TokenType scanWord() {
+        if (CharClass.isLetter(ch)) {
+            readRun(CharClass.LETTER);
+            return keyword();
+        } else if (CharClass.isDigit(ch)) {
+            readRun(CharClass.DIGIT);
+            return TokenType.INT;
+        }
+        return illegal();
+    }
+
+    /**
+     * Scans a one-char operator that becomes another one when followed by '='
+     */
+    private TokenType withEquals(TokenType single, TokenType withEquals) {
+        if (peekChar() == '=') {
+            readChar();
+            return withEquals;
+        }
+        return single;
+    }
+
+    /**
+     * Consumes a run of characters of one class (an identifier or a number)
+     */
+    private void readRun(byte charClass) {
+        while (CharClass.of(ch) == charClass) {
+            readChar();
+        }
+    }
+
+    /**
+     * Skips whitespace characters
+     */
+    private void skipWhitespace() {
+        while (CharClass.isWhitespace(ch)) {
+            readChar();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package main.java.com.yourproject.lexer;
+
+/**
+ * Precomputed character classification used by the lexers.
+ * ASCII characters are answered from a lookup table; everything else takes the slow path.
+ */
+final class CharClass {
+    static final byte OTHER = 0;
+    static final byte LETTER = 1;     // [a-zA-Z_]
+    static final byte DIGIT = 2;      // [0-9]
+    static final byte WHITESPACE = 3; // [ \t\n\x0B\f\r]
+
+    private static final byte[] ASCII = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) ASCII[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++) ASCII[c] = LETTER;
+        ASCII['_'] = LETTER;
+        for (char c = '0'; c <= '9'; c++) ASCII[c] = DIGIT;
+        ASCII[' '] = WHITESPACE;
+        ASCII['\t'] = WHITESPACE;
+        ASCII['\n'] = WHITESPACE;
+        ASCII[0x0B] = WHITESPACE;
+        ASCII['\f'] = WHITESPACE;
+        ASCII['\r'] = WHITESPACE;
+    }
+
+    private CharClass() {}
+
+    /**
+     * Returns the class of a character
+     * @param c The character (or code point) to classify
+     * @return One of OTHER, LETTER, DIGIT or WHITESPACE
+     */
+    static byte of(int c) {
+        return c < 128 ? ASCII[c] : nonAscii(c);
+    }
+
+    static boolean isLetter(int c) {
+        return of(c) == LETTER;
+    }
+
+    static boolean isDigit(int c) {
+        return of(c) == DIGIT;
+    }
+
+    static boolean isWhitespace(int c) {
+        return of(c) == WHITESPACE;
+    }
+
+    /**
+     * Slow path for non-ASCII input. Identifiers, numbers and whitespace are ASCII-only in Monkey,
+     * so every other character lexes as ILLEGAL.
+     */
+    private static byte nonAscii(int c) {
+        return OTHER;
+    }
+}
@@ -4,180 +4,102 @@ package main.java.com.yourproject.lexer;
 import main.java.com.yourproject.tokens.Token;
 import main.java.com.yourproject.tokens.TokenType;
 
-import java.util.regex.Pattern;
-
 /**
  * Converts source code into tokens for the Monkey language parser
  */
-public class Lexer {
+public class Lexer extends AbstractLexer {
     private final String input;
+    private final int end;    // offset where lexing stops, normally input.length()
     private int position;     // current position in input (points to current char)
     private int readPosition; // current reading position in input (after current char)
-    private char ch;         // current char under examination
 
-    // Pattern matchers
-    private static final Pattern LETTER_PATTERN = Pattern.compile("^[a-zA-Z_]$");
-    private static final Pattern DIGIT_PATTERN = Pattern.compile("^\\d$");
-    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("^\\s$");
+    private int tokenStart;   // offset of the last scanned token
+    private int tokenEnd;     // offset just past the last scanned token
 
     public Lexer(String input) {
-        this.input = input;
-        readChar();
+        this(input, 0, input.length());
     }
 
     /**
-     * Returns the next token from the input
+     * Creates a lexer over a region of the input. Token offsets stay relative to the whole input.
+     * @param input The source text
+     * @param start Offset where lexing starts
+     * @param end Offset where the input is treated as ending
      */
-    public Token nextToken() {
-        Token token;
-        skipWhitespace();
-
-        switch (ch) {
-            case '=':
-                if (peekChar() == '=') {
-                    readChar();
-                    token = new Token(TokenType.EQ, "==");
-                } else {
-                    token = new Token(TokenType.ASSIGN, String.valueOf(ch));
-                }
-                break;
-            case '+':
-                token = new Token(TokenType.PLUS, String.valueOf(ch));
-                break;
-            case '-':
-                token = new Token(TokenType.MINUS, String.valueOf(ch));
-                break;
-            case '!':
-                if (peekChar() == '=') {
-                    readChar();
-                    token = new Token(TokenType.NOT_EQ, "!=");
-                } else {
-                    token = new Token(TokenType.BANG, String.valueOf(ch));
-                }
-                break;
-            case '/':
-                token = new Token(TokenType.SLASH, String.valueOf(ch));
-                break;
-            case '*':
-                token = new Token(TokenType.ASTERISK, String.valueOf(ch));
-                break;
-            case '<':
-                if (peekChar() == '=') {
-                    readChar();
-                    token = new Token(TokenType.LE, "<=");
-                } else {
-                    token = new Token(TokenType.LT, String.valueOf(ch));
-                }
-                break;
-            case '>':
-                if (peekChar() == '=') {
-                    readChar();
-                    token = new Token(TokenType.GE, ">=");
-                } else {
-                    token = new Token(TokenType.GT, String.valueOf(ch));
-                }
-                break;
-            case ';':
-                token = new Token(TokenType.SEMICOLON, String.valueOf(ch));
-                break;
-            case ',':
-                token = new Token(TokenType.COMMA, String.valueOf(ch));
-                break;
-            case '(':
-                token = new Token(TokenType.LPAREN, String.valueOf(ch));
-                break;
-            case ')':
-                token = new Token(TokenType.RPAREN, String.valueOf(ch));
-                break;
-            case '{':
-                token = new Token(TokenType.LBRACE, String.valueOf(ch));
-                break;
-            case '}':
-                token = new Token(TokenType.RBRACE, String.valueOf(ch));
-                break;
-            case 0:
-                token = new Token(TokenType.EOF, "");
-                break;
-            default:
-                if (isLetter(ch)) {
-                    String literal = readIdentifier();
-                    return new Token(TokenType.lookupTokenType(literal), literal);
-                } else if (isDigit(ch)) {
-                    return new Token(TokenType.INT, readNumber());
-                } else {
-                    token = new Token(TokenType.ILLEGAL, String.valueOf(ch));
-                }
+    public Lexer(String input, int start, int end) {
+        if (start < 0 || start > end || end > input.length()) {
+            throw new IndexOutOfBoundsException("region [" + start + ", " + end + ") out of bounds for length "
+                    + input.length());
         }
-
+        this.input = input;
+        this.end = end;
+        this.readPosition = start;
         readChar();
-        return token;
     }
 
     /**
-     * Reads the next character and advances position
+     * Returns the next token from the input
      */
-    private void readChar() {
-        if (readPosition >= input.length()) {
-            ch = 0; // ASCII code for "NUL"
-        } else {
-            ch = input.charAt(readPosition);
+    @Override
+    public Token nextToken() {
+        TokenType type = scan();
+        if (type.hasFixedLiteral()) {
+            return Token.of(type);
         }
-        position = readPosition;
-        readPosition++;
+        return new Token(type, input.substring(tokenStart, tokenEnd));
     }
 
     /**
-     * Peeks at the next character without consuming it
+     * Scans the next token without materializing it. The token's extent is
+     * available afterwards through tokenStart() and tokenEnd().
+     * @return The type of the scanned token
      */
-    private char peekChar() {
-        if (readPosition >= input.length()) {
-            return 0;
-        }
-        return input.charAt(readPosition);
+    public TokenType scan() {
+        TokenType type = scanToken();
+        tokenEnd = type == TokenType.EOF ? tokenStart : position;
+        return type;
     }
 
     /**
-     * Reads an identifier (variable name or keyword)
+     * @return The offset of the last scanned token in the input
      */
-    private String readIdentifier() {
-        int startPos = position;
-        while (isLetter(ch)) {
-            readChar();
-        }
-        return input.substring(startPos, position);
+    public int tokenStart() {
+        return tokenStart;
     }
 
     /**
-     * Reads a number literal
+     * @return The offset just past the last scanned token in the input
      */
-    private String readNumber() {
-        int startPos = position;
-        while (isDigit(ch)) {
-            readChar();
-        }
-        return input.substring(startPos, position);
+    public int tokenEnd() {
+        return tokenEnd;
     }
 
-    /**
-     * Skips whitespace characters
-     */
-    private void skipWhitespace() {
-        while (WHITESPACE_PATTERN.matcher(String.valueOf(ch)).matches()) {
-            readChar();
-        }
+    @Override
+    void startToken() {
+        tokenStart = position;
     }
 
-    /**
-     * Checks if character is valid for identifiers
-     */
-    private boolean isLetter(char c) {
-        return LETTER_PATTERN.matcher(String.valueOf(c)).matches();
+    @Override
+    TokenType keyword() {
+        return TokenType.lookupKeyword(input, tokenStart, position - tokenStart);
     }
 
-    /**
-     * Checks if character is a digit
-     */
-    private boolean isDigit(char c) {
-        return DIGIT_PATTERN.matcher(String.valueOf(c)).matches();
+    @Override
+    void readChar() {
+        if (readPosition >= end) {
+            ch = 0; // ASCII code for "NUL"
+        } else {
+            ch = input.charAt(readPosition);
+        }
+        position = readPosition;
+        readPosition++;
+    }
+
+    @Override
+    int peekChar() {
+        if (readPosition >= end) {
+            return 0;
+        }
+        return input.charAt(readPosition);
     }
 }
@@ -0,0 +1,218 @@
+package main.java.com.yourproject.lexer;
+
+
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lexer that works directly on UTF-8 encoded bytes, typically a memory-mapped file.
+ * ASCII bytes are lexed in place; runs of non-ASCII bytes are decoded only when they
+ * are reached, and lex as ILLEGAL tokens exactly as Lexer does for the decoded text.
+ */
+public class MappedLexer extends AbstractLexer {
+    private final ByteBuffer input;
+    private final CharSequence inputChars; // input as a CharSequence, for keyword lookup
+    private final int length;
+    private int position;     // current position in input (points to current byte)
+    private int readPosition; // current reading position in input (after current byte)
+    private int tokenStart;   // offset of the token being scanned
+
+    private byte[] scratch = new byte[64]; // identifier and number bytes
+    private char[] pending;                // decoded non-ASCII chars still to be returned
+    private int pendingIndex;
+
+    /**
+     * Creates a lexer over UTF-8 encoded bytes
+     * @param input The source bytes between position 0 and the buffer's limit
+     */
+    public MappedLexer(ByteBuffer input) {
+        this.input = input;
+        this.inputChars = new ByteChars(input);
+        this.length = input.limit();
+        readChar();
+    }
+
+    /**
+     * Memory-maps a file read-only and creates a lexer over it.
+     * The mapping stays valid after the channel is closed.
+     * @param path The UTF-8 encoded source file
+     * @return The lexer
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedLexer open(Path path) throws IOException {
+        return new MappedLexer(map(path));
+    }
+
+    /**
+     * Memory-maps a file read-only, for callers that also need the bytes themselves
+     * @param path The file to map
+     * @return The mapping, positioned at 0
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("file too large to map: " + path + " (" + size + " bytes)");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Returns the next token from the input
+     */
+    @Override
+    public Token nextToken() {
+        if (pending != null) {
+            return nextPendingToken();
+        }
+
+        TokenType type = scanToken();
+        if (type.hasFixedLiteral()) {
+            return Token.of(type);
+        }
+        if (pending != null) {
+            return nextPendingToken();
+        }
+        int count = copyToken();
+        return new Token(type, new String(scratch, 0, count, StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    void startToken() {
+        tokenStart = position;
+    }
+
+    @Override
+    TokenType keyword() {
+        return TokenType.lookupKeyword(inputChars, tokenStart, position - tokenStart);
+    }
+
+    /**
+     * Decodes a run of non-ASCII bytes into the chars nextToken() returns one by one
+     */
+    @Override
+    TokenType illegal() {
+        if (ch >= 0x80) {
+            decodeNonAscii();
+            return TokenType.ILLEGAL;
+        }
+        return super.illegal();
+    }
+
+    /**
+     * Copies the ASCII bytes consumed since startToken() into the scratch buffer
+     * @return Their number
+     */
+    private int copyToken() {
+        int count = position - tokenStart;
+        if (count > scratch.length) {
+            scratch = new byte[Math.max(count, scratch.length * 2)];
+        }
+        input.get(tokenStart, scratch, 0, count);
+        return count;
+    }
+
+    /**
+     * Slow path: decodes the run of non-ASCII bytes starting at the current position.
+     * An ASCII byte can never be part of a multi-byte sequence, so decoding the run on
+     * its own gives the same chars as decoding the whole file.
+     */
+    private void decodeNonAscii() {
+        int start = position;
+        while (ch >= 0x80) {
+            readChar();
+        }
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            CharBuffer chars = decoder.decode(input.slice(start, position - start));
+            pending = new char[chars.remaining()];
+            chars.get(pending);
+            pendingIndex = 0;
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("REPLACE decoder reported a coding error", e);
+        }
+    }
+
+    private Token nextPendingToken() {
+        Token token = new Token(TokenType.ILLEGAL, String.valueOf(pending[pendingIndex++]));
+        if (pendingIndex == pending.length) {
+            pending = null;
+        }
+        return token;
+    }
+
+    /**
+     * Reads the next byte and advances position
+     */
+    @Override
+    void readChar() {
+        if (readPosition >= length) {
+            ch = 0; // ASCII code for "NUL"
+        } else {
+            ch = input.get(readPosition) & 0xFF;
+        }
+        position = readPosition;
+        readPosition++;
+    }
+
+    /**
+     * Peeks at the next byte without consuming it
+     */
+    @Override
+    int peekChar() {
+        if (readPosition >= length) {
+            return 0;
+        }
+        return input.get(readPosition) & 0xFF;
+    }
+
+    /**
+     * Bytes read as ISO-8859-1 chars. The lexer only looks at ASCII runs through it.
+     */
+    private static final class ByteChars implements CharSequence {
+        private final ByteBuffer bytes;
+
+        ByteChars(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteChars(bytes.slice(start, end - start));
+        }
+
+        @Override
+        public String toString() {
+            byte[] chars = new byte[bytes.limit()];
+            bytes.get(0, chars);
+            return new String(chars, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package main.java.com.yourproject.lexer;
+
+
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Lexer that pulls characters from a Reader through a fixed-size buffer instead of
+ * holding the whole program in memory. Produces the same tokens as Lexer.
+ */
+public class StreamingLexer extends AbstractLexer implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final CharSequence bufferChars; // buffer as a CharSequence, for keyword lookup
+    private int limit;        // number of valid chars in buffer
+    private int position = -1; // index of the current char in buffer
+    private boolean endOfInput;
+
+    private int mark = -1;    // buffer index where the current token started
+    private final StringBuilder spill = new StringBuilder(); // token text carried over a refill
+
+    /**
+     * Creates a lexer over a character stream
+     * @param reader The source; closed when the lexer is closed
+     */
+    public StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a lexer over a character stream with a given buffer size
+     * @param reader The source; closed when the lexer is closed
+     * @param bufferSize Number of chars held in memory at once, at least 2
+     */
+    public StreamingLexer(Reader reader, int bufferSize) {
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("buffer size must be at least 2, got " + bufferSize);
+        }
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.bufferChars = new BufferChars(buffer);
+        readChar();
+    }
+
+    /**
+     * Creates a lexer over a byte channel, decoding it with the given charset
+     * @param channel The source; closed when the lexer is closed
+     * @param charset The source encoding
+     */
+    public StreamingLexer(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newReader(channel, charset.newDecoder(), DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Returns the next token from the input
+     */
+    @Override
+    public Token nextToken() {
+        TokenType type = scanToken();
+        if (type.hasFixedLiteral()) {
+            return Token.of(type);
+        }
+        return new Token(type, takeToken());
+    }
+
+    @Override
+    void startToken() {
+        spill.setLength(0);
+        mark = position;
+    }
+
+    @Override
+    TokenType keyword() {
+        if (spill.length() == 0) {
+            return TokenType.lookupKeyword(bufferChars, mark, position - mark);
+        }
+        spill.append(buffer, mark, position - mark);
+        mark = position;
+        return TokenType.lookupKeyword(spill, 0, spill.length());
+    }
+
+    /**
+     * Returns the text of the token consumed since startToken(). It is left in
+     * buffer[mark, position), preceded by whatever spilled over from earlier refills.
+     */
+    private String takeToken() {
+        String literal;
+        if (spill.length() == 0) {
+            literal = new String(buffer, mark, position - mark);
+        } else {
+            literal = spill.append(buffer, mark, position - mark).toString();
+            spill.setLength(0);
+        }
+        mark = -1;
+        return literal;
+    }
+
+    /**
+     * Reads the next character and advances position, refilling the buffer when needed
+     */
+    @Override
+    void readChar() {
+        position++;
+        if (position >= limit) {
+            if (mark >= 0) {
+                spill.append(buffer, mark, limit - mark);
+                mark = 0;
+            }
+            limit = fill(0);
+            position = 0;
+        }
+        ch = position < limit ? buffer[position] : 0;
+    }
+
+    @Override
+    int peekChar() {
+        if (position + 1 >= limit) {
+            if (endOfInput) {
+                return 0;
+            }
+            // Keep the current char, where the token starts, at the front of the buffer and read behind it
+            buffer[0] = buffer[position];
+            position = 0;
+            mark = 0;
+            limit = 1 + fill(1);
+            if (limit < 2) {
+                return 0;
+            }
+        }
+        return buffer[position + 1];
+    }
+
+    /**
+     * Reads from the underlying stream into the buffer
+     * @param offset First buffer index to fill
+     * @return Number of chars read, 0 at end of input
+     */
+    private int fill(int offset) {
+        if (endOfInput) {
+            return 0;
+        }
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, offset, buffer.length - offset);
+            } while (read == 0);
+            if (read < 0) {
+                endOfInput = true;
+                return 0;
+            }
+            return read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * A view of the buffer that follows refills, unlike a String copy
+     */
+    private static final class BufferChars implements CharSequence {
+        private final char[] chars;
+
+        BufferChars(char[] chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int length() {
+            return chars.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars);
+        }
+    }
+}
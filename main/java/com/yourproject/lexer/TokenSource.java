@@ -0,0 +1,16 @@
+package main.java.com.yourproject.lexer;
+
+
+import main.java.com.yourproject.tokens.Token;
+
+/**
+ * A stream of tokens consumed by the Parser.
+ * Implementations must keep returning EOF once the input is exhausted.
+ */
+public interface TokenSource {
+    /**
+     * Returns the next token from the input
+     * @return The next token, or an EOF token at the end of input
+     */
+    Token nextToken();
+}
@@ -0,0 +1,168 @@
+package main.java.com.yourproject.memo;
+
+
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.objects.NullObj;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The remembered results of one pure function, keyed by argument values.
+ *
+ * The table is only valid while the bindings the function depends on (the names it reads,
+ * and transitively those of the functions it calls) hold the values they had when the table
+ * was built; the Memoizer checks them before every use. It holds at most `capacity` results
+ * and drops the least recently used one when full.
+ *
+ * All methods are thread-safe.
+ */
+public final class MemoTable {
+    // Set on a function whose body is not pure, so it is analyzed once
+    static final MemoTable IMPURE = new MemoTable(null, List.of(), 0);
+
+    private final Memoizer memoizer;
+    private final Environment[] guardEnvs;
+    private final String[] guardNames;
+    private final EvaluatorObject[] guardValues;
+    private final LinkedHashMap<Key, EvaluatorObject> results;
+
+    MemoTable(Memoizer memoizer, List<Guard> guards, int capacity) {
+        this.memoizer = memoizer;
+        this.guardEnvs = new Environment[guards.size()];
+        this.guardNames = new String[guards.size()];
+        this.guardValues = new EvaluatorObject[guards.size()];
+        for (int i = 0; i < guards.size(); i++) {
+            guardEnvs[i] = guards.get(i).env;
+            guardNames[i] = guards.get(i).name;
+            guardValues[i] = guards.get(i).value;
+        }
+        // Access order, so iteration starts at the least recently used entry
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, EvaluatorObject> eldest) {
+                if (size() > capacity) {
+                    memoizer.evicted();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return Whether every binding the function depends on still has its value
+     */
+    boolean guardsHold() {
+        for (int i = 0; i < guardNames.length; i++) {
+            if (guardEnvs[i].get(guardNames[i]) != guardValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param args The arguments from index 0
+     * @param count The number of arguments
+     * @return The key for the argument values, or null if an argument is not an integer,
+     *         boolean or null (functions compare by identity, so they make no key)
+     */
+    public Key key(EvaluatorObject[] args, int count) {
+        long[] values = new long[count];
+        byte[] kinds = new byte[count];
+        for (int i = 0; i < count; i++) {
+            EvaluatorObject arg = args[i];
+            if (arg instanceof IntegerObj) {
+                values[i] = ((IntegerObj) arg).getIntegerValue();
+            } else if (arg == BooleanObj.TRUE) {
+                kinds[i] = 1;
+            } else if (arg == BooleanObj.FALSE) {
+                kinds[i] = 2;
+            } else if (arg == NullObj.NULL) {
+                kinds[i] = 3;
+            } else {
+                return null;
+            }
+        }
+        return new Key(values, kinds);
+    }
+
+    /**
+     * @return The remembered result, or null on a miss
+     */
+    public EvaluatorObject get(Key key) {
+        EvaluatorObject result;
+        synchronized (this) {
+            result = results.get(key);
+        }
+        memoizer.looked(result != null);
+        return result;
+    }
+
+    /**
+     * Remembers a result if it is a plain value: an integer, boolean or null. Anything else
+     * (an error, a function) is not kept.
+     */
+    public void put(Key key, EvaluatorObject result) {
+        if (!(result instanceof IntegerObj || result instanceof BooleanObj || result == NullObj.NULL)) {
+            return;
+        }
+        synchronized (this) {
+            results.put(key, result);
+        }
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * A binding a table depends on, with the value it had when the table was built
+     */
+    static final class Guard {
+        final Environment env;
+        final String name;
+        final EvaluatorObject value;
+
+        Guard(Environment env, String name, EvaluatorObject value) {
+            this.env = env;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The argument values of a call: integer values, and a kind per argument so that 1,
+     * true and null never collide
+     */
+    public static final class Key {
+        private final long[] values;
+        private final byte[] kinds;
+        private final int hash;
+
+        Key(long[] values, byte[] kinds) {
+            this.values = values;
+            this.kinds = kinds;
+            this.hash = 31 * Arrays.hashCode(values) + Arrays.hashCode(kinds);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key that = (Key) obj;
+            return hash == that.hash && Arrays.equals(values, that.values) && Arrays.equals(kinds, that.kinds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package main.java.com.yourproject.memo;
+
+
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of pure functions for the Evaluator.
+ *
+ * A function is pure when its body is pure-shaped (see Purity) and every function it calls
+ * by name is pure too, checked on the values those names have when its table is built. Its
+ * result then depends only on its arguments and on the bindings of the names it and its
+ * callees read. The table (see MemoTable) records those bindings and is rebuilt empty as soon
+ * as one of them changes, e.g. when a global is bound again by a later `let`.
+ *
+ * Only calls whose arguments are integers, booleans or null are remembered, and only results
+ * of those kinds: a function value's identity is observable through ==, so a remembered one
+ * could differ from a fresh one. A call that throws (division by zero) is not remembered.
+ *
+ * A Memoizer can be shared by Evaluators on several threads: tables and counters are
+ * thread-safe. Two threads that miss on the same call at once both compute it.
+ */
+public class Memoizer {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder tables = new LongAdder();
+    private final LongAdder impure = new LongAdder();
+
+    public Memoizer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of results kept per function
+     */
+    public Memoizer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return A Memoizer keeping -Dmonkey.memo.capacity results per function, or null if the
+     *         property is not set or not positive (memoization disabled, the default)
+     */
+    public static Memoizer fromSystemProperties() {
+        int capacity = Integer.getInteger("monkey.memo.capacity", 0);
+        return capacity > 0 ? new Memoizer(capacity) : null;
+    }
+
+    /**
+     * @param function A function about to be called
+     * @return Its table, or null if the function is not pure
+     */
+    public MemoTable tableFor(FunctionObj function) {
+        MemoTable table = function.getMemoTable();
+        if (table == MemoTable.IMPURE) {
+            return null;
+        }
+        if (table != null && !table.guardsHold()) {
+            invalidations.increment();
+            table = null;
+        }
+        if (table == null) {
+            table = build(function);
+            function.setMemoTable(table);
+        }
+        return table == MemoTable.IMPURE ? null : table;
+    }
+
+    private MemoTable build(FunctionObj function) {
+        List<MemoTable.Guard> guards = new ArrayList<>();
+        if (!collect(function, Collections.newSetFromMap(new IdentityHashMap<>()), guards)) {
+            impure.increment();
+            return MemoTable.IMPURE;
+        }
+        tables.increment();
+        return new MemoTable(this, guards, capacity);
+    }
+
+    /**
+     * Adds the bindings a function depends on to guards, following the functions it calls
+     * @param visited Functions already being checked: a recursive call is pure if the rest is
+     * @return Whether the function is pure
+     */
+    private boolean collect(FunctionObj function, Set<FunctionObj> visited, List<MemoTable.Guard> guards) {
+        if (!visited.add(function)) {
+            return true;
+        }
+        Purity purity = purity(function);
+        if (purity == Purity.IMPURE) {
+            return false;
+        }
+        Environment env = function.getEnv();
+        for (String name : purity.reads) {
+            EvaluatorObject value = env.get(name);
+            guards.add(new MemoTable.Guard(env, name, value));
+            // Calling anything but a function is an error, the same on every call
+            if (purity.callees.contains(name) && value instanceof FunctionObj
+                    && !collect((FunctionObj) value, visited, guards)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Analyzes a function's literal once. Threads that get here first at the same time each
+     * analyze it and agree on the result, so no lock is needed.
+     */
+    private static Purity purity(FunctionObj function) {
+        FunctionLiteral literal = function.getLiteral();
+        Purity purity = literal == null ? null : literal.getPurity();
+        if (purity == null) {
+            purity = Purity.analyze(function.getParameters(), function.getBody());
+            if (literal != null) {
+                literal.setPurity(purity);
+            }
+        }
+        return purity;
+    }
+
+    void looked(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The share of lookups that found a result, 0 before any lookup
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Memoizer[capacity=%d, tables=%d, impure=%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d, invalidations=%d]",
+                capacity, tables.sum(), impure.sum(), hits.sum(), misses.sum(), getHitRate(),
+                evictions.sum(), invalidations.sum());
+    }
+}
@@ -0,0 +1,167 @@
+package main.java.com.yourproject.memo;
+
+
+import main.java.com.yourproject.ast.NodeVisitor;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the AST alone says about a function body: whether its result can depend on anything
+ * but its arguments and the bindings of the names it reads.
+ *
+ * A body is pure-shaped when it creates no closures (no nested function literals) and every
+ * call in it goes through a name that is neither a parameter nor one of its own lets, so the
+ * callee is a binding the Memoizer can check. Monkey has no assignment or I/O: with those
+ * bindings unchanged, the same arguments always give the same result.
+ *
+ * The analysis depends only on the function literal, so the Memoizer keeps it there.
+ */
+public final class Purity {
+    /**
+     * The analysis of a body that is not pure-shaped
+     */
+    static final Purity IMPURE = new Purity(Set.of(), Set.of());
+
+    // Every name the body reads other than its parameters. A let name is included: until
+    // its let runs, the name reads the binding outside the function.
+    final Set<String> reads;
+    // The names the body calls, a subset of reads
+    final Set<String> callees;
+
+    private Purity(Set<String> reads, Set<String> callees) {
+        this.reads = reads;
+        this.callees = callees;
+    }
+
+    /**
+     * @return The names the body depends on, or IMPURE if it is not pure-shaped
+     */
+    static Purity analyze(List<Identifier> parameters, BlockStatement body) {
+        Scan scan = new Scan();
+        if (!body.accept(scan, null)) {
+            return IMPURE;
+        }
+        for (Identifier parameter : parameters) {
+            scan.reads.remove(parameter.getValue());
+            if (scan.callees.contains(parameter.getValue())) {
+                return IMPURE;
+            }
+        }
+        for (String let : scan.lets) {
+            if (scan.callees.contains(let)) {
+                return IMPURE;
+            }
+        }
+        return new Purity(scan.reads, scan.callees);
+    }
+
+    /**
+     * Collects the names a body reads, calls and binds; false if it makes a closure or calls
+     * something other than a name
+     */
+    private static final class Scan implements NodeVisitor<Boolean, Void> {
+        final Set<String> reads = new HashSet<>();
+        final Set<String> callees = new HashSet<>();
+        final Set<String> lets = new HashSet<>();
+
+        private boolean visit(Expression expression) {
+            return expression == null || expression.accept(this, null);
+        }
+
+        private boolean visit(List<Statement> statements) {
+            for (Statement statement : statements) {
+                if (!statement.accept(this, null)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitProgram(Program node, Void context) {
+            return visit(node.getStatements());
+        }
+
+        @Override
+        public Boolean visitLetStatement(LetStatement node, Void context) {
+            lets.add(node.getName().getValue());
+            reads.add(node.getName().getValue());
+            return visit(node.getValue());
+        }
+
+        @Override
+        public Boolean visitReturnStatement(ReturnStatement node, Void context) {
+            return visit(node.getReturnValue());
+        }
+
+        @Override
+        public Boolean visitExpressionStatement(ExpressionStatement node, Void context) {
+            return visit(node.getExpression());
+        }
+
+        @Override
+        public Boolean visitBlockStatement(BlockStatement node, Void context) {
+            return visit(node.getStatements());
+        }
+
+        @Override
+        public Boolean visitIdentifier(Identifier node, Void context) {
+            reads.add(node.getValue());
+            return true;
+        }
+
+        @Override
+        public Boolean visitIntegerLiteral(IntegerLiteral node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitBooleanLiteral(BooleanLiteral node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitPrefixExpression(PrefixExpression node, Void context) {
+            return visit(node.getRight());
+        }
+
+        @Override
+        public Boolean visitInfixExpression(InfixExpression node, Void context) {
+            return visit(node.getLeft()) && visit(node.getRight());
+        }
+
+        @Override
+        public Boolean visitIfExpression(IfExpression node, Void context) {
+            return visit(node.getCondition())
+                    && node.getConsequence().accept(this, null)
+                    && (node.getAlternative() == null || node.getAlternative().accept(this, null));
+        }
+
+        @Override
+        public Boolean visitFunctionLiteral(FunctionLiteral node, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitCallExpression(CallExpression node, Void context) {
+            if (!(node.getFunction() instanceof Identifier)) {
+                return false;
+            }
+            callees.add(((Identifier) node.getFunction()).getValue());
+            if (!visit(node.getFunction())) {
+                return false;
+            }
+            for (Expression argument : node.getArguments()) {
+                if (!visit(argument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.NullObj;
+import main.java.com.yourproject.objects.ReturnObj;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * The statements of a block or function body. A ReturnObj or ErrorObj stops the block.
+ */
+final class BlockNode extends Node {
+    private final Node[] statements;
+
+    BlockNode(Node[] statements) {
+        this.statements = statements;
+        for (Node statement : statements) {
+            adopt(statement);
+        }
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        EvaluatorObject result = NullObj.NULL;
+        for (Node statement : statements) {
+            result = statement.execute(env);
+            if (result instanceof ReturnObj || result instanceof ErrorObj) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        for (int i = 0; i < statements.length; i++) {
+            if (statements[i] == child) {
+                statements[i] = replacement;
+                return;
+            }
+        }
+        super.replaceChild(child, replacement);
+    }
+}
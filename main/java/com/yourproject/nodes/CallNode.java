@@ -0,0 +1,66 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A call. In tail position it returns a TailCall for the enclosing call loop to run.
+ */
+final class CallNode extends Node {
+    private final NodeInterpreter interpreter;
+    private final boolean tailCall;
+    private Node function;
+    private final Node[] arguments;
+
+    CallNode(NodeInterpreter interpreter, boolean tailCall, Node function, Node[] arguments) {
+        this.interpreter = interpreter;
+        this.tailCall = tailCall;
+        this.function = adopt(function);
+        this.arguments = arguments;
+        for (Node argument : arguments) {
+            adopt(argument);
+        }
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        EvaluatorObject callee = function.execute(env);
+        if (callee instanceof ErrorObj) {
+            return callee;
+        }
+        List<EvaluatorObject> args = new ArrayList<>(arguments.length);
+        for (Node argument : arguments) {
+            EvaluatorObject value = argument.execute(env);
+            if (value instanceof ErrorObj) {
+                return value;
+            }
+            args.add(value);
+        }
+
+        if (tailCall && callee instanceof FunctionObj) {
+            return new TailCall((FunctionObj) callee, args);
+        }
+        return interpreter.apply(callee, args);
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (function == child) {
+            function = replacement;
+            return;
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == child) {
+                arguments[i] = replacement;
+                return;
+            }
+        }
+        super.replaceChild(child, replacement);
+    }
+}
@@ -0,0 +1,35 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * A literal, or anything else whose value never changes. Integer literals keep one
+ * IntegerObj, which is safe because integers are always compared by value.
+ */
+final class ConstantNode extends Node {
+    private final EvaluatorObject value;
+    private final boolean isInteger;
+    private final long integer;
+
+    ConstantNode(EvaluatorObject value) {
+        this.value = value;
+        this.isInteger = value instanceof IntegerObj;
+        this.integer = isInteger ? ((IntegerObj) value).getIntegerValue() : 0;
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        return value;
+    }
+
+    @Override
+    long executeLong(Environment env) throws UnexpectedResult {
+        if (isInteger) {
+            return integer;
+        }
+        throw new UnexpectedResult(value);
+    }
+}
@@ -0,0 +1,56 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Identifier;
+import main.java.com.yourproject.ast.statements.BlockStatement;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.List;
+
+/**
+ * A function literal: makes a closure over the current environment. Also holds what every
+ * call of those closures needs, so it is worked out once per literal.
+ */
+final class FunctionNode extends Node {
+    private final List<Identifier> parameters;
+    private final BlockStatement statement;
+    private final String[] slotNames;
+    final BlockNode body;
+    final String[] parameterNames;
+    final int[] parameterSlots; // -1 binds by name
+
+    /**
+     * @param slotNames The slot layout from the Resolver, or null for name-only calls
+     */
+    FunctionNode(List<Identifier> parameters, BlockStatement statement, String[] slotNames, BlockNode body) {
+        this.parameters = parameters;
+        this.statement = statement;
+        this.slotNames = slotNames;
+        this.body = adopt(body);
+        this.parameterNames = new String[parameters.size()];
+        this.parameterSlots = new int[parameters.size()];
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterNames[i] = parameters.get(i).getValue();
+            parameterSlots[i] = LetNode.slotOf(parameters.get(i));
+        }
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        return new NodeFunction(parameters, statement, env, slotNames, this);
+    }
+
+    /**
+     * @return The environment of one call, with the arguments bound
+     */
+    Environment enter(Environment outer, List<EvaluatorObject> args) {
+        Environment callEnv = slotNames != null
+                ? new Environment(outer, slotNames)
+                : new Environment(outer);
+        for (int i = 0; i < parameterSlots.length; i++) {
+            LetNode.bind(callEnv, parameterSlots[i], parameterNames[i], args.get(i));
+        }
+        return callEnv;
+    }
+}
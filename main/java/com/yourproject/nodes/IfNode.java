@@ -0,0 +1,45 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.NullObj;
+import main.java.com.yourproject.runtime.Environment;
+
+final class IfNode extends Node {
+    private Node condition;
+    private Node consequence;
+    private Node alternative; // null without else
+
+    IfNode(Node condition, Node consequence, Node alternative) {
+        this.condition = adopt(condition);
+        this.consequence = adopt(consequence);
+        this.alternative = adopt(alternative);
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        EvaluatorObject value = condition.execute(env);
+        if (value instanceof ErrorObj) {
+            return value;
+        }
+        if (value != BooleanObj.FALSE && value != NullObj.NULL) {
+            return consequence.execute(env);
+        }
+        return alternative != null ? alternative.execute(env) : NullObj.NULL;
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (condition == child) {
+            condition = replacement;
+        } else if (consequence == child) {
+            consequence = replacement;
+        } else if (alternative == child) {
+            alternative = replacement;
+        } else {
+            super.replaceChild(child, replacement);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Operator;
+import main.java.com.yourproject.evaluator.EvaluatorUtils;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * An infix operator, in one of three states:
+ *
+ *   Uninitialized  the first run looks at the operand types and rewrites the node into
+ *   Int...         an integer operator (IntAdd, IntLessThan, ...), which works on primitive
+ *                  longs and asks integer operands for executeLong, or into
+ *   Generic        the Evaluator's full rules, for any other operands.
+ *
+ * An integer node that meets a non-integer operand rewrites itself to Generic for good, so a
+ * node changes at most twice. The operands are never evaluated twice: the values already
+ * computed go into the generic operation. A node that a recursive call has already rewritten
+ * while it was running just finishes with the generic operation.
+ */
+abstract class InfixNode extends Node {
+    final Operator operator;
+    Node left;
+    Node right;
+
+    InfixNode(Operator operator, Node left, Node right) {
+        this.operator = operator;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    static InfixNode create(Operator operator, Node left, Node right) {
+        return new Uninitialized(operator, left, right);
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (left == child) {
+            left = replacement;
+        } else if (right == child) {
+            right = replacement;
+        } else {
+            super.replaceChild(child, replacement);
+        }
+    }
+
+    /**
+     * Rewrites this node to Generic and finishes the operation on values already computed
+     */
+    final EvaluatorObject generalize(EvaluatorObject leftValue, EvaluatorObject rightValue) {
+        if (!isReplaced()) {
+            replace(new Generic(operator, left, right));
+        }
+        return EvaluatorUtils.evalInfixExpression(operator, leftValue, rightValue);
+    }
+
+    /**
+     * Rewrites this node to Generic after the left operand came out as something other than
+     * an integer, then evaluates the right operand unless the left one is an error
+     */
+    final EvaluatorObject generalizeAfterLeft(EvaluatorObject leftValue, Environment env) {
+        if (leftValue instanceof ErrorObj) {
+            return leftValue;
+        }
+        EvaluatorObject rightValue = right.execute(env);
+        if (rightValue instanceof ErrorObj) {
+            return rightValue;
+        }
+        return generalize(leftValue, rightValue);
+    }
+
+    /**
+     * The integer node for an operator, or null if the operator has no integer meaning
+     */
+    private static InfixNode integer(Operator operator, Node left, Node right) {
+        switch (operator) {
+            case ADD: return new IntAdd(left, right);
+            case SUBTRACT: return new IntSub(left, right);
+            case MULTIPLY: return new IntMul(left, right);
+            case DIVIDE: return new IntDiv(left, right);
+            case LESS_THAN: return new IntLessThan(left, right);
+            case GREATER_THAN: return new IntGreaterThan(left, right);
+            case EQUAL: return new IntEqual(left, right);
+            case NOT_EQUAL: return new IntNotEqual(left, right);
+            default: return null;
+        }
+    }
+
+    static final class Uninitialized extends InfixNode {
+        Uninitialized(Operator operator, Node left, Node right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        EvaluatorObject execute(Environment env) {
+            EvaluatorObject leftValue = left.execute(env);
+            if (leftValue instanceof ErrorObj) {
+                return leftValue;
+            }
+            EvaluatorObject rightValue = right.execute(env);
+            if (rightValue instanceof ErrorObj) {
+                return rightValue;
+            }
+
+            if (!isReplaced()) {
+                InfixNode specialized = null;
+                if (leftValue instanceof IntegerObj && rightValue instanceof IntegerObj) {
+                    specialized = integer(operator, left, right);
+                }
+                replace(specialized != null ? specialized : new Generic(operator, left, right));
+            }
+            return EvaluatorUtils.evalInfixExpression(operator, leftValue, rightValue);
+        }
+    }
+
+    static final class Generic extends InfixNode {
+        Generic(Operator operator, Node left, Node right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        EvaluatorObject execute(Environment env) {
+            EvaluatorObject leftValue = left.execute(env);
+            if (leftValue instanceof ErrorObj) {
+                return leftValue;
+            }
+            EvaluatorObject rightValue = right.execute(env);
+            if (rightValue instanceof ErrorObj) {
+                return rightValue;
+            }
+            return EvaluatorUtils.evalInfixExpression(operator, leftValue, rightValue);
+        }
+    }
+
+    /**
+     * An operator from two integers to an integer
+     */
+    abstract static class IntArithmetic extends InfixNode {
+        IntArithmetic(Operator operator, Node left, Node right) {
+            super(operator, left, right);
+        }
+
+        abstract long compute(long left, long right);
+
+        @Override
+        final EvaluatorObject execute(Environment env) {
+            long leftValue;
+            try {
+                leftValue = left.executeLong(env);
+            } catch (UnexpectedResult e) {
+                return generalizeAfterLeft(e.getResult(), env);
+            }
+            long rightValue;
+            try {
+                rightValue = right.executeLong(env);
+            } catch (UnexpectedResult e) {
+                if (e.getResult() instanceof ErrorObj) {
+                    return e.getResult();
+                }
+                return generalize(IntegerObj.valueOf(leftValue), e.getResult());
+            }
+            return IntegerObj.valueOf(compute(leftValue, rightValue));
+        }
+
+        @Override
+        final long executeLong(Environment env) throws UnexpectedResult {
+            long leftValue;
+            try {
+                leftValue = left.executeLong(env);
+            } catch (UnexpectedResult e) {
+                // With a non-integer operand the result is never an integer
+                throw new UnexpectedResult(generalizeAfterLeft(e.getResult(), env));
+            }
+            long rightValue;
+            try {
+                rightValue = right.executeLong(env);
+            } catch (UnexpectedResult e) {
+                if (e.getResult() instanceof ErrorObj) {
+                    throw e;
+                }
+                throw new UnexpectedResult(generalize(IntegerObj.valueOf(leftValue), e.getResult()));
+            }
+            return compute(leftValue, rightValue);
+        }
+    }
+
+    /**
+     * An operator from two integers to a boolean
+     */
+    abstract static class IntComparison extends InfixNode {
+        IntComparison(Operator operator, Node left, Node right) {
+            super(operator, left, right);
+        }
+
+        abstract boolean compute(long left, long right);
+
+        @Override
+        final EvaluatorObject execute(Environment env) {
+            long leftValue;
+            try {
+                leftValue = left.executeLong(env);
+            } catch (UnexpectedResult e) {
+                return generalizeAfterLeft(e.getResult(), env);
+            }
+            long rightValue;
+            try {
+                rightValue = right.executeLong(env);
+            } catch (UnexpectedResult e) {
+                if (e.getResult() instanceof ErrorObj) {
+                    return e.getResult();
+                }
+                return generalize(IntegerObj.valueOf(leftValue), e.getResult());
+            }
+            return compute(leftValue, rightValue) ? BooleanObj.TRUE : BooleanObj.FALSE;
+        }
+    }
+
+    static final class IntAdd extends IntArithmetic {
+        IntAdd(Node left, Node right) { super(Operator.ADD, left, right); }
+        @Override long compute(long left, long right) { return left + right; }
+    }
+
+    static final class IntSub extends IntArithmetic {
+        IntSub(Node left, Node right) { super(Operator.SUBTRACT, left, right); }
+        @Override long compute(long left, long right) { return left - right; }
+    }
+
+    static final class IntMul extends IntArithmetic {
+        IntMul(Node left, Node right) { super(Operator.MULTIPLY, left, right); }
+        @Override long compute(long left, long right) { return left * right; }
+    }
+
+    static final class IntDiv extends IntArithmetic {
+        IntDiv(Node left, Node right) { super(Operator.DIVIDE, left, right); }
+        @Override long compute(long left, long right) { return left / right; }
+    }
+
+    static final class IntLessThan extends IntComparison {
+        IntLessThan(Node left, Node right) { super(Operator.LESS_THAN, left, right); }
+        @Override boolean compute(long left, long right) { return left < right; }
+    }
+
+    static final class IntGreaterThan extends IntComparison {
+        IntGreaterThan(Node left, Node right) { super(Operator.GREATER_THAN, left, right); }
+        @Override boolean compute(long left, long right) { return left > right; }
+    }
+
+    static final class IntEqual extends IntComparison {
+        IntEqual(Node left, Node right) { super(Operator.EQUAL, left, right); }
+        @Override boolean compute(long left, long right) { return left == right; }
+    }
+
+    static final class IntNotEqual extends IntComparison {
+        IntNotEqual(Node left, Node right) { super(Operator.NOT_EQUAL, left, right); }
+        @Override boolean compute(long left, long right) { return left != right; }
+    }
+}
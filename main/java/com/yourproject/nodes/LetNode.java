@@ -0,0 +1,61 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Identifier;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Binds a let name or parameter in the current environment: by slot when the Resolver gave
+ * it one in this function, otherwise by name. Its value is the bound value.
+ */
+final class LetNode extends Node {
+    private final String name;
+    private final int slot; // -1 to bind by name
+    private Node value;
+
+    LetNode(Identifier name, Node value) {
+        this.name = name.getValue();
+        this.slot = slotOf(name);
+        this.value = adopt(value);
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        EvaluatorObject result = value.execute(env);
+        if (result instanceof ErrorObj) {
+            return result;
+        }
+        bind(env, slot, name, result);
+        return result;
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (value == child) {
+            value = replacement;
+        } else {
+            super.replaceChild(child, replacement);
+        }
+    }
+
+    /**
+     * @return The slot a binding of this name goes to, or -1 if it is bound by name
+     */
+    static int slotOf(Identifier name) {
+        int address = name.getAddress();
+        if (address >= 0 && Identifier.depthOf(address) == 0 && Identifier.slotOf(address) != Identifier.GLOBAL_SLOT) {
+            return Identifier.slotOf(address);
+        }
+        return -1;
+    }
+
+    static void bind(Environment env, int slot, String name, EvaluatorObject value) {
+        if (slot >= 0) {
+            env.setSlot(slot, value);
+        } else {
+            env.set(name, value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * An executable node. Each node knows its parent, so it can replace itself in the tree with a
+ * version specialized for the values it has seen.
+ */
+abstract class Node {
+    private Node parent;
+    private boolean replaced;
+
+    /**
+     * @param env The environment of the running call
+     * @return The value, following the Evaluator's rules for ErrorObj and ReturnObj
+     */
+    abstract EvaluatorObject execute(Environment env);
+
+    /**
+     * Runs the node where the caller expects an integer, so integer nodes can skip boxing
+     * @return The integer value
+     * @throws UnexpectedResult If the value is anything else; it carries the value
+     */
+    long executeLong(Environment env) throws UnexpectedResult {
+        EvaluatorObject value = execute(env);
+        if (value instanceof IntegerObj) {
+            return ((IntegerObj) value).getIntegerValue();
+        }
+        throw new UnexpectedResult(value);
+    }
+
+    /**
+     * Swaps a child for its replacement. Nodes with children override this.
+     */
+    void replaceChild(Node child, Node replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no child " + child);
+    }
+
+    /**
+     * Puts a replacement in this node's place in the tree. Create the replacement only after
+     * checking isReplaced(): it adopts this node's children.
+     * @return The replacement
+     */
+    final <T extends Node> T replace(T replacement) {
+        if (parent == null) {
+            throw new IllegalStateException("cannot replace a root node");
+        }
+        if (replaced) {
+            throw new IllegalStateException("node already replaced");
+        }
+        replaced = true;
+        parent.replaceChild(this, replacement);
+        ((Node) replacement).parent = parent;
+        return replacement;
+    }
+
+    /**
+     * @return Whether this node has left the tree. A recursive call can rewrite a node while an
+     *         outer run of the same node is still executing it.
+     */
+    final boolean isReplaced() {
+        return replaced;
+    }
+
+    /**
+     * Makes this node the parent of a child
+     * @return The child
+     */
+    final <T extends Node> T adopt(T child) {
+        if (child != null) {
+            ((Node) child).parent = this;
+        }
+        return child;
+    }
+}
@@ -0,0 +1,23 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Identifier;
+import main.java.com.yourproject.ast.statements.BlockStatement;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.List;
+
+/**
+ * A function created by the node interpreter. To the program it is an ordinary FunctionObj;
+ * calls from nodes run the executable body directly.
+ */
+final class NodeFunction extends FunctionObj {
+    final FunctionNode node;
+
+    NodeFunction(List<Identifier> parameters, BlockStatement body, Environment env, String[] slotNames,
+                 FunctionNode node) {
+        super(parameters, body, env, slotNames);
+        this.node = node;
+    }
+}
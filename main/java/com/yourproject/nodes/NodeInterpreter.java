@@ -0,0 +1,160 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
+import main.java.com.yourproject.objects.NullObj;
+import main.java.com.yourproject.objects.ReturnObj;
+import main.java.com.yourproject.resolver.Resolver;
+import main.java.com.yourproject.runtime.Environment;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs programs as trees of executable nodes that specialize themselves on the values they
+ * see, the way the Evaluator would run the AST. An infix node starts uninitialized, becomes an
+ * integer operator once it has seen two integers, and falls back to the generic rules if
+ * anything else shows up later (see InfixNode). Identifiers are bound to their Resolver
+ * address when the tree is built.
+ *
+ * The node tree of a program is built on its first run and kept, with its specializations,
+ * for later runs of the same Program. Results, errors and exceptions are the Evaluator's, and
+ * tail calls run on the same kind of trampoline.
+ *
+ * Not thread-safe: nodes rewrite themselves while they run.
+ */
+public class NodeInterpreter {
+    private final Map<Program, BlockNode> programs = new IdentityHashMap<>();
+    // Bodies of functions that were not created by this interpreter, e.g. REPL globals
+    private final Map<BlockStatement, FunctionNode> foreignFunctions = new IdentityHashMap<>();
+
+    /**
+     * Runs a program
+     * @param program The program, resolved here if it is not yet
+     * @param env The global environment
+     * @return The value of the last statement, the returned value, or the first error
+     */
+    public EvaluatorObject run(Program program, Environment env) {
+        Resolver.resolve(program);
+        BlockNode root = programs.get(program);
+        if (root == null) {
+            root = new BlockNode(statements(program.getStatements()));
+            programs.put(program, root);
+        }
+        EvaluatorObject result = root.execute(env);
+        if (result instanceof ReturnObj) {
+            return ((ReturnObj) result).getValue();
+        }
+        return result;
+    }
+
+    /**
+     * Calls a function. Tail calls made by the body come back as TailCall values and are run
+     * by this loop instead of a nested Java call.
+     */
+    EvaluatorObject apply(EvaluatorObject fn, List<EvaluatorObject> args) {
+        while (true) {
+            if (!(fn instanceof FunctionObj)) {
+                return new ErrorObj("not a function: " + fn.type());
+            }
+            FunctionObj function = (FunctionObj) fn;
+            if (function.getParameters().size() != args.size()) {
+                return new ErrorObj("wrong number of arguments: want=" + function.getParameters().size() + ", got=" + args.size());
+            }
+
+            FunctionNode node = function instanceof NodeFunction ? ((NodeFunction) function).node : foreign(function);
+            EvaluatorObject result = node.body.execute(node.enter(function.getEnv(), args));
+            if (result instanceof ReturnObj) {
+                result = ((ReturnObj) result).getValue();
+            }
+            if (!(result instanceof TailCall)) {
+                return result;
+            }
+            fn = ((TailCall) result).function;
+            args = ((TailCall) result).args;
+        }
+    }
+
+    private FunctionNode foreign(FunctionObj function) {
+        FunctionNode node = foreignFunctions.get(function.getBody());
+        if (node == null) {
+            node = new FunctionNode(function.getParameters(), function.getBody(), function.getSlotNames(),
+                    new BlockNode(statements(function.getBody().getStatements())));
+            foreignFunctions.put(function.getBody(), node);
+        }
+        return node;
+    }
+
+    private Node[] statements(List<Statement> statements) {
+        Node[] nodes = new Node[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = statement(statements.get(i));
+        }
+        return nodes;
+    }
+
+    private Node statement(Statement statement) {
+        if (statement instanceof LetStatement) {
+            LetStatement let = (LetStatement) statement;
+            return new LetNode(let.getName(), expression(let.getValue()));
+        }
+        if (statement instanceof ReturnStatement) {
+            return new ReturnNode(expression(((ReturnStatement) statement).getReturnValue()));
+        }
+        if (statement instanceof ExpressionStatement) {
+            return expression(((ExpressionStatement) statement).getExpression());
+        }
+        if (statement instanceof BlockStatement) {
+            return new BlockNode(statements(((BlockStatement) statement).getStatements()));
+        }
+        return new ConstantNode(NullObj.NULL);
+    }
+
+    private Node expression(Expression expression) {
+        if (expression instanceof IntegerLiteral) {
+            return new ConstantNode(((IntegerLiteral) expression).getObject());
+        }
+        if (expression instanceof BooleanLiteral) {
+            return new ConstantNode(((BooleanLiteral) expression).getValue() ? BooleanObj.TRUE : BooleanObj.FALSE);
+        }
+        if (expression instanceof Identifier) {
+            return new ReadNode((Identifier) expression);
+        }
+        if (expression instanceof PrefixExpression) {
+            PrefixExpression prefix = (PrefixExpression) expression;
+            return new PrefixNode(prefix.getOperator(), expression(prefix.getRight()));
+        }
+        if (expression instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression) expression;
+            return InfixNode.create(infix.getOperator(), expression(infix.getLeft()), expression(infix.getRight()));
+        }
+        if (expression instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) expression;
+            return new IfNode(expression(ifExpression.getCondition()),
+                    statement(ifExpression.getConsequence()),
+                    ifExpression.getAlternative() != null ? statement(ifExpression.getAlternative()) : null);
+        }
+        if (expression instanceof FunctionLiteral) {
+            FunctionLiteral literal = (FunctionLiteral) expression;
+            return new FunctionNode(literal.getParameters(), literal.getBody(), literal.getSlotNames(),
+                    new BlockNode(statements(literal.getBody().getStatements())));
+        }
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            List<Expression> arguments = call.getArguments() != null ? call.getArguments() : List.of();
+            Node[] argumentNodes = new Node[arguments.size()];
+            for (int i = 0; i < argumentNodes.length; i++) {
+                argumentNodes[i] = expression(arguments.get(i));
+            }
+            return new CallNode(this, call.isTailCall(), expression(call.getFunction()), argumentNodes);
+        }
+        return new ConstantNode(NullObj.NULL);
+    }
+}
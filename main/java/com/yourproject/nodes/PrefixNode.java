@@ -0,0 +1,39 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Operator;
+import main.java.com.yourproject.evaluator.EvaluatorUtils;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * A prefix operator, with the Evaluator's rules
+ */
+final class PrefixNode extends Node {
+    private final Operator operator;
+    private Node right;
+
+    PrefixNode(Operator operator, Node right) {
+        this.operator = operator;
+        this.right = adopt(right);
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        EvaluatorObject value = right.execute(env);
+        if (value instanceof ErrorObj) {
+            return value;
+        }
+        return EvaluatorUtils.evalPrefixExpression(operator, value);
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (right == child) {
+            right = replacement;
+        } else {
+            super.replaceChild(child, replacement);
+        }
+    }
+}
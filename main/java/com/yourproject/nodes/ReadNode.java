@@ -0,0 +1,45 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.ast.expressions.Identifier;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.runtime.Environment;
+
+/**
+ * Reads a variable at the address the Resolver gave it: depth hops out, then one slot. A
+ * global, an unset slot or an unresolved name is looked up by name from where the hops ended,
+ * as in the Evaluator.
+ */
+final class ReadNode extends Node {
+    private final String name;
+    private final int depth;
+    private final int slot; // -1 to look up by name only
+
+    ReadNode(Identifier identifier) {
+        this.name = identifier.getValue();
+        int address = identifier.getAddress();
+        if (address < 0) {
+            this.depth = 0;
+            this.slot = -1;
+        } else {
+            this.depth = Identifier.depthOf(address);
+            this.slot = Identifier.slotOf(address) == Identifier.GLOBAL_SLOT ? -1 : Identifier.slotOf(address);
+        }
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        for (int hops = depth; hops > 0 && env.getOuter() != null; hops--) {
+            env = env.getOuter();
+        }
+        EvaluatorObject value = slot >= 0 ? env.getSlot(slot) : null;
+        if (value == null) {
+            value = env.get(name);
+            if (value == null) {
+                return new ErrorObj("identifier not found: " + name);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,28 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.ReturnObj;
+import main.java.com.yourproject.runtime.Environment;
+
+final class ReturnNode extends Node {
+    private Node value;
+
+    ReturnNode(Node value) {
+        this.value = adopt(value);
+    }
+
+    @Override
+    EvaluatorObject execute(Environment env) {
+        return new ReturnObj(value.execute(env));
+    }
+
+    @Override
+    void replaceChild(Node child, Node replacement) {
+        if (value == child) {
+            value = replacement;
+        } else {
+            super.replaceChild(child, replacement);
+        }
+    }
+}
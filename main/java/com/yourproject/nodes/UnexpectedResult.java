@@ -0,0 +1,26 @@
+package main.java.com.yourproject.nodes;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+
+/**
+ * Thrown by executeLong when a node's value is not an integer. Without a stack trace, since
+ * it only tells a specialized node to generalize.
+ */
+final class UnexpectedResult extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final EvaluatorObject result;
+
+    UnexpectedResult(EvaluatorObject result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    /**
+     * @return The value the node produced
+     */
+    EvaluatorObject getResult() {
+        return result;
+    }
+}
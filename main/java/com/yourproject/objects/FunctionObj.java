@@ -1,8 +1,12 @@
 package main.java.com.yourproject.objects;
 
 
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
 import main.java.com.yourproject.ast.expressions.Identifier;
 import main.java.com.yourproject.ast.statements.BlockStatement;
+import main.java.com.yourproject.jit.JitFunction;
+import main.java.com.yourproject.memo.MemoTable;
+import main.java.com.yourproject.runtime.CallSiteCache;
 import main.java.com.yourproject.runtime.Environment;
 import java.util.List;
 
@@ -14,6 +18,13 @@ public class FunctionObj implements EvaluatorObject {
     private final List<Identifier> parameters;
     private final BlockStatement body;
     private final Environment env;
+    private final FunctionLiteral literal; // null for a function made from its parts
+    private final String[] slotNames;
+    private final boolean parameterSlots;
+    private int calls;                // counted by the Jit
+    private JitFunction jitFunction;  // set once the Jit has compiled or rejected the function
+    private volatile MemoTable memoTable;  // set by the Memoizer, which may run on several threads
+    private final CallSiteCache[] callSites; // one per numbered call in the body, made on first use
 
     /**
      * Constructs a new function object
@@ -24,9 +35,77 @@ public class FunctionObj implements EvaluatorObject {
     public FunctionObj(List<Identifier> parameters,
                        BlockStatement body,
                        Environment env) {
+        this(parameters, body, env, null);
+    }
+
+    /**
+     * Constructs a function object whose calls use slot environments
+     * @param parameters The function parameters
+     * @param body The function body
+     * @param env The closure environment
+     * @param slotNames The slot layout from the Resolver, or null for name-only calls
+     */
+    public FunctionObj(List<Identifier> parameters,
+                       BlockStatement body,
+                       Environment env,
+                       String[] slotNames) {
+        this(parameters, body, env, slotNames, 0);
+    }
+
+    /**
+     * Constructs a function object whose calls use slot environments and inline caches
+     * @param parameters The function parameters
+     * @param body The function body
+     * @param env The closure environment
+     * @param slotNames The slot layout from the Resolver, or null for name-only calls
+     * @param callSites The number of call sites the Resolver numbered in the body
+     */
+    public FunctionObj(List<Identifier> parameters,
+                       BlockStatement body,
+                       Environment env,
+                       String[] slotNames,
+                       int callSites) {
+        this(parameters, body, env, null, slotNames, callSites);
+    }
+
+    /**
+     * Constructs the function object a function literal evaluates to, with the slot layout
+     * and call sites the Resolver gave the literal
+     * @param literal The function literal
+     * @param env The closure environment
+     */
+    public FunctionObj(FunctionLiteral literal, Environment env) {
+        this(literal.getParameters(), literal.getBody(), env, literal, literal.getSlotNames(), literal.getCallSites());
+    }
+
+    private FunctionObj(List<Identifier> parameters,
+                        BlockStatement body,
+                        Environment env,
+                        FunctionLiteral literal,
+                        String[] slotNames,
+                        int callSites) {
         this.parameters = parameters;
         this.body = body;
         this.env = env;
+        this.literal = literal;
+        this.slotNames = slotNames;
+        this.parameterSlots = slotNames != null && parametersLead(parameters, slotNames);
+        this.callSites = callSites > 0 ? new CallSiteCache[callSites] : null;
+    }
+
+    /**
+     * The Resolver gives parameters the first slots, in order, unless a name repeats
+     */
+    private static boolean parametersLead(List<Identifier> parameters, String[] slotNames) {
+        if (parameters.size() > slotNames.length) {
+            return false;
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            if (!parameters.get(i).getValue().equals(slotNames[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -50,6 +129,95 @@ public class FunctionObj implements EvaluatorObject {
         return env;
     }
 
+    /**
+     * @return The function literal this was made from, or null
+     */
+    public FunctionLiteral getLiteral() {
+        return literal;
+    }
+
+    /**
+     * @return The slot layout of a call environment, or null for name-only calls
+     */
+    public String[] getSlotNames() {
+        return slotNames;
+    }
+
+    /**
+     * @return Whether parameter i is slot i, so a call can evaluate its arguments straight
+     *         into the frame of the call environment
+     */
+    public boolean hasParameterSlots() {
+        return parameterSlots;
+    }
+
+    /**
+     * Counts one call, for the Jit's threshold
+     * @return The number of calls so far, including this one
+     */
+    public int countCall() {
+        if (calls < Integer.MAX_VALUE) {
+            calls++;
+        }
+        return calls;
+    }
+
+    /**
+     * @return The compiled code, JitFunction.REJECTED, or null if the Jit has not decided yet
+     */
+    public JitFunction getJitFunction() {
+        return jitFunction;
+    }
+
+    public void setJitFunction(JitFunction jitFunction) {
+        this.jitFunction = jitFunction;
+    }
+
+    /**
+     * @return The remembered results, or null if the Memoizer has not seen the function yet
+     */
+    public MemoTable getMemoTable() {
+        return memoTable;
+    }
+
+    public void setMemoTable(MemoTable memoTable) {
+        this.memoTable = memoTable;
+    }
+
+    /**
+     * @return The number of call sites with an inline cache
+     */
+    public int getCallSiteCount() {
+        return callSites == null ? 0 : callSites.length;
+    }
+
+    /**
+     * @param site A call site number from the Resolver, below getCallSiteCount()
+     * @return The site's inline cache, made on the first call
+     */
+    public CallSiteCache callSiteCache(int site) {
+        CallSiteCache cache = callSites[site];
+        if (cache == null) {
+            synchronized (callSites) {
+                cache = callSites[site];
+                if (cache == null) {
+                    cache = new CallSiteCache();
+                    callSites[site] = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return The site's inline cache, or null if the site has not made a call yet
+     */
+    public CallSiteCache getCallSiteCache(int site) {
+        synchronized (callSites) {
+            return callSites[site];
+        }
+    }
+
     /**
      * @return The type name "FUNCTION"
      */
@@ -3,16 +3,37 @@ package main.java.com.yourproject.objects;
 
 /**
  * Represents an integer value in the Monkey language evaluator.
+ * Instances come from valueOf, which shares one object for each small value.
  */
-public class IntegerObj implements EvaluatorObject {
+public final class IntegerObj implements EvaluatorObject {
+    // The range of values shared by valueOf: loop counters, small sums, constants in source
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final IntegerObj[] CACHE = new IntegerObj[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new IntegerObj(CACHE_LOW + i);
+        }
+    }
+
     private final long value;
 
+    private IntegerObj(long value) {
+        this.value = value;
+    }
+
     /**
-     * Constructs a new integer object
+     * Returns the integer object for a value: the shared one between -128 and 1024,
+     * otherwise a new one. Integers compare by value, so sharing is never observable.
      * @param value The integer value to wrap
+     * @return The integer object
      */
-    public IntegerObj(long value) {
-        this.value = value;
+    public static IntegerObj valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return new IntegerObj(value);
     }
 
     /**
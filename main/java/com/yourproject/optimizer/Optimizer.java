@@ -0,0 +1,286 @@
+package main.java.com.yourproject.optimizer;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+import main.java.com.yourproject.evaluator.Evaluator;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.runtime.Environment;
+import main.java.com.yourproject.tokens.Token;
+import main.java.com.yourproject.tokens.TokenType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simplifies a parsed program before it is evaluated. Three rewrites are applied:
+ *
+ * 1. Constant folding: a prefix or infix expression whose operands are literals is replaced
+ *    by the literal it evaluates to. Folding runs the Evaluator itself on the subtree, so the
+ *    result is exactly what evaluation would produce. Subtrees that would fail (division by
+ *    zero, type mismatch, unknown operator) or whose value does not fit an IntegerLiteral are
+ *    left alone, so they still fail at the same point at run time.
+ *
+ * 2. Constant propagation: a top-level `let` of a literal, for a name that is bound by no
+ *    other `let` anywhere in the program, is substituted into the top-level code after it.
+ *    Function bodies are not rewritten, because a closure may be called after a later
+ *    program in the same environment (the REPL, Interpreter.run) rebinds the name.
+ *    The `let` itself is kept, so the binding is still visible to later programs.
+ *
+ * 3. Branch pruning: an if-expression whose condition folds to a literal keeps only the
+ *    branch that would run.
+ *
+ * The input program is not modified; unchanged subtrees are shared with the result.
+ */
+public class Optimizer {
+    private static final Map<String, Expression> NO_CONSTANTS = Map.of();
+
+    private final Evaluator evaluator = new Evaluator();
+
+    /**
+     * @param program A program without parser errors
+     * @return The optimized program
+     */
+    public Program optimize(Program program) {
+        Map<String, Integer> letCounts = new HashMap<>();
+        countLets(program, letCounts);
+
+        Map<String, Expression> constants = new HashMap<>();
+        Program optimized = new Program();
+        for (Statement statement : program.getStatements()) {
+            Statement rewritten = statement(statement, constants);
+            optimized.addStatement(rewritten);
+
+            if (rewritten instanceof LetStatement) {
+                LetStatement let = (LetStatement) rewritten;
+                String name = let.getName().getValue();
+                if (letCounts.get(name) == 1 && isLiteral(let.getValue())) {
+                    constants.put(name, let.getValue());
+                }
+            }
+        }
+        return optimized;
+    }
+
+    private Statement statement(Statement statement, Map<String, Expression> constants) {
+        if (statement instanceof LetStatement) {
+            LetStatement let = (LetStatement) statement;
+            Expression value = expression(let.getValue(), constants);
+            return value == let.getValue() ? let : new LetStatement(let.getToken(), let.getName(), value);
+        }
+        if (statement instanceof ReturnStatement) {
+            ReturnStatement ret = (ReturnStatement) statement;
+            Expression value = expression(ret.getReturnValue(), constants);
+            return value == ret.getReturnValue() ? ret : new ReturnStatement(ret.getToken(), value);
+        }
+        if (statement instanceof ExpressionStatement) {
+            ExpressionStatement expressionStatement = (ExpressionStatement) statement;
+            Expression expression = expression(expressionStatement.getExpression(), constants);
+            return expression == expressionStatement.getExpression()
+                    ? expressionStatement : new ExpressionStatement(expressionStatement.getToken(), expression);
+        }
+        if (statement instanceof BlockStatement) {
+            return block((BlockStatement) statement, constants);
+        }
+        return statement;
+    }
+
+    private BlockStatement block(BlockStatement block, Map<String, Expression> constants) {
+        if (block == null) {
+            return null;
+        }
+        List<Statement> statements = block.getStatements();
+        BlockStatement rewritten = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Statement statement = statement(statements.get(i), constants);
+            if (rewritten == null && statement != statements.get(i)) {
+                // First change: copy the statements before it
+                rewritten = new BlockStatement(block.getToken());
+                for (int j = 0; j < i; j++) {
+                    rewritten.addStatement(statements.get(j));
+                }
+            }
+            if (rewritten != null) {
+                rewritten.addStatement(statement);
+            }
+        }
+        return rewritten != null ? rewritten : block;
+    }
+
+    private Expression expression(Expression expression, Map<String, Expression> constants) {
+        if (expression instanceof Identifier) {
+            Expression constant = constants.get(((Identifier) expression).getValue());
+            return constant != null ? copy(constant) : expression;
+        }
+        if (expression instanceof PrefixExpression) {
+            PrefixExpression prefix = (PrefixExpression) expression;
+            Expression right = expression(prefix.getRight(), constants);
+            if (right != prefix.getRight()) {
+                prefix = new PrefixExpression(prefix.getToken(), prefix.getOperator(), right);
+            }
+            return isLiteral(right) ? fold(prefix) : prefix;
+        }
+        if (expression instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression) expression;
+            Expression left = expression(infix.getLeft(), constants);
+            Expression right = expression(infix.getRight(), constants);
+            if (left != infix.getLeft() || right != infix.getRight()) {
+                infix = new InfixExpression(infix.getToken(), left, infix.getOperator(), right);
+            }
+            return isLiteral(left) && isLiteral(right) ? fold(infix) : infix;
+        }
+        if (expression instanceof IfExpression) {
+            return ifExpression((IfExpression) expression, constants);
+        }
+        if (expression instanceof FunctionLiteral) {
+            FunctionLiteral function = (FunctionLiteral) expression;
+            BlockStatement body = block(function.getBody(), NO_CONSTANTS);
+            return body == function.getBody()
+                    ? function : new FunctionLiteral(function.getToken(), function.getParameters(), body);
+        }
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            Expression function = expression(call.getFunction(), constants);
+            List<Expression> arguments = call.getArguments();
+            List<Expression> rewritten = null;
+            if (arguments != null) {
+                for (int i = 0; i < arguments.size(); i++) {
+                    Expression argument = expression(arguments.get(i), constants);
+                    if (rewritten == null && argument != arguments.get(i)) {
+                        rewritten = new ArrayList<>(arguments.subList(0, i));
+                    }
+                    if (rewritten != null) {
+                        rewritten.add(argument);
+                    }
+                }
+            }
+            if (function == call.getFunction() && rewritten == null) {
+                return call;
+            }
+            return new CallExpression(call.getToken(), function, rewritten != null ? rewritten : arguments);
+        }
+        return expression;
+    }
+
+    private Expression ifExpression(IfExpression ifExpression, Map<String, Expression> constants) {
+        Expression condition = expression(ifExpression.getCondition(), constants);
+        if (isLiteral(condition)) {
+            // Only the branch that runs is kept; a missing branch evaluates to null as before
+            if (isTruthy(condition)) {
+                return new IfExpression(ifExpression.getToken(), condition,
+                        block(ifExpression.getConsequence(), constants), null);
+            }
+            if (ifExpression.getAlternative() != null) {
+                return new IfExpression(ifExpression.getToken(), new BooleanLiteral(Token.of(TokenType.TRUE), true),
+                        block(ifExpression.getAlternative(), constants), null);
+            }
+            return new IfExpression(ifExpression.getToken(), condition,
+                    new BlockStatement(ifExpression.getConsequence().getToken()), null);
+        }
+
+        BlockStatement consequence = block(ifExpression.getConsequence(), constants);
+        BlockStatement alternative = block(ifExpression.getAlternative(), constants);
+        if (condition == ifExpression.getCondition() && consequence == ifExpression.getConsequence()
+                && alternative == ifExpression.getAlternative()) {
+            return ifExpression;
+        }
+        return new IfExpression(ifExpression.getToken(), condition, consequence, alternative);
+    }
+
+    /**
+     * Evaluates an expression whose operands are literals
+     * @return The literal it evaluates to, or the expression itself if it fails at run time
+     *         or its value has no literal form
+     */
+    private Expression fold(Expression expression) {
+        EvaluatorObject value;
+        try {
+            value = evaluator.eval(expression, new Environment());
+        } catch (RuntimeException e) {
+            // e.g. ArithmeticException for division by zero: keep it for run time
+            return expression;
+        }
+        if (value instanceof IntegerObj) {
+            long integer = ((IntegerObj) value).getIntegerValue();
+            if (integer != (int) integer) {
+                return expression;
+            }
+            return new IntegerLiteral(new Token(TokenType.INT, Long.toString(integer)), (int) integer);
+        }
+        if (value instanceof BooleanObj) {
+            boolean bool = ((BooleanObj) value).getBooleanValue();
+            return new BooleanLiteral(Token.of(bool ? TokenType.TRUE : TokenType.FALSE), bool);
+        }
+        return expression;
+    }
+
+    private static boolean isLiteral(Expression expression) {
+        return expression instanceof IntegerLiteral || expression instanceof BooleanLiteral;
+    }
+
+    // Literals evaluate to integers or booleans; integers are always truthy
+    private static boolean isTruthy(Expression literal) {
+        return !(literal instanceof BooleanLiteral) || ((BooleanLiteral) literal).getValue();
+    }
+
+    /**
+     * A fresh node for each substitution, so no node appears twice in the tree
+     */
+    private static Expression copy(Expression literal) {
+        if (literal instanceof IntegerLiteral) {
+            IntegerLiteral integer = (IntegerLiteral) literal;
+            return new IntegerLiteral(integer.getToken(), integer.getValue());
+        }
+        BooleanLiteral bool = (BooleanLiteral) literal;
+        return new BooleanLiteral(bool.getToken(), bool.getValue());
+    }
+
+    /**
+     * Counts the `let` bindings of every name, in all scopes
+     */
+    private static void countLets(Node node, Map<String, Integer> counts) {
+        if (node instanceof Program) {
+            for (Statement statement : ((Program) node).getStatements()) {
+                countLets(statement, counts);
+            }
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) {
+                countLets(statement, counts);
+            }
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            counts.merge(let.getName().getValue(), 1, Integer::sum);
+            countLets(let.getValue(), counts);
+        } else if (node instanceof ReturnStatement) {
+            countLets(((ReturnStatement) node).getReturnValue(), counts);
+        } else if (node instanceof ExpressionStatement) {
+            countLets(((ExpressionStatement) node).getExpression(), counts);
+        } else if (node instanceof PrefixExpression) {
+            countLets(((PrefixExpression) node).getRight(), counts);
+        } else if (node instanceof InfixExpression) {
+            countLets(((InfixExpression) node).getLeft(), counts);
+            countLets(((InfixExpression) node).getRight(), counts);
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            countLets(ifExpression.getCondition(), counts);
+            countLets(ifExpression.getConsequence(), counts);
+            countLets(ifExpression.getAlternative(), counts);
+        } else if (node instanceof FunctionLiteral) {
+            countLets(((FunctionLiteral) node).getBody(), counts);
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            countLets(call.getFunction(), counts);
+            if (call.getArguments() != null) {
+                for (Expression argument : call.getArguments()) {
+                    countLets(argument, counts);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package main.java.com.yourproject.parser;
+
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.statements.Statement;
+import main.java.com.yourproject.lexer.Lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps a parsed program in sync with a source text that is edited in place.
+ *
+ * The source is cut into top-level chunks at StatementSplitter boundaries, and each chunk
+ * remembers the statements it parsed to. After an edit only the chunks around the edit are
+ * re-lexed and re-parsed, up to the first boundary behind the edit that lines up with an old
+ * one. Every other chunk keeps its Statement nodes, so the work depends on the size of the
+ * edit rather than the size of the file.
+ *
+ * Whenever the chunked view cannot be trusted (unbalanced brackets or parser errors), the
+ * whole source is parsed with a plain Parser instead, which keeps getProgram() and getErrors()
+ * identical to a full parse.
+ */
+public class IncrementalParser {
+    private static final Statement[] NO_STATEMENTS = new Statement[0];
+
+    private String source;
+    private Program program;
+    private List<String> errors;
+
+    // Chunk i covers [chunkStarts[i], chunkStarts[i + 1]), the last one runs to the end of source.
+    // Both arrays are null while the program came from a full parse.
+    private int[] chunkStarts;
+    private Statement[][] chunkStatements;
+
+    /**
+     * Parses the initial source
+     * @param source The program text
+     */
+    public IncrementalParser(String source) {
+        reparseAll(source);
+    }
+
+    /**
+     * @return The program for the current source
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return The parser errors for the current source
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return The current source text
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Applies a text edit and updates the program
+     * @param offset Where the edit starts in the current source
+     * @param removedLength How many chars are removed at offset
+     * @param insertedText The text inserted at offset
+     * @return The program for the edited source
+     */
+    public Program applyEdit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > source.length()) {
+            throw new IndexOutOfBoundsException("edit [" + offset + ", " + (offset + removedLength)
+                    + ") out of bounds for length " + source.length());
+        }
+
+        String edited = source.substring(0, offset) + insertedText + source.substring(offset + removedLength);
+        if (chunkStarts == null || !reparseAround(edited, offset, removedLength, insertedText.length())) {
+            reparseAll(edited);
+        }
+        return program;
+    }
+
+    /**
+     * Re-lexes and re-parses the chunks touched by an edit
+     * @return false if the edit could not be handled locally
+     */
+    private boolean reparseAround(String edited, int offset, int removedLength, int insertedLength) {
+        int delta = insertedLength - removedLength;
+        int oldEditEnd = offset + removedLength;
+
+        // Start one chunk early: the edit may remove the boundary in front of its chunk
+        int containing = Arrays.binarySearch(chunkStarts, offset);
+        if (containing < 0) {
+            containing = -containing - 2;
+        }
+        int first = Math.max(0, containing - 1);
+        int scanFrom = chunkStarts[first];
+
+        // Collect new boundaries until one lines up with an old boundary behind the edit
+        List<Integer> newStarts = new ArrayList<>();
+        newStarts.add(scanFrom);
+        int resume = chunkStarts.length; // first old chunk that is reused after the edit
+        StatementSplitter splitter = new StatementSplitter(edited, scanFrom);
+        int boundary;
+        while ((boundary = splitter.nextBoundary()) >= 0) {
+            if (boundary - delta >= oldEditEnd) {
+                int old = Arrays.binarySearch(chunkStarts, boundary - delta);
+                if (old > containing) {
+                    resume = old;
+                    break;
+                }
+            }
+            newStarts.add(boundary);
+        }
+        if (boundary < 0 && !splitter.isBalanced()) {
+            return false;
+        }
+
+        // Parse the new chunks on their own
+        int regionEnd = resume < chunkStarts.length ? chunkStarts[resume] + delta : edited.length();
+        Statement[][] parsed = new Statement[newStarts.size()][];
+        for (int i = 0; i < parsed.length; i++) {
+            int end = i + 1 < parsed.length ? newStarts.get(i + 1) : regionEnd;
+            parsed[i] = parseChunk(edited, newStarts.get(i), end);
+            if (parsed[i] == null) {
+                return false;
+            }
+        }
+
+        // Splice: chunks before the region, the new chunks, then the shifted old chunks
+        int reused = chunkStarts.length - resume;
+        int count = first + parsed.length + reused;
+        int[] starts = new int[count];
+        Statement[][] statements = new Statement[count][];
+        System.arraycopy(chunkStarts, 0, starts, 0, first);
+        System.arraycopy(chunkStatements, 0, statements, 0, first);
+        for (int i = 0; i < parsed.length; i++) {
+            starts[first + i] = newStarts.get(i);
+            statements[first + i] = parsed[i];
+        }
+        for (int i = 0; i < reused; i++) {
+            starts[first + parsed.length + i] = chunkStarts[resume + i] + delta;
+            statements[first + parsed.length + i] = chunkStatements[resume + i];
+        }
+
+        install(edited, starts, statements);
+        return true;
+    }
+
+    /**
+     * Parses the whole source, chunk by chunk when possible
+     */
+    private void reparseAll(String text) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        StatementSplitter splitter = new StatementSplitter(text, 0);
+        int boundary;
+        while ((boundary = splitter.nextBoundary()) >= 0) {
+            starts.add(boundary);
+        }
+
+        if (splitter.isBalanced()) {
+            int[] chunkOffsets = starts.stream().mapToInt(Integer::intValue).toArray();
+            Statement[][] statements = new Statement[chunkOffsets.length][];
+            boolean clean = true;
+            for (int i = 0; i < chunkOffsets.length && clean; i++) {
+                int end = i + 1 < chunkOffsets.length ? chunkOffsets[i + 1] : text.length();
+                statements[i] = parseChunk(text, chunkOffsets[i], end);
+                clean = statements[i] != null;
+            }
+            if (clean) {
+                install(text, chunkOffsets, statements);
+                return;
+            }
+        }
+
+        Parser parser = new Parser(new Lexer(text));
+        source = text;
+        program = parser.parseProgram();
+        errors = parser.getErrors();
+        chunkStarts = null;
+        chunkStatements = null;
+    }
+
+    /**
+     * @return The statements of one chunk, or null if the chunk has parser errors
+     */
+    private static Statement[] parseChunk(String text, int start, int end) {
+        Parser parser = new Parser(new Lexer(text, start, end));
+        Program chunk = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            return null;
+        }
+        return chunk.getStatements().toArray(NO_STATEMENTS);
+    }
+
+    private void install(String text, int[] starts, Statement[][] statements) {
+        Program rebuilt = new Program();
+        for (Statement[] chunk : statements) {
+            for (Statement statement : chunk) {
+                rebuilt.addStatement(statement);
+            }
+        }
+        source = text;
+        program = rebuilt;
+        errors = new ArrayList<>();
+        chunkStarts = starts;
+        chunkStatements = statements;
+    }
+}
@@ -0,0 +1,136 @@
+package main.java.com.yourproject.parser;
+
+
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.statements.Statement;
+import main.java.com.yourproject.lexer.Lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses large programs on several cores.
+ *
+ * A quick StatementSplitter pass finds top-level statement boundaries. The text between
+ * them is grouped into slices of roughly SLICE_SIZE chars, each slice is lexed and parsed
+ * on a ForkJoinPool, and the statements are joined back in source order.
+ *
+ * If the brackets are unbalanced or any slice reports errors, the whole source is parsed
+ * sequentially instead, so getProgram() and getErrors() (including the order of the errors)
+ * always match new Parser(new Lexer(source)).
+ */
+public class ParallelParser {
+    // Sources smaller than this are not worth splitting
+    static final int SLICE_SIZE = 64 * 1024;
+
+    private final String source;
+    private final ForkJoinPool pool;
+    private List<String> errors = new ArrayList<>();
+
+    /**
+     * Creates a parser that runs on the common pool
+     * @param source The program text
+     */
+    public ParallelParser(String source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param source The program text
+     * @param pool The pool the slices are parsed on
+     */
+    public ParallelParser(String source, ForkJoinPool pool) {
+        this.source = source;
+        this.pool = pool;
+    }
+
+    public Program parseProgram() {
+        errors = new ArrayList<>();
+        int[] slices = sliceStarts();
+        if (slices != null && slices.length > 1) {
+            Statement[][] parsed = new Statement[slices.length][];
+            pool.invoke(new SliceTask(slices, parsed, 0, slices.length));
+
+            boolean clean = true;
+            for (Statement[] slice : parsed) {
+                clean &= slice != null;
+            }
+            if (clean) {
+                Program program = new Program();
+                for (Statement[] slice : parsed) {
+                    for (Statement statement : slice) {
+                        program.addStatement(statement);
+                    }
+                }
+                return program;
+            }
+        }
+
+        Parser parser = new Parser(new Lexer(source));
+        Program program = parser.parseProgram();
+        errors = parser.getErrors();
+        return program;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Groups statement boundaries into slices of about SLICE_SIZE chars
+     * @return The slice start offsets, or null if the brackets are unbalanced
+     */
+    private int[] sliceStarts() {
+        if (source.length() < 2 * SLICE_SIZE) {
+            return null;
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        StatementSplitter splitter = new StatementSplitter(source, 0);
+        int boundary;
+        while ((boundary = splitter.nextBoundary()) >= 0) {
+            if (boundary - starts.get(starts.size() - 1) >= SLICE_SIZE) {
+                starts.add(boundary);
+            }
+        }
+        if (!splitter.isBalanced()) {
+            return null;
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Parses the slices in [from, to), splitting the range in half until one slice is left
+     */
+    private class SliceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] slices;
+        private final Statement[][] parsed;
+        private final int from;
+        private final int to;
+
+        SliceTask(int[] slices, Statement[][] parsed, int from, int to) {
+            this.slices = slices;
+            this.parsed = parsed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int end = from + 1 < slices.length ? slices[from + 1] : source.length();
+                Parser parser = new Parser(new Lexer(source, slices[from], end));
+                Program slice = parser.parseProgram();
+                parsed[from] = parser.getErrors().isEmpty() ? slice.getStatements().toArray(new Statement[0]) : null;
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SliceTask(slices, parsed, from, middle), new SliceTask(slices, parsed, middle, to));
+        }
+    }
+}
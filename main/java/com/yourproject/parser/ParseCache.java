@@ -0,0 +1,159 @@
+package main.java.com.yourproject.parser;
+
+
+import main.java.com.yourproject.lexer.Lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the ParseResults of recently run scripts, keyed by the SHA-256 of their source.
+ *
+ * Keying on content instead of a file name means an edited script is never served a stale
+ * program, and the same text reached through different paths is parsed once. The cache
+ * holds at most `capacity` entries and drops the least recently used one when full.
+ *
+ * All methods are thread-safe. Parsing happens outside the lock, so two threads that miss
+ * on the same source at once may both parse it; the first result stored wins.
+ */
+public class ParseCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final LinkedHashMap<String, ParseResult> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ParseCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of cached programs
+     */
+    public ParseCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // Access order, so iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParseResult> eldest) {
+                if (size() > ParseCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Parses a source text, or returns the cached result for the same text
+     * @param source The program text
+     * @return The parse result, shared with every other caller of the same text
+     */
+    public ParseResult parse(String source) {
+        return get(digest(source), () -> ParseResult.of(new Parser(new Lexer(source))));
+    }
+
+    /**
+     * Looks up a result by key and parses on a miss
+     * @param key A digest produced by one of the digest methods
+     * @param parse Produces the result when the key is not cached
+     * @return The cached or freshly parsed result
+     */
+    public ParseResult get(String key, Supplier<ParseResult> parse) {
+        synchronized (this) {
+            ParseResult cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        ParseResult parsed = parse.get();
+        synchronized (this) {
+            ParseResult raced = entries.putIfAbsent(key, parsed);
+            return raced != null ? raced : parsed;
+        }
+    }
+
+    /**
+     * Drops every cached result. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ParseCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                entries.size(), capacity, hits, misses, evictions);
+    }
+
+    /**
+     * @return The key for a source text, hashed as UTF-8
+     */
+    public static String digest(String source) {
+        return digest(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The key for the raw bytes of a script file, equal to digest(String) of its
+     *         text when the file is valid UTF-8
+     */
+    public static String digest(byte[] bytes) {
+        MessageDigest sha = sha256();
+        sha.update(bytes);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Hashes the remaining bytes of a buffer without moving its position
+     * @return The key for the bytes, equal to digest(byte[]) for the same content
+     */
+    public static String digest(ByteBuffer bytes) {
+        MessageDigest sha = sha256();
+        sha.update(bytes.duplicate());
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
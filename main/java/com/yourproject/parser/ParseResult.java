@@ -0,0 +1,55 @@
+package main.java.com.yourproject.parser;
+
+
+import main.java.com.yourproject.ast.Program;
+
+import java.util.List;
+
+/**
+ * A parsed program together with the errors the parser reported for it.
+ * The program is frozen, so one result can be evaluated by any number of callers.
+ */
+public final class ParseResult {
+    private final Program program;
+    private final List<String> errors;
+
+    /**
+     * @param program The parsed program, frozen by this constructor
+     * @param errors The parser errors, copied
+     */
+    public ParseResult(Program program, List<String> errors) {
+        this.program = program.freeze();
+        this.errors = List.copyOf(errors);
+    }
+
+    /**
+     * Runs a parser to the end of its input
+     * @param parser The parser to run
+     * @return The program and errors it produced
+     */
+    public static ParseResult of(Parser parser) {
+        Program program = parser.parseProgram();
+        return new ParseResult(program, parser.getErrors());
+    }
+
+    /**
+     * @return The parsed program
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return The parser errors, empty when the source parsed cleanly
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return true if the parser reported at least one error
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -4,19 +4,18 @@ package main.java.com.yourproject.parser;
 import main.java.com.yourproject.ast.*;
 import main.java.com.yourproject.ast.expressions.*;
 import main.java.com.yourproject.ast.statements.*;
-import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.lexer.TokenSource;
 import main.java.com.yourproject.tokens.Token;
 import main.java.com.yourproject.tokens.TokenType;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Parses tokens into an Abstract Syntax Tree (AST) for the Monkey language.
  */
 public class Parser {
-    private final Lexer lexer;
+    private final TokenSource lexer;
     private Token currentToken;
     private Token peekToken;
     private final List<String> errors = new ArrayList<>();
@@ -33,56 +32,57 @@ public class Parser {
         INDEX        // array[index]
     }
 
-    // Precedence table
-    private final java.util.Map<TokenType, Precedence> precedences = Map.of(
-            TokenType.EQ, Precedence.EQUALS,
-            TokenType.NOT_EQ, Precedence.EQUALS,
-            TokenType.LT, Precedence.LESSGREATER,
-            TokenType.GT, Precedence.LESSGREATER,
-            TokenType.PLUS, Precedence.SUM,
-            TokenType.MINUS, Precedence.SUM,
-            TokenType.SLASH, Precedence.PRODUCT,
-            TokenType.ASTERISK, Precedence.PRODUCT,
-            TokenType.LPAREN, Precedence.CALL
-    );
-
-    // Parse function interfaces
+    // Parse function interfaces; implementations are unbound references to Parser methods
     private interface PrefixParseFn {
-        Expression parse();
+        Expression parse(Parser parser);
     }
 
     private interface InfixParseFn {
-        Expression parse(Expression expression);
+        Expression parse(Parser parser, Expression expression);
     }
 
-    // Parse function maps
-    private final java.util.Map<TokenType, PrefixParseFn> prefixParseFns = new java.util.HashMap<>();
-    private final java.util.Map<TokenType, InfixParseFn> infixParseFns = new java.util.HashMap<>();
-
-    public Parser(Lexer lexer) {
-        this.lexer = lexer;
+    // Dispatch and precedence tables indexed by TokenType ordinal, shared by all parsers
+    private static final PrefixParseFn[] prefixParseFns = new PrefixParseFn[TokenType.values().length];
+    private static final InfixParseFn[] infixParseFns = new InfixParseFn[TokenType.values().length];
+    private static final int[] precedences = new int[TokenType.values().length];
 
+    static {
         // Initialize prefix parse functions
-        prefixParseFns.put(TokenType.IDENT, this::parseIdentifier);
-        prefixParseFns.put(TokenType.INT, this::parseIntegerLiteral);
-        prefixParseFns.put(TokenType.BANG, this::parsePrefixExpression);
-        prefixParseFns.put(TokenType.MINUS, this::parsePrefixExpression);
-        prefixParseFns.put(TokenType.TRUE, this::parseBoolean);
-        prefixParseFns.put(TokenType.FALSE, this::parseBoolean);
-        prefixParseFns.put(TokenType.LPAREN, this::parseGroupedExpression);
-        prefixParseFns.put(TokenType.IF, this::parseIfExpression);
-        prefixParseFns.put(TokenType.FUNCTION, this::parseFunctionLiteral);
+        prefixParseFns[TokenType.IDENT.ordinal()] = Parser::parseIdentifier;
+        prefixParseFns[TokenType.INT.ordinal()] = Parser::parseIntegerLiteral;
+        prefixParseFns[TokenType.BANG.ordinal()] = Parser::parsePrefixExpression;
+        prefixParseFns[TokenType.MINUS.ordinal()] = Parser::parsePrefixExpression;
+        prefixParseFns[TokenType.TRUE.ordinal()] = Parser::parseBoolean;
+        prefixParseFns[TokenType.FALSE.ordinal()] = Parser::parseBoolean;
+        prefixParseFns[TokenType.LPAREN.ordinal()] = Parser::parseGroupedExpression;
+        prefixParseFns[TokenType.IF.ordinal()] = Parser::parseIfExpression;
+        prefixParseFns[TokenType.FUNCTION.ordinal()] = Parser::parseFunctionLiteral;
 
         // Initialize infix parse functions
-        infixParseFns.put(TokenType.PLUS, this::parseInfixExpression);
-        infixParseFns.put(TokenType.MINUS, this::parseInfixExpression);
-        infixParseFns.put(TokenType.SLASH, this::parseInfixExpression);
-        infixParseFns.put(TokenType.ASTERISK, this::parseInfixExpression);
-        infixParseFns.put(TokenType.EQ, this::parseInfixExpression);
-        infixParseFns.put(TokenType.NOT_EQ, this::parseInfixExpression);
-        infixParseFns.put(TokenType.LT, this::parseInfixExpression);
-        infixParseFns.put(TokenType.GT, this::parseInfixExpression);
-        infixParseFns.put(TokenType.LPAREN, this::parseCallExpression);
+        infixParseFns[TokenType.PLUS.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.MINUS.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.SLASH.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.ASTERISK.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.EQ.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.NOT_EQ.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.LT.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.GT.ordinal()] = Parser::parseInfixExpression;
+        infixParseFns[TokenType.LPAREN.ordinal()] = Parser::parseCallExpression;
+
+        // Precedence table; every other token type stays LOWEST
+        precedences[TokenType.EQ.ordinal()] = Precedence.EQUALS.ordinal();
+        precedences[TokenType.NOT_EQ.ordinal()] = Precedence.EQUALS.ordinal();
+        precedences[TokenType.LT.ordinal()] = Precedence.LESSGREATER.ordinal();
+        precedences[TokenType.GT.ordinal()] = Precedence.LESSGREATER.ordinal();
+        precedences[TokenType.PLUS.ordinal()] = Precedence.SUM.ordinal();
+        precedences[TokenType.MINUS.ordinal()] = Precedence.SUM.ordinal();
+        precedences[TokenType.SLASH.ordinal()] = Precedence.PRODUCT.ordinal();
+        precedences[TokenType.ASTERISK.ordinal()] = Precedence.PRODUCT.ordinal();
+        precedences[TokenType.LPAREN.ordinal()] = Precedence.CALL.ordinal();
+    }
+
+    public Parser(TokenSource lexer) {
+        this.lexer = lexer;
 
         // Read two tokens to initialize current and peek
         nextToken();
@@ -95,7 +95,7 @@ public class Parser {
         while (currentToken.getType() != TokenType.EOF) {
             Statement stmt = parseStatement();
             if (stmt != null) {
-                program.getStatements().add(stmt);
+                program.addStatement(stmt);
             }
             nextToken();
         }
@@ -159,22 +159,22 @@ public class Parser {
     }
 
     private Expression parseExpression(int precedence) {
-        PrefixParseFn prefix = prefixParseFns.get(currentToken.getType());
+        PrefixParseFn prefix = prefixParseFns[currentToken.getType().ordinal()];
         if (prefix == null) {
             noPrefixParseFnError(currentToken.getType());
             return null;
         }
 
-        Expression leftExp = prefix.parse();
+        Expression leftExp = prefix.parse(this);
 
         while (peekToken.getType() != TokenType.SEMICOLON && precedence < peekPrecedence()) {
-            InfixParseFn infix = infixParseFns.get(peekToken.getType());
+            InfixParseFn infix = infixParseFns[peekToken.getType().ordinal()];
             if (infix == null) {
                 return leftExp;
             }
 
             nextToken();
-            leftExp = infix.parse(leftExp);
+            leftExp = infix.parse(this, leftExp);
         }
 
         return leftExp;
@@ -195,7 +195,7 @@ public class Parser {
 
     private Expression parsePrefixExpression() {
         Token token = currentToken;
-        String operator = currentToken.getLiteral();
+        Operator operator = Operator.prefix(currentToken.getLiteral());
 
         nextToken();
         Expression right = parseExpression(Precedence.PREFIX.ordinal());
@@ -205,7 +205,7 @@ public class Parser {
 
     private Expression parseInfixExpression(Expression left) {
         Token token = currentToken;
-        String operator = currentToken.getLiteral();
+        Operator operator = Operator.infix(currentToken.getLiteral());
 
         int precedence = currentPrecedence();
         nextToken();
@@ -273,7 +273,7 @@ public class Parser {
                 currentToken.getType() != TokenType.EOF) {
             Statement stmt = parseStatement();
             if (stmt != null) {
-                block.getStatements().add(stmt);
+                block.addStatement(stmt);
             }
             nextToken();
         }
@@ -368,11 +368,11 @@ public class Parser {
     }
 
     private int peekPrecedence() {
-        return precedences.getOrDefault(peekToken.getType(), Precedence.LOWEST).ordinal();
+        return precedences[peekToken.getType().ordinal()];
     }
 
     private int currentPrecedence() {
-        return precedences.getOrDefault(currentToken.getType(), Precedence.LOWEST).ordinal();
+        return precedences[currentToken.getType().ordinal()];
     }
 
     private void peekError(TokenType type) {
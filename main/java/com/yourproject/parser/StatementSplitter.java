@@ -0,0 +1,77 @@
+package main.java.com.yourproject.parser;
+
+
+import main.java.com.yourproject.lexer.Lexer;
+import main.java.com.yourproject.tokens.TokenType;
+
+/**
+ * Finds offsets in a source text where a new top-level statement has to start.
+ *
+ * A boundary is placed, outside of any parentheses or braces, after a semicolon and
+ * before a let or return keyword. A program that parses without errors always starts a
+ * statement at those offsets, so parsing the pieces on their own gives the same statements
+ * as parsing the whole text. Callers must fall back to a normal parse when a piece reports
+ * errors, because error recovery can run across a boundary.
+ */
+class StatementSplitter {
+    private final Lexer lexer;
+    private TokenType previous;
+    private int depth;
+    private boolean balanced = true;
+
+    /**
+     * @param source The program text
+     * @param start Offset of a known statement start (or 0) where scanning begins
+     */
+    StatementSplitter(String source, int start) {
+        this.lexer = new Lexer(source, start, source.length());
+    }
+
+    /**
+     * Scans forward to the next boundary
+     * @return The offset of the next statement start, or -1 at the end of input
+     *         or once the brackets turned out to be unbalanced
+     */
+    int nextBoundary() {
+        while (balanced) {
+            TokenType type = lexer.scan();
+            if (type == TokenType.EOF) {
+                balanced = depth == 0;
+                return -1;
+            }
+
+            boolean boundary = depth == 0 && previous != null
+                    && (previous == TokenType.SEMICOLON || type == TokenType.LET || type == TokenType.RETURN);
+
+            switch (type) {
+                case LPAREN:
+                case LBRACE:
+                    depth++;
+                    break;
+                case RPAREN:
+                case RBRACE:
+                    if (--depth < 0) {
+                        balanced = false;
+                        return -1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            previous = type;
+
+            if (boundary) {
+                return lexer.tokenStart();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return false if a closing bracket had no opening one, or if the input ended
+     *         inside brackets; only meaningful once nextBoundary() returned -1
+     */
+    boolean isBalanced() {
+        return balanced;
+    }
+}
@@ -0,0 +1,196 @@
+package main.java.com.yourproject.resolver;
+
+
+import main.java.com.yourproject.ast.Node;
+import main.java.com.yourproject.ast.Program;
+import main.java.com.yourproject.ast.expressions.*;
+import main.java.com.yourproject.ast.statements.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static pass that gives every variable reference a lexical address, so the Evaluator can
+ * reach it with a fixed number of hops up the environment chain and one array read.
+ *
+ * Every function literal is a scope whose slots are its parameters followed by the names
+ * its body binds with `let` (blocks do not open scopes in Monkey, so lets inside an if count
+ * too; nested functions do not). Each Identifier is annotated with (depth, slot): how many
+ * function scopes out its name is bound, and where. A name that no enclosing function binds
+ * is global; it gets the depth of the program scope and GLOBAL_SLOT, and is looked up by name
+ * there, which keeps REPL globals and names defined by earlier programs working.
+ *
+ * A slot whose let has not run yet is null, and the Evaluator then falls back to a lookup by
+ * name from that scope outwards, exactly what the name-based evaluator did.
+ *
+ * The pass also marks calls in tail position, whose value is the value of the function they
+ * appear in: the last expression of a function body (through if branches) and the value of
+ * any `return` inside a function. The Evaluator runs those calls on a trampoline.
+ *
+ * Finally it numbers the calls through a name inside each function literal, 0, 1, ... in
+ * source order, so every function value can keep one inline cache per call site (see
+ * CallSiteCache). Calls at the top level are not numbered.
+ */
+public final class Resolver {
+    private static final Object LOCK = new Object();
+
+    // Innermost scope last
+    private final List<Map<String, Integer>> scopes = new ArrayList<>();
+    // The next call site number of each scope in scopes
+    private final List<int[]> callSites = new ArrayList<>();
+
+    private Resolver() {
+    }
+
+    /**
+     * Annotates a program once. Safe to call from several threads on a shared program.
+     * @param program The program to resolve
+     */
+    public static void resolve(Program program) {
+        if (program.isResolved()) {
+            return;
+        }
+        synchronized (LOCK) {
+            if (program.isResolved()) {
+                return;
+            }
+            Resolver resolver = new Resolver();
+            for (Statement statement : program.getStatements()) {
+                resolver.node(statement, false);
+            }
+            program.markResolved();
+        }
+    }
+
+    /**
+     * @param tail Whether the node's value becomes the value of the enclosing function
+     */
+    private void node(Node node, boolean tail) {
+        if (node instanceof Identifier) {
+            identifier((Identifier) node);
+        } else if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            node(let.getValue(), false);
+            identifier(let.getName());
+        } else if (node instanceof ReturnStatement) {
+            // A return leaves the function wherever it is, but not at the top level
+            node(((ReturnStatement) node).getReturnValue(), !scopes.isEmpty());
+        } else if (node instanceof ExpressionStatement) {
+            node(((ExpressionStatement) node).getExpression(), tail);
+        } else if (node instanceof BlockStatement) {
+            List<Statement> statements = ((BlockStatement) node).getStatements();
+            for (int i = 0; i < statements.size(); i++) {
+                node(statements.get(i), tail && i == statements.size() - 1);
+            }
+        } else if (node instanceof PrefixExpression) {
+            node(((PrefixExpression) node).getRight(), false);
+        } else if (node instanceof InfixExpression) {
+            node(((InfixExpression) node).getLeft(), false);
+            node(((InfixExpression) node).getRight(), false);
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            node(ifExpression.getCondition(), false);
+            node(ifExpression.getConsequence(), tail);
+            node(ifExpression.getAlternative(), tail);
+        } else if (node instanceof FunctionLiteral) {
+            function((FunctionLiteral) node);
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            call.markTailPosition(tail);
+            if (call.getFunction() instanceof Identifier && !callSites.isEmpty()) {
+                call.numberSite(callSites.get(callSites.size() - 1)[0]++);
+            }
+            node(call.getFunction(), false);
+            if (call.getArguments() != null) {
+                for (Expression argument : call.getArguments()) {
+                    node(argument, false);
+                }
+            }
+        }
+    }
+
+    private void function(FunctionLiteral function) {
+        Map<String, Integer> scope = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        if (function.getParameters() != null) {
+            for (Identifier parameter : function.getParameters()) {
+                declare(parameter.getValue(), scope, names);
+            }
+        }
+        collectLets(function.getBody(), scope, names);
+        if (function.getSlotNames() == null) {
+            function.setSlotNames(names.toArray(new String[0]));
+        }
+
+        scopes.add(scope);
+        callSites.add(new int[1]);
+        if (function.getParameters() != null) {
+            for (Identifier parameter : function.getParameters()) {
+                identifier(parameter);
+            }
+        }
+        node(function.getBody(), true);
+        scopes.remove(scopes.size() - 1);
+        function.setCallSites(callSites.remove(callSites.size() - 1)[0]);
+    }
+
+    private void identifier(Identifier identifier) {
+        String name = identifier.getValue();
+        int innermost = scopes.size() - 1;
+        for (int i = innermost; i >= 0; i--) {
+            Integer slot = scopes.get(i).get(name);
+            if (slot != null) {
+                identifier.resolve(Identifier.address(innermost - i, slot));
+                return;
+            }
+        }
+        identifier.resolve(Identifier.address(scopes.size(), Identifier.GLOBAL_SLOT));
+    }
+
+    private static void declare(String name, Map<String, Integer> scope, List<String> names) {
+        if (!scope.containsKey(name)) {
+            scope.put(name, names.size());
+            names.add(name);
+        }
+    }
+
+    /**
+     * Finds the lets that bind in the scope of the function being declared,
+     * without entering nested function literals
+     */
+    private static void collectLets(Node node, Map<String, Integer> scope, List<String> names) {
+        if (node instanceof LetStatement) {
+            LetStatement let = (LetStatement) node;
+            collectLets(let.getValue(), scope, names);
+            declare(let.getName().getValue(), scope, names);
+        } else if (node instanceof ReturnStatement) {
+            collectLets(((ReturnStatement) node).getReturnValue(), scope, names);
+        } else if (node instanceof ExpressionStatement) {
+            collectLets(((ExpressionStatement) node).getExpression(), scope, names);
+        } else if (node instanceof BlockStatement) {
+            for (Statement statement : ((BlockStatement) node).getStatements()) {
+                collectLets(statement, scope, names);
+            }
+        } else if (node instanceof PrefixExpression) {
+            collectLets(((PrefixExpression) node).getRight(), scope, names);
+        } else if (node instanceof InfixExpression) {
+            collectLets(((InfixExpression) node).getLeft(), scope, names);
+            collectLets(((InfixExpression) node).getRight(), scope, names);
+        } else if (node instanceof IfExpression) {
+            IfExpression ifExpression = (IfExpression) node;
+            collectLets(ifExpression.getCondition(), scope, names);
+            collectLets(ifExpression.getConsequence(), scope, names);
+            collectLets(ifExpression.getAlternative(), scope, names);
+        } else if (node instanceof CallExpression) {
+            CallExpression call = (CallExpression) node;
+            collectLets(call.getFunction(), scope, names);
+            if (call.getArguments() != null) {
+                for (Expression argument : call.getArguments()) {
+                    collectLets(argument, scope, names);
+                }
+            }
+        }
+    }
+}
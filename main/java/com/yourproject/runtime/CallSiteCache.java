@@ -0,0 +1,179 @@
+package main.java.com.yourproject.runtime;
+
+
+import main.java.com.yourproject.objects.FunctionObj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The inline cache of one call site whose callee is a name: the functions the name has
+ * meant there, with what the Evaluator needs to call them (the frame size), so a hit skips
+ * both the lookup of the name and the checks on the callee.
+ *
+ * An entry for a name looked up in an environment's store (a global) remembers that
+ * environment and its version: it hits while the environment is the same and nothing has
+ * been set in it since. An entry for a name in a slot only remembers the function: the slot
+ * read is already cheap, and the entry hits when it finds the same function there.
+ *
+ * A site starts uninitialized, is monomorphic with one entry and polymorphic with up to
+ * MAX_TARGETS. Entries are kept per function body: a new function made by the same literal
+ * (another closure of the same factory) replaces the old one. A site
+ * that sees more bodies than that is megamorphic and stops caching for good.
+ *
+ * The caches are runtime state, owned by the function value whose body holds the call (see
+ * FunctionObj.callSiteCache), so they live as long as that run's functions and are never
+ * shared between runs of a cached tree. A function value can still be called from several
+ * threads, so lookups and counters are thread-safe.
+ */
+public final class CallSiteCache {
+    public static final int MAX_TARGETS = 4;
+
+    public enum State { UNINITIALIZED, MONOMORPHIC, POLYMORPHIC, MEGAMORPHIC }
+
+    private static final Entry[] EMPTY = new Entry[0];
+    private static final Entry[] MEGAMORPHIC = new Entry[0];
+
+    // Replaced, never modified, so readers need no lock; most recently added first
+    private volatile Entry[] entries = EMPTY;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @return The entry for a name bound in env's store, if env has not changed since
+     */
+    public Entry find(Environment env, long version) {
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            if (entry.env == env && entry.version == version) {
+                hits.increment();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The entry for a function read from a slot
+     */
+    public Entry find(FunctionObj function) {
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            if (entry.function == function) {
+                hits.increment();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a miss that found a function, replacing the entries it makes stale: those of
+     * the same body, and those of the same environment at an older version
+     * @param env The environment whose store binds the name, or null for a slot
+     * @param version env's version, read before the lookup
+     * @param frameSize The length of the argument array for a call to the function
+     * @return The entry, also when the site is megamorphic and does not keep it
+     */
+    public Entry add(FunctionObj function, Environment env, long version, int frameSize) {
+        misses.increment();
+        Entry added = new Entry(function, env, version, frameSize);
+        synchronized (this) {
+            if (entries == MEGAMORPHIC) {
+                return added;
+            }
+            List<Entry> kept = new ArrayList<>(MAX_TARGETS + 1);
+            kept.add(added);
+            for (Entry entry : entries) {
+                if (entry.function.getBody() != function.getBody() && (env == null || entry.env != env)) {
+                    kept.add(entry);
+                }
+            }
+            entries = kept.size() > MAX_TARGETS ? MEGAMORPHIC : kept.toArray(EMPTY);
+        }
+        return added;
+    }
+
+    /**
+     * Records a miss that found no function to cache: an unbound name, a value that is not
+     * a function, a name bound outside the environment the lookup starts in
+     */
+    public void missed() {
+        misses.increment();
+    }
+
+    /**
+     * @return Whether the site has given up caching
+     */
+    public boolean isMegamorphic() {
+        return entries == MEGAMORPHIC;
+    }
+
+    public State getState() {
+        Entry[] current = entries;
+        if (current == MEGAMORPHIC) {
+            return State.MEGAMORPHIC;
+        }
+        switch (current.length) {
+            case 0: return State.UNINITIALIZED;
+            case 1: return State.MONOMORPHIC;
+            default: return State.POLYMORPHIC;
+        }
+    }
+
+    /**
+     * @return The number of functions cached, 0 when megamorphic
+     */
+    public int getTargets() {
+        return entries.length;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The share of calls that hit, 0 before any call
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CallSiteCache[%s, targets=%d, hits=%d, misses=%d, hitRate=%.3f]",
+                getState(), getTargets(), hits.sum(), misses.sum(), getHitRate());
+    }
+
+    /**
+     * A function a call site has called, with how it was found
+     */
+    public static final class Entry {
+        private final FunctionObj function;
+        private final Environment env;
+        private final long version;
+        private final int frameSize;
+
+        Entry(FunctionObj function, Environment env, long version, int frameSize) {
+            this.function = function;
+            this.env = env;
+            this.version = version;
+            this.frameSize = frameSize;
+        }
+
+        public FunctionObj getFunction() {
+            return function;
+        }
+
+        public int getFrameSize() {
+            return frameSize;
+        }
+    }
+}
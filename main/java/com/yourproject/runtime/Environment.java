@@ -2,15 +2,28 @@ package main.java.com.yourproject.runtime;
 
 
 import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.FunctionObj;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Manages variable scoping and storage during evaluation
+ * Manages variable scoping and storage during evaluation.
+ *
+ * Function calls get a slot environment: the names the Resolver found in the function
+ * (parameters and lets) live in an array, indexed by the slots recorded on each Identifier.
+ * Any other name, and every name in an environment without slots, goes to the HashMap store.
+ * Name-based get() and set() see both, so unresolved code and REPL globals keep working.
+ *
+ * Every set() moves the environment to a new version, so a call site can keep what a name
+ * meant here and trust it until the version changes (see CallSiteCache).
  */
 public class Environment {
-    private final Map<String, EvaluatorObject> store;
+    private Map<String, EvaluatorObject> store; // created on first use in slot environments
     private final Environment outer;
+    private final String[] slotNames;           // null in name-only environments
+    private final EvaluatorObject[] slots;
+    private long version;
+    private final FunctionObj function;         // the function this is a call environment of, or null
 
     /**
      * Creates a new global environment
@@ -26,6 +39,43 @@ public class Environment {
     public Environment(Environment outer) {
         this.store = new HashMap<>();
         this.outer = outer;
+        this.slotNames = null;
+        this.slots = null;
+        this.function = null;
+    }
+
+    /**
+     * Creates a new enclosed environment with one slot per name
+     * @param outer The parent environment
+     * @param slotNames The slot layout of the function being called
+     */
+    public Environment(Environment outer, String[] slotNames) {
+        this(outer, slotNames, new EvaluatorObject[slotNames.length]);
+    }
+
+    /**
+     * Creates a new enclosed environment over a frame the caller has already filled in,
+     * e.g. with a call's arguments. The frame becomes the slots as is, without a copy.
+     * @param outer The parent environment
+     * @param slotNames The slot layout of the function being called
+     * @param frame At least one entry per slot name
+     */
+    public Environment(Environment outer, String[] slotNames, EvaluatorObject[] frame) {
+        this(outer, slotNames, frame, null);
+    }
+
+    /**
+     * Creates the environment of a call over a frame the caller has already filled in
+     * @param outer The parent environment
+     * @param slotNames The slot layout of the function being called
+     * @param frame At least one entry per slot name
+     * @param function The function being called, whose call site caches the body uses
+     */
+    public Environment(Environment outer, String[] slotNames, EvaluatorObject[] frame, FunctionObj function) {
+        this.outer = outer;
+        this.slotNames = slotNames;
+        this.slots = frame;
+        this.function = function;
     }
 
     /**
@@ -34,7 +84,7 @@ public class Environment {
      * @return The stored object or null if not found
      */
     public EvaluatorObject get(String name) {
-        EvaluatorObject obj = store.get(name);
+        EvaluatorObject obj = getLocal(name);
         if (obj == null && outer != null) {
             return outer.get(name); // Look in parent scope
         }
@@ -48,17 +98,77 @@ public class Environment {
      * @return The stored value
      */
     public EvaluatorObject set(String name, EvaluatorObject value) {
+        version++;
+        int slot = slotIndex(name);
+        if (slot >= 0) {
+            slots[slot] = value;
+            return value;
+        }
+        if (store == null) {
+            store = new HashMap<>();
+        }
         store.put(name, value);
         return value;
     }
 
+    /**
+     * @param name The variable name
+     * @return The value bound in this environment's own store (not a slot, not an outer
+     *         environment), or null
+     */
+    public EvaluatorObject getStored(String name) {
+        return store != null ? store.get(name) : null;
+    }
+
+    /**
+     * @return A number that changes on every set(), so equal versions mean no name-based
+     *         binding of this environment has changed in between
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Reads a slot. A null result means the slot's let has not run yet.
+     * @param slot A slot index from the Resolver
+     * @return The value, or null if unset or this environment has no such slot
+     */
+    public EvaluatorObject getSlot(int slot) {
+        return slots != null && slot < slots.length ? slots[slot] : null;
+    }
+
+    /**
+     * Writes a slot
+     * @param slot A slot index from the Resolver
+     * @param value The value to store
+     * @return The stored value
+     */
+    public EvaluatorObject setSlot(int slot, EvaluatorObject value) {
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * @return The function this is a call environment of, or null
+     */
+    public FunctionObj getFunction() {
+        return function;
+    }
+
+    /**
+     * @return The parent environment, or null for the global environment
+     */
+    public Environment getOuter() {
+        return outer;
+    }
+
     /**
      * Checks if a variable exists in any scope
      * @param name The variable name
      * @return true if the variable exists
      */
     public boolean exists(String name) {
-        if (store.containsKey(name)) return true;
+        if (getLocal(name) != null || (store != null && store.containsKey(name))) return true;
         return outer != null && outer.exists(name);
     }
 
@@ -69,4 +179,23 @@ public class Environment {
     public Environment newEnclosedEnvironment() {
         return new Environment(this);
     }
+
+    private EvaluatorObject getLocal(String name) {
+        int slot = slotIndex(name);
+        if (slot >= 0) {
+            return slots[slot];
+        }
+        return store != null ? store.get(name) : null;
+    }
+
+    private int slotIndex(String name) {
+        if (slotNames != null) {
+            for (int i = 0; i < slotNames.length; i++) {
+                if (slotNames[i].equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
 }
@@ -5,6 +5,17 @@ package main.java.com.yourproject.tokens;
  * Represents a lexical token in the Monkey programming language
  */
 public class Token {
+    // Shared instances for every token type whose literal never varies, indexed by ordinal
+    private static final Token[] FIXED = new Token[TokenType.values().length];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            if (type.hasFixedLiteral()) {
+                FIXED[type.ordinal()] = new Token(type, type == TokenType.EOF ? "" : type.getLiteral());
+            }
+        }
+    }
+
     private final TokenType type;
     private final String literal;
 
@@ -18,6 +29,20 @@ public class Token {
         this.literal = literal;
     }
 
+    /**
+     * Returns the shared token for a type with a fixed literal, such as an operator,
+     * delimiter or keyword. These tokens are immutable and safe to share.
+     * @param type A token type for which hasFixedLiteral() is true
+     * @return The shared token
+     */
+    public static Token of(TokenType type) {
+        Token token = FIXED[type.ordinal()];
+        if (token == null) {
+            throw new IllegalArgumentException(type + " tokens do not have a fixed literal");
+        }
+        return token;
+    }
+
     /**
      * @return The token's type
      */
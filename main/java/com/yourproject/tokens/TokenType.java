@@ -1,8 +1,5 @@
 package main.java.com.yourproject.tokens;
 
-import java.util.Map;
-import java.util.HashMap;
-
 public enum TokenType {
     // Special types
     ILLEGAL("ILLEGAL"),
@@ -47,19 +44,6 @@ public enum TokenType {
     FOR("for");
 
     private final String literal;
-    private static final Map<String, TokenType> keywordMap = new HashMap<>();
-
-    static {
-        keywordMap.put("fn", FUNCTION);
-        keywordMap.put("let", LET);
-        keywordMap.put("true", TRUE);
-        keywordMap.put("false", FALSE);
-        keywordMap.put("if", IF);
-        keywordMap.put("else", ELSE);
-        keywordMap.put("return", RETURN);
-        keywordMap.put("while", WHILE);
-        keywordMap.put("for", FOR);
-    }
 
     TokenType(String literal) {
         this.literal = literal;
@@ -69,7 +53,56 @@ public enum TokenType {
         return literal;
     }
 
+    /**
+     * @return true if every token of this type has the same literal,
+     *         false for identifiers, numbers, strings and illegal characters
+     */
+    public boolean hasFixedLiteral() {
+        return this != ILLEGAL && this != IDENT && this != INT && this != STRING;
+    }
+
     public static TokenType lookupTokenType(String ident) {
-        return keywordMap.getOrDefault(ident, IDENT);
+        return lookupKeyword(ident, 0, ident.length());
+    }
+
+    /**
+     * Classifies an identifier in place, without creating a String for it.
+     * The length and first character narrow it down to at most one keyword,
+     * which is then compared character by character.
+     * Lexers pass a view of their input or buffer rather than copying the identifier out.
+     * @param text The text containing the identifier
+     * @param start Offset of the identifier
+     * @param length Length of the identifier
+     * @return The keyword type, or IDENT
+     */
+    public static TokenType lookupKeyword(CharSequence text, int start, int length) {
+        if (length == 0) return IDENT;
+        TokenType candidate = keywordCandidate(text.charAt(start), length);
+        if (candidate == IDENT) return IDENT;
+        String keyword = candidate.literal;
+        for (int i = 1; i < length; i++) {
+            if (text.charAt(start + i) != keyword.charAt(i)) return IDENT;
+        }
+        return candidate;
+    }
+
+    /**
+     * @return The only keyword with this length and first character, or IDENT
+     */
+    private static TokenType keywordCandidate(int first, int length) {
+        switch (length) {
+            case 2:
+                return first == 'f' ? FUNCTION : first == 'i' ? IF : IDENT;
+            case 3:
+                return first == 'l' ? LET : first == 'f' ? FOR : IDENT;
+            case 4:
+                return first == 't' ? TRUE : first == 'e' ? ELSE : IDENT;
+            case 5:
+                return first == 'f' ? FALSE : first == 'w' ? WHILE : IDENT;
+            case 6:
+                return first == 'r' ? RETURN : IDENT;
+            default:
+                return IDENT;
+        }
     }
 }
\ No newline at end of file
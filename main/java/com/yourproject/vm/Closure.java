@@ -0,0 +1,45 @@
+package main.java.com.yourproject.vm;
+
+
+import main.java.com.yourproject.ast.expressions.FunctionLiteral;
+import main.java.com.yourproject.compiler.CompiledFunction;
+import main.java.com.yourproject.objects.EvaluatorObject;
+
+/**
+ * A function value in the virtual machine: compiled code plus the scope it was created in.
+ * Prints the same way as the evaluator's FunctionObj.
+ */
+public final class Closure implements EvaluatorObject {
+    final CompiledFunction function;
+    final Scope parent; // null for functions created at the top level
+
+    Closure(CompiledFunction function, Scope parent) {
+        this.function = function;
+        this.parent = parent;
+    }
+
+    /**
+     * @return The compiled code of the function
+     */
+    public CompiledFunction getFunction() {
+        return function;
+    }
+
+    @Override
+    public String type() {
+        return "FUNCTION";
+    }
+
+    @Override
+    public String inspect() {
+        FunctionLiteral literal = function.getLiteral();
+        StringBuilder sb = new StringBuilder("fn(");
+        for (int i = 0; i < literal.getParameters().size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(literal.getParameters().get(i));
+        }
+        return sb.append(") {\n").append(literal.getBody()).append("\n}").toString();
+    }
+}
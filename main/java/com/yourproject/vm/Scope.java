@@ -0,0 +1,20 @@
+package main.java.com.yourproject.vm;
+
+
+import main.java.com.yourproject.objects.EvaluatorObject;
+
+/**
+ * The heap-allocated slots of a call whose function contains function literals, so the
+ * closures created during the call can keep reading and writing them after it returns.
+ */
+final class Scope {
+    final EvaluatorObject[] slots;
+    final String[] names;
+    final Scope outer;
+
+    Scope(String[] names, Scope outer) {
+        this.slots = new EvaluatorObject[names.length];
+        this.names = names;
+        this.outer = outer;
+    }
+}
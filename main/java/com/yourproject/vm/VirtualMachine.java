@@ -0,0 +1,448 @@
+package main.java.com.yourproject.vm;
+
+
+import main.java.com.yourproject.compiler.Bytecode;
+import main.java.com.yourproject.compiler.CompiledFunction;
+import main.java.com.yourproject.compiler.Opcode;
+import main.java.com.yourproject.objects.BooleanObj;
+import main.java.com.yourproject.objects.ErrorObj;
+import main.java.com.yourproject.objects.EvaluatorObject;
+import main.java.com.yourproject.objects.IntegerObj;
+import main.java.com.yourproject.objects.NullObj;
+
+import java.util.Arrays;
+
+/**
+ * Runs Bytecode on a preallocated operand stack and frame stack, in one loop with no Java
+ * recursion, so the depth of Monkey calls is limited by MAX_FRAMES and not by the Java stack.
+ *
+ * A call frame is the callee at bp - 1, then its slots (arguments first) and its operand
+ * stack above them. Functions that contain function literals keep their slots in a heap
+ * Scope instead, which their closures hold on to. TAIL_CALL reuses the caller's frame.
+ *
+ * Results match the Evaluator: same values, same ErrorObj messages, and the same exceptions
+ * for division by zero. A slot whose let has not run yet falls back to a lookup by name from
+ * the enclosing scopes outwards, as in the Evaluator. One difference: `return` always leaves
+ * the function, also when it sits in an if that is an operand of an expression.
+ *
+ * Not thread-safe; a VirtualMachine can run any number of programs one after the other.
+ */
+public class VirtualMachine {
+    public static final int STACK_SIZE = 1 << 18;
+    public static final int MAX_FRAMES = 1 << 14;
+
+    private static final BooleanObj TRUE = BooleanObj.TRUE;
+    private static final BooleanObj FALSE = BooleanObj.FALSE;
+    private static final NullObj NULL = NullObj.NULL;
+
+    // Indexed by the plain infix opcodes
+    private static final String[] OPERATORS = new String[Opcode.GREATER_THAN + 1];
+    static {
+        OPERATORS[Opcode.ADD] = "+";
+        OPERATORS[Opcode.SUB] = "-";
+        OPERATORS[Opcode.MUL] = "*";
+        OPERATORS[Opcode.DIV] = "/";
+        OPERATORS[Opcode.EQUAL] = "==";
+        OPERATORS[Opcode.NOT_EQUAL] = "!=";
+        OPERATORS[Opcode.LESS_THAN] = "<";
+        OPERATORS[Opcode.GREATER_THAN] = ">";
+    }
+
+    private final EvaluatorObject[] stack = new EvaluatorObject[STACK_SIZE];
+
+    // The suspended callers, indexed by frame depth
+    private final CompiledFunction[] frameFunctions = new CompiledFunction[MAX_FRAMES];
+    private final Scope[] frameScopes = new Scope[MAX_FRAMES];
+    private final int[] frameIps = new int[MAX_FRAMES];
+    private final int[] frameBps = new int[MAX_FRAMES];
+
+    private int highWater; // stack entries that may hold references after a run
+
+    /**
+     * Runs a program with fresh globals
+     * @param bytecode The compiled program
+     * @return The value of the program, or an ErrorObj
+     */
+    public EvaluatorObject run(Bytecode bytecode) {
+        try {
+            return execute(bytecode, new EvaluatorObject[bytecode.getGlobalNames().length]);
+        } catch (RuntimeError e) {
+            return new ErrorObj(e.getMessage());
+        } finally {
+            // Let the values of this run be collected
+            Arrays.fill(stack, 0, Math.min(highWater, STACK_SIZE), null);
+            Arrays.fill(frameFunctions, null);
+            Arrays.fill(frameScopes, null);
+            highWater = 0;
+        }
+    }
+
+    private EvaluatorObject execute(Bytecode bytecode, EvaluatorObject[] globals) {
+        final EvaluatorObject[] stack = this.stack;
+        final EvaluatorObject[] constants = bytecode.getConstants();
+        final CompiledFunction[] functions = bytecode.getFunctions();
+
+        CompiledFunction function = bytecode.getMain();
+        byte[] code = function.getCode();
+        Scope scope = null;
+        int fp = 0;
+        int ip = 0;
+        int bp = 0;
+        int sp = 0;
+        highWater = function.getMaxStack();
+        if (highWater > STACK_SIZE) {
+            throw new StackOverflowError("operand stack overflow");
+        }
+
+        while (true) {
+            byte opcode = code[ip++];
+            switch (opcode) {
+                case Opcode.CONSTANT:
+                    stack[sp++] = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    break;
+                case Opcode.TRUE:
+                    stack[sp++] = TRUE;
+                    break;
+                case Opcode.FALSE:
+                    stack[sp++] = FALSE;
+                    break;
+                case Opcode.NULL:
+                    stack[sp++] = NULL;
+                    break;
+                case Opcode.POP:
+                    sp--;
+                    break;
+
+                case Opcode.ADD: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() + ((IntegerObj) right).getIntegerValue())
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.SUB: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() - ((IntegerObj) right).getIntegerValue())
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.MUL: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() * ((IntegerObj) right).getIntegerValue())
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.DIV: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() / ((IntegerObj) right).getIntegerValue())
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.EQUAL: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() == ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.NOT_EQUAL: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() != ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.LESS_THAN: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() < ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.GREATER_THAN: {
+                    EvaluatorObject right = stack[--sp];
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj && right instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() > ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(opcode, left, right);
+                    break;
+                }
+                case Opcode.ADD_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() + ((IntegerObj) right).getIntegerValue())
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.SUB_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() - ((IntegerObj) right).getIntegerValue())
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.MUL_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() * ((IntegerObj) right).getIntegerValue())
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.DIV_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? IntegerObj.valueOf(((IntegerObj) left).getIntegerValue() / ((IntegerObj) right).getIntegerValue())
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.EQUAL_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() == ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.NOT_EQUAL_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() != ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.LESS_THAN_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() < ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.GREATER_THAN_CONSTANT: {
+                    EvaluatorObject right = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                    EvaluatorObject left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof IntegerObj
+                            ? ((IntegerObj) left).getIntegerValue() > ((IntegerObj) right).getIntegerValue() ? TRUE : FALSE
+                            : infix(Opcode.withoutConstant(opcode), left, right);
+                    break;
+                }
+                case Opcode.MINUS: {
+                    EvaluatorObject right = stack[sp - 1];
+                    if (!(right instanceof IntegerObj)) {
+                        throw new RuntimeError("unknown operator: -" + right.type());
+                    }
+                    stack[sp - 1] = IntegerObj.valueOf(-((IntegerObj) right).getIntegerValue());
+                    break;
+                }
+                case Opcode.BANG: {
+                    EvaluatorObject right = stack[sp - 1];
+                    stack[sp - 1] = right == FALSE || right == NULL ? TRUE : FALSE;
+                    break;
+                }
+
+                case Opcode.JUMP:
+                    ip += 2 + (((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF));
+                    break;
+                case Opcode.JUMP_IF_FALSE: {
+                    EvaluatorObject condition = stack[--sp];
+                    if (condition == FALSE || condition == NULL) {
+                        ip += 2 + (((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF));
+                    } else {
+                        ip += 2;
+                    }
+                    break;
+                }
+
+                case Opcode.GET_GLOBAL: {
+                    int index = ((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF);
+                    ip += 2;
+                    EvaluatorObject value = globals[index];
+                    if (value == null) {
+                        throw new RuntimeError("identifier not found: " + bytecode.getGlobalNames()[index]);
+                    }
+                    stack[sp++] = value;
+                    break;
+                }
+                case Opcode.SET_GLOBAL:
+                    globals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)] = stack[sp - 1];
+                    ip += 2;
+                    break;
+                case Opcode.GET_LOCAL: {
+                    int slot = code[ip++] & 0xFF;
+                    EvaluatorObject value = stack[bp + slot];
+                    if (value == null) {
+                        value = lookupByName(function.getSlotNames()[slot], scope, bytecode, globals);
+                    }
+                    stack[sp++] = value;
+                    break;
+                }
+                case Opcode.SET_LOCAL:
+                    stack[bp + (code[ip++] & 0xFF)] = stack[sp - 1];
+                    break;
+                case Opcode.GET_SCOPE: {
+                    Scope target = scope;
+                    for (int hops = code[ip++] & 0xFF; hops > 0; hops--) {
+                        target = target.outer;
+                    }
+                    int slot = code[ip++] & 0xFF;
+                    EvaluatorObject value = target.slots[slot];
+                    if (value == null) {
+                        value = lookupByName(target.names[slot], target.outer, bytecode, globals);
+                    }
+                    stack[sp++] = value;
+                    break;
+                }
+                case Opcode.SET_SCOPE:
+                    scope.slots[code[ip++] & 0xFF] = stack[sp - 1];
+                    break;
+
+                case Opcode.CLOSURE:
+                    // Only the top level and functions with a scope contain function literals
+                    stack[sp++] = new Closure(functions[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)], scope);
+                    ip += 2;
+                    break;
+                case Opcode.CALL:
+                case Opcode.TAIL_CALL: {
+                    int argc = code[ip++] & 0xFF;
+                    EvaluatorObject callee = stack[sp - 1 - argc];
+                    if (!(callee instanceof Closure)) {
+                        throw new RuntimeError("not a function: " + callee.type());
+                    }
+                    Closure closure = (Closure) callee;
+                    CompiledFunction target = closure.function;
+                    if (target.getNumParameters() != argc) {
+                        throw new RuntimeError("wrong number of arguments: want="
+                                + target.getNumParameters() + ", got=" + argc);
+                    }
+
+                    if (opcode == Opcode.TAIL_CALL) {
+                        // Slide the callee and its arguments down over the current frame
+                        System.arraycopy(stack, sp - 1 - argc, stack, bp - 1, argc + 1);
+                    } else {
+                        if (fp + 1 == MAX_FRAMES) {
+                            throw new StackOverflowError("frame stack overflow");
+                        }
+                        frameFunctions[fp] = function;
+                        frameScopes[fp] = scope;
+                        frameIps[fp] = ip;
+                        frameBps[fp] = bp;
+                        fp++;
+                        bp = sp - argc;
+                    }
+
+                    int top = bp + (target.usesScope() ? 0 : target.getNumSlots());
+                    if (top + target.getMaxStack() > highWater) {
+                        if (top + target.getMaxStack() > STACK_SIZE) {
+                            throw new StackOverflowError("operand stack overflow");
+                        }
+                        highWater = top + target.getMaxStack();
+                    }
+
+                    function = target;
+                    code = target.getCode();
+                    ip = 0;
+                    if (target.usesScope()) {
+                        scope = new Scope(target.getSlotNames(), closure.parent);
+                        System.arraycopy(stack, bp, scope.slots, 0, argc);
+                    } else {
+                        scope = closure.parent;
+                        for (int i = bp + argc; i < top; i++) {
+                            stack[i] = null;
+                        }
+                    }
+                    sp = top;
+                    break;
+                }
+                case Opcode.RETURN_VALUE: {
+                    EvaluatorObject value = stack[sp - 1];
+                    if (fp == 0) {
+                        return value;
+                    }
+                    sp = bp - 1;
+                    fp--;
+                    function = frameFunctions[fp];
+                    scope = frameScopes[fp];
+                    ip = frameIps[fp];
+                    bp = frameBps[fp];
+                    code = function.getCode();
+                    stack[sp++] = value;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("unknown opcode " + opcode + " at " + (ip - 1));
+            }
+        }
+    }
+
+    /**
+     * An infix operator with at least one non-integer operand
+     */
+    private static EvaluatorObject infix(byte opcode, EvaluatorObject left, EvaluatorObject right) {
+        if (opcode == Opcode.EQUAL) {
+            return left == right ? TRUE : FALSE;
+        }
+        if (opcode == Opcode.NOT_EQUAL) {
+            return left != right ? TRUE : FALSE;
+        }
+        String operator = OPERATORS[opcode];
+        if (!left.type().equals(right.type())) {
+            throw new RuntimeError("type mismatch: " + left.type() + " " + operator + " " + right.type());
+        }
+        throw new RuntimeError("unknown operator: " + left.type() + " " + operator + " " + right.type());
+    }
+
+    /**
+     * The slow path for a slot whose let has not run yet: the name is looked up in the
+     * enclosing scopes, innermost first, and then among the globals
+     */
+    private static EvaluatorObject lookupByName(String name, Scope scope, Bytecode bytecode, EvaluatorObject[] globals) {
+        for (; scope != null; scope = scope.outer) {
+            // Last match first: a repeated parameter name means the last parameter
+            for (int i = scope.names.length - 1; i >= 0; i--) {
+                if (scope.names[i].equals(name) && scope.slots[i] != null) {
+                    return scope.slots[i];
+                }
+            }
+        }
+        int index = bytecode.globalIndex(name);
+        if (index >= 0 && globals[index] != null) {
+            return globals[index];
+        }
+        throw new RuntimeError("identifier not found: " + name);
+    }
+
+    /**
+     * A Monkey runtime error, turned into an ErrorObj by run()
+     */
+    private static final class RuntimeError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RuntimeError(String message) {
+            super(message, null, false, false);
+        }
+    }
+}